@@ -0,0 +1,44 @@
+-- Compares the LIKE, trigram and full-text instruction search paths on a 1M row catalogue.
+--
+--   docker compose -f docker/docker-compose.yml exec -T db psql -U postgres -d recipes < docker/benchmarks/instruction-search.sql
+--
+-- Run against an empty development database: the application must have started once so the
+-- tables and search indexes exist. Everything is rolled back at the end.
+\timing on
+
+BEGIN;
+
+INSERT INTO recipes (id, title, description, instructions, vegetarian, servings, created_at, updated_at)
+SELECT gen_random_uuid(),
+       'Recipe ' || n,
+       'Generated recipe number ' || n,
+       (ARRAY['Bake', 'Simmer', 'Grill', 'Roast', 'Steam'])[1 + n % 5] || ' the ' ||
+       (ARRAY['potatoes', 'salmon', 'lentils', 'chicken', 'mushrooms'])[1 + (n / 5) % 5] ||
+       ' for ' || (10 + n % 50) || ' minutes, then rest and serve with ' ||
+       (ARRAY['rice', 'bread', 'salad', 'noodles'])[1 + n % 4] || ' ' || md5(n::text),
+       n % 3 = 0,
+       1 + n % 8,
+       now() - (n || ' seconds')::interval,
+       now()
+FROM generate_series(1, 1000000) AS n;
+
+ANALYZE recipes;
+
+-- Baseline: substring match with the trigram index disabled, i.e. the previous sequential scan
+SET LOCAL enable_bitmapscan = off;
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM recipes WHERE lower(instructions) LIKE '%salmon for 12 minutes%';
+RESET enable_bitmapscan;
+
+-- SUBSTRING mode: the same predicate served by idx_recipes_instructions_trgm
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM recipes WHERE lower(instructions) LIKE '%salmon for 12 minutes%';
+
+-- FULL_TEXT mode: GIN lookup on search_vector plus ranking of the matches
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM recipes
+WHERE id IN (SELECT s.id FROM recipes s WHERE s.search_vector @@ websearch_to_tsquery('english', 'grilled salmon'))
+ORDER BY (SELECT ts_rank(s.search_vector, websearch_to_tsquery('english', 'grilled salmon')) FROM recipes s WHERE s.id = recipes.id) DESC
+LIMIT 20;
+
+ROLLBACK;
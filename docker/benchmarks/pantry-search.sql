@@ -0,0 +1,53 @@
+-- Times the pantry coverage query (POST /api/recipes/search/pantry without the search index) on a
+-- 1M recipe catalogue with 4-15 ingredients per recipe drawn from a skewed 2,000 ingredient vocabulary.
+--
+--   docker compose -f docker/docker-compose.yml exec -T db psql -U postgres -d recipes < docker/benchmarks/pantry-search.sql
+--
+-- Run against an empty development database: the application must have started once so the
+-- tables and indexes exist. Everything is rolled back at the end. Target: under 200 ms for a
+-- pantry of about ten ingredients.
+\timing on
+
+BEGIN;
+
+INSERT INTO ingredients (name)
+SELECT 'pantry ingredient ' || n FROM generate_series(0, 1999) AS n;
+
+INSERT INTO recipes (id, title, description, instructions, vegetarian, servings, created_at, updated_at, version)
+SELECT gen_random_uuid(), 'Recipe ' || n, NULL, 'Cook', n % 3 = 0, 1 + n % 8,
+       now() - (n || ' seconds')::interval, now(), 0
+FROM generate_series(1, 1000000) AS n;
+
+-- Cubing a uniform value skews the ranks towards the start of the vocabulary, as in RecipeDataGenerator
+INSERT INTO recipe_ingredients (recipe_id, ingredient_id)
+SELECT DISTINCT r.id, i.id
+FROM recipes r
+CROSS JOIN LATERAL (SELECT floor(power(random(), 3) * 2000)::int AS rank
+                    FROM generate_series(1, 4 + (abs(hashtext(r.id::text)) % 12))) AS pick
+JOIN ingredients i ON i.name = 'pantry ingredient ' || pick.rank;
+
+ANALYZE recipes;
+ANALYZE ingredients;
+ANALYZE recipe_ingredients;
+
+-- Six common ingredients and five from the long tail
+CREATE TEMPORARY TABLE pantry ON COMMIT DROP AS
+SELECT id FROM ingredients WHERE name IN (
+    'pantry ingredient 0', 'pantry ingredient 1', 'pantry ingredient 2', 'pantry ingredient 3',
+    'pantry ingredient 4', 'pantry ingredient 6', 'pantry ingredient 10', 'pantry ingredient 25',
+    'pantry ingredient 60', 'pantry ingredient 150', 'pantry ingredient 400');
+
+-- The shape of RecipeRepository.findTopByPantryCoverage with maxMissing = 2; the application binds
+-- the pantry ids as literals
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT r.id, count(*) AS total, sum(CASE WHEN ri.ingredient_id IN (SELECT id FROM pantry) THEN 1 ELSE 0 END) AS matched
+FROM recipes r
+JOIN recipe_ingredients ri ON ri.recipe_id = r.id
+WHERE r.id IN (SELECT c.recipe_id FROM recipe_ingredients c WHERE c.ingredient_id IN (SELECT id FROM pantry))
+GROUP BY r.id
+HAVING count(*) - sum(CASE WHEN ri.ingredient_id IN (SELECT id FROM pantry) THEN 1 ELSE 0 END) <= 2
+ORDER BY sum(CASE WHEN ri.ingredient_id IN (SELECT id FROM pantry) THEN 1 ELSE 0 END) * 1.0 / count(*) DESC,
+         count(*) - sum(CASE WHEN ri.ingredient_id IN (SELECT id FROM pantry) THEN 1 ELSE 0 END), r.id
+LIMIT 20;
+
+ROLLBACK;
@@ -0,0 +1,54 @@
+-- Compares insert throughput and index size for random (v4) and time-ordered (v7) primary keys.
+--
+--   docker compose -f docker/docker-compose.yml exec -T db psql -U postgres -d recipes < docker/benchmarks/uuid-insert.sql
+--
+-- The tables mirror recipes/recipe_ingredients and live in a scratch schema that is dropped at the end.
+\timing on
+
+DROP SCHEMA IF EXISTS uuid_benchmark CASCADE;
+CREATE SCHEMA uuid_benchmark;
+SET search_path = uuid_benchmark;
+
+-- Same layout as UuidV7Generator: 48-bit millisecond timestamp, version 7, random tail
+CREATE FUNCTION uuid_v7() RETURNS uuid AS $$
+    SELECT encode(
+        set_bit(set_bit(
+            overlay(uuid_send(gen_random_uuid())
+                    PLACING substring(int8send(floor(extract(epoch FROM clock_timestamp()) * 1000)::bigint) FROM 3)
+                    FROM 1 FOR 6),
+            52, 1), 53, 1),
+        'hex')::uuid
+$$ LANGUAGE sql VOLATILE;
+
+CREATE TABLE recipes_v4 (id uuid PRIMARY KEY, title varchar(255) NOT NULL);
+CREATE TABLE recipe_ingredients_v4 (recipe_id uuid NOT NULL REFERENCES recipes_v4, ingredient varchar(255));
+CREATE INDEX ON recipe_ingredients_v4 (recipe_id);
+
+CREATE TABLE recipes_v7 (id uuid PRIMARY KEY, title varchar(255) NOT NULL);
+CREATE TABLE recipe_ingredients_v7 (recipe_id uuid NOT NULL REFERENCES recipes_v7, ingredient varchar(255));
+CREATE INDEX ON recipe_ingredients_v7 (recipe_id);
+
+-- Pre-fill so the indexes no longer fit in a few pages, then time a further batch of inserts
+INSERT INTO recipes_v4 SELECT gen_random_uuid(), 'Recipe ' || n FROM generate_series(1, 1000000) n;
+INSERT INTO recipes_v7 SELECT uuid_v7(), 'Recipe ' || n FROM generate_series(1, 1000000) n;
+CHECKPOINT;
+
+\echo 'v4: 1M recipes with 5 ingredients each'
+WITH inserted AS (
+    INSERT INTO recipes_v4 SELECT gen_random_uuid(), 'Recipe ' || n FROM generate_series(1, 1000000) n RETURNING id
+)
+INSERT INTO recipe_ingredients_v4 SELECT id, 'Ingredient ' || i FROM inserted, generate_series(1, 5) i;
+
+\echo 'v7: 1M recipes with 5 ingredients each'
+WITH inserted AS (
+    INSERT INTO recipes_v7 SELECT uuid_v7(), 'Recipe ' || n FROM generate_series(1, 1000000) n RETURNING id
+)
+INSERT INTO recipe_ingredients_v7 SELECT id, 'Ingredient ' || i FROM inserted, generate_series(1, 5) i;
+
+SELECT relname, pg_size_pretty(pg_relation_size(oid)) AS size
+FROM pg_class
+WHERE relnamespace = 'uuid_benchmark'::regnamespace AND relkind = 'i'
+ORDER BY relname;
+
+RESET search_path;
+DROP SCHEMA uuid_benchmark CASCADE;
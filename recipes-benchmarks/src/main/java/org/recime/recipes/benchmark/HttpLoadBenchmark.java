@@ -0,0 +1,137 @@
+package org.recime.recipes.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load against a running application: {@code concurrency} clients each send list
+ * and search requests back to back for {@code seconds}, after a warm-up of the same length.
+ * Run it once against the default configuration and once against the {@code virtual-threads}
+ * profile to compare throughput and tail latency.
+ * <p>
+ * {@code java -cp recipes-benchmarks/target/benchmarks.jar org.recime.recipes.benchmark.HttpLoadBenchmark
+ * http://localhost:8080 1000 60 [seedRecipes]}
+ */
+public class HttpLoadBenchmark {
+
+    private static final String SEARCH = "{\"vegetarian\": true, \"includeIngredients\": [\"Salt\"], \"size\": 20}";
+
+    public static void main(String[] args) throws Exception {
+        URI baseUri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080");
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 60);
+        int seedRecipes = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        if (seedRecipes > 0) {
+            seed(client, baseUri, seedRecipes);
+        }
+
+        System.out.printf("warming up for %ds with %d clients%n", duration.toSeconds(), concurrency);
+        run(client, baseUri, concurrency, duration);
+        System.out.printf("measuring for %ds with %d clients%n", duration.toSeconds(), concurrency);
+        Result result = run(client, baseUri, concurrency, duration);
+
+        long[] latencies = result.latencies();
+        Arrays.sort(latencies);
+        System.out.printf("requests:   %,d (%,d errors, %,d rejected with 503)%n",
+                latencies.length, result.errors(), result.rejected());
+        System.out.printf("throughput: %,.0f requests/s%n", latencies.length / (double) duration.toSeconds());
+        System.out.printf("p50:        %.1f ms%n", percentile(latencies, 0.50));
+        System.out.printf("p99:        %.1f ms%n", percentile(latencies, 0.99));
+        System.out.printf("p99.9:      %.1f ms%n", percentile(latencies, 0.999));
+        System.exit(0);
+    }
+
+    private static Result run(HttpClient client, URI baseUri, int concurrency, Duration duration) throws Exception {
+        HttpRequest list = HttpRequest.newBuilder(baseUri.resolve("/api/recipes?size=20")).GET().build();
+        HttpRequest search = HttpRequest.newBuilder(baseUri.resolve("/api/recipes/search"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(SEARCH))
+                .build();
+        LongAdder errors = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            int clientIndex = i;
+            futures.add(clients.submit(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = (count + clientIndex) % 2 == 0 ? list : search;
+                    long start = System.nanoTime();
+                    try {
+                        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status == 503) {
+                            rejected.increment();
+                        } else if (status >= 400) {
+                            errors.increment();
+                        }
+                    } catch (Exception e) {
+                        errors.increment();
+                    }
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - start;
+                }
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+
+        List<long[]> perClient = new ArrayList<>();
+        for (Future<long[]> future : futures) {
+            perClient.add(future.get());
+        }
+        clients.shutdown();
+        long[] latencies = perClient.stream().flatMapToLong(Arrays::stream).toArray();
+        return new Result(latencies, errors.sum(), rejected.sum());
+    }
+
+    private static void seed(HttpClient client, URI baseUri, int count) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        Random random = new Random(42);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            body.append(objectMapper.writeValueAsString(RecipeDataGenerator.recipeRequest(random, 3 + random.nextInt(12))))
+                    .append('\n');
+        }
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/api/recipes/bulk"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        System.out.printf("seeded %,d recipes (HTTP %d)%n", count, status);
+    }
+
+    private static double percentile(long[] sortedNanos, double quantile) {
+        if (sortedNanos.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+
+    private record Result(long[] latencies, long errors, long rejected) {
+    }
+}
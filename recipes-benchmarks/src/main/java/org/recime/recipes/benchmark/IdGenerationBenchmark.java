@@ -0,0 +1,38 @@
+package org.recime.recipes.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.recime.recipes.model.UuidV7Generator;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGenerationBenchmark {
+
+    @Benchmark
+    public UUID timeOrdered() {
+        return UuidV7Generator.nextUuid();
+    }
+
+    @Benchmark
+    public UUID random() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public UUID timeOrderedContended() {
+        return UuidV7Generator.nextUuid();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public UUID randomContended() {
+        return UUID.randomUUID();
+    }
+}
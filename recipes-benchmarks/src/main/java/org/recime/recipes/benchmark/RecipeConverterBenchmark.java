@@ -0,0 +1,54 @@
+package org.recime.recipes.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeRequest;
+import org.recime.recipes.model.Ingredient;
+import org.recime.recipes.model.Recipe;
+import org.recime.recipes.service.RecipeConverter;
+import org.recime.recipes.util.TestRecipeFactory;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeConverterBenchmark {
+
+    @Param({"3", "15", "50"})
+    private int ingredientCount;
+
+    private final RecipeConverter recipeConverter = new RecipeConverter();
+    private Recipe recipe;
+    private RecipeRequest recipeRequest;
+    private Map<String, Ingredient> dictionary;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        recipe = RecipeDataGenerator.recipe(random, ingredientCount);
+        recipeRequest = RecipeDataGenerator.recipeRequest(random, ingredientCount);
+        dictionary = TestRecipeFactory.createIngredientDictionary(recipeRequest.getIngredients());
+    }
+
+    @Benchmark
+    public RecipeDto mapToDto() {
+        return recipeConverter.mapToDto(recipe);
+    }
+
+    @Benchmark
+    public Recipe mapRequestToRecipe() {
+        return recipeConverter.mapRequestToRecipe(recipeRequest, dictionary);
+    }
+
+    @Benchmark
+    public Recipe updateRecipeFromRequest() {
+        recipeConverter.updateRecipeFromRequest(recipe, recipeRequest, dictionary);
+        return recipe;
+    }
+}
@@ -0,0 +1,101 @@
+package org.recime.recipes.benchmark;
+
+import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeRequest;
+import org.recime.recipes.model.Recipe;
+import org.recime.recipes.util.TestRecipeFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Deterministic catalogue data for the benchmarks, built on {@link TestRecipeFactory}.
+ * <p>
+ * Ingredients are drawn from a fixed vocabulary with a skewed distribution, so a handful of
+ * ingredients (salt, olive oil, ...) appear in most recipes while the long tail is rare, as in a
+ * real catalogue.
+ */
+public final class RecipeDataGenerator {
+
+    public static final int VOCABULARY_SIZE = 2_000;
+    private static final String[] COMMON = {"Salt", "Olive Oil", "Garlic", "Onion", "Black Pepper", "Butter", "Tomato"};
+
+    private RecipeDataGenerator() {
+    }
+
+    public static String ingredient(int rank) {
+        return rank < COMMON.length ? COMMON[rank] : "Ingredient " + rank;
+    }
+
+    public static List<String> ingredients(Random random, int count) {
+        Set<String> ingredients = new LinkedHashSet<>();
+        while (ingredients.size() < count) {
+            // Cubing a uniform value skews the ranks towards the start of the vocabulary
+            double skewed = Math.pow(random.nextDouble(), 3);
+            ingredients.add(ingredient((int) (skewed * VOCABULARY_SIZE)));
+        }
+        return new ArrayList<>(ingredients);
+    }
+
+    public static Recipe recipe(Random random, int ingredientCount) {
+        int n = random.nextInt(1_000_000);
+        return TestRecipeFactory.createCustomRecipe(
+                new UUID(random.nextLong(), random.nextLong()),
+                "Recipe " + n,
+                description(n),
+                ingredients(random, ingredientCount),
+                instructions(random, n),
+                random.nextInt(3) == 0,
+                1 + random.nextInt(8));
+    }
+
+    public static RecipeDto recipeDto(Random random, int ingredientCount) {
+        int n = random.nextInt(1_000_000);
+        return TestRecipeFactory.createCustomRecipeDto(
+                new UUID(random.nextLong(), random.nextLong()),
+                "Recipe " + n,
+                description(n),
+                ingredients(random, ingredientCount),
+                instructions(random, n),
+                random.nextInt(3) == 0,
+                1 + random.nextInt(8));
+    }
+
+    public static RecipeRequest recipeRequest(Random random, int ingredientCount) {
+        int n = random.nextInt(1_000_000);
+        return TestRecipeFactory.createCustomRecipeRequest(
+                "Recipe " + n,
+                description(n),
+                ingredients(random, ingredientCount),
+                instructions(random, n),
+                random.nextInt(3) == 0,
+                1 + random.nextInt(8));
+    }
+
+    public static List<RecipeDto> catalogue(long seed, int size) {
+        Random random = new Random(seed);
+        List<RecipeDto> recipes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            recipes.add(recipeDto(random, 4 + random.nextInt(12)));
+        }
+        return recipes;
+    }
+
+    private static String description(int n) {
+        return "Generated recipe number " + n + " for benchmarking";
+    }
+
+    private static String instructions(Random random, int n) {
+        StringBuilder instructions = new StringBuilder();
+        int steps = 3 + random.nextInt(8);
+        for (int step = 1; step <= steps; step++) {
+            instructions.append(step).append(". Prepare step ").append(step).append(" of recipe ").append(n)
+                    .append(" and cook for ").append(5 + random.nextInt(30)).append(" minutes. ");
+        }
+        return instructions.toString();
+    }
+}
@@ -0,0 +1,143 @@
+package org.recime.recipes.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.recime.recipes.dto.PantryCoverage;
+import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeSearchRequest;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.service.RecipeSearchIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search over catalogues of increasing size: the bitmap index behind {@link RecipeSearchIndex}
+ * against a straight scan that filters the ingredient lists in Java.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RecipeSearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int catalogueSize;
+
+    private List<RecipeDto> catalogue;
+    private RecipeSearchIndex searchIndex;
+
+    private final RecipeSearchRequest includeRequest = RecipeSearchRequest.builder()
+            .includeIngredients(Arrays.asList("Garlic", "Tomato"))
+            .size(50)
+            .build();
+    private final RecipeSearchRequest includeExcludeRequest = RecipeSearchRequest.builder()
+            .includeIngredients(Arrays.asList("Salt", "Onion"))
+            .excludeIngredients(Arrays.asList("Butter", "Ingredient 40"))
+            .size(50)
+            .build();
+    private final RecipeSearchRequest scalarRequest = RecipeSearchRequest.builder()
+            .vegetarian(true)
+            .servings(4)
+            .size(50)
+            .build();
+
+    // A typical pantry: most of the common ingredients plus a few from the long tail
+    private final List<String> pantry = Arrays.asList("Salt", "Olive Oil", "Garlic", "Onion", "Black Pepper", "Tomato",
+            "Ingredient 10", "Ingredient 25", "Ingredient 60", "Ingredient 150", "Ingredient 400");
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalogue = RecipeDataGenerator.catalogue(42, catalogueSize);
+        // No repository: the index is fed through its change listener instead of a rebuild
+        searchIndex = new RecipeSearchIndex(null, true);
+        catalogue.forEach(recipe -> searchIndex.onRecipeChanged(RecipeChangedEvent.created(recipe)));
+    }
+
+    @Benchmark
+    public List<UUID> indexInclude() {
+        return searchIndex.search(includeRequest);
+    }
+
+    @Benchmark
+    public List<UUID> indexIncludeExclude() {
+        return searchIndex.search(includeExcludeRequest);
+    }
+
+    @Benchmark
+    public List<UUID> indexVegetarianServings() {
+        return searchIndex.search(scalarRequest);
+    }
+
+    @Benchmark
+    public List<PantryCoverage> indexPantryTop20() {
+        return searchIndex.topByCoverage(pantry, 2, null, null, 20);
+    }
+
+    @Benchmark
+    public List<PantryCoverage> scanPantryTop20() {
+        Set<String> pantryNames = new HashSet<>(pantry);
+        List<PantryCoverage> coverages = new ArrayList<>();
+        for (RecipeDto recipe : catalogue) {
+            long matched = recipe.getIngredients().stream().filter(pantryNames::contains).count();
+            if (matched > 0 && recipe.getIngredients().size() - matched <= 2) {
+                coverages.add(new PantryCoverage(recipe.getId(), recipe.getIngredients().size(), matched));
+            }
+        }
+        // Full sort of every candidate, as opposed to the index's bounded heap
+        coverages.sort(Comparator.comparingDouble(PantryCoverage::getCoverage).reversed()
+                .thenComparingLong(PantryCoverage::getMissingCount));
+        return coverages.subList(0, Math.min(20, coverages.size()));
+    }
+
+    @Benchmark
+    public List<UUID> scanInclude() {
+        return scan(includeRequest);
+    }
+
+    @Benchmark
+    public List<UUID> scanIncludeExclude() {
+        return scan(includeExcludeRequest);
+    }
+
+    @Benchmark
+    public List<UUID> scanVegetarianServings() {
+        return scan(scalarRequest);
+    }
+
+    /**
+     * In-memory filtering as the service did it before the search moved into the database.
+     */
+    private List<UUID> scan(RecipeSearchRequest searchRequest) {
+        List<UUID> ids = new ArrayList<>(searchRequest.getSize());
+        for (RecipeDto recipe : catalogue) {
+            if (searchRequest.getVegetarian() != null && recipe.isVegetarian() != searchRequest.getVegetarian()) {
+                continue;
+            }
+            if (searchRequest.getServings() != null && recipe.getServings() != searchRequest.getServings()) {
+                continue;
+            }
+            Set<String> ingredients = new HashSet<>(recipe.getIngredients());
+            if (searchRequest.getIncludeIngredients() != null
+                    && !ingredients.containsAll(searchRequest.getIncludeIngredients())) {
+                continue;
+            }
+            if (searchRequest.getExcludeIngredients() != null
+                    && searchRequest.getExcludeIngredients().stream().anyMatch(ingredients::contains)) {
+                continue;
+            }
+            ids.add(recipe.getId());
+            if (ids.size() == searchRequest.getSize()) {
+                break;
+            }
+        }
+        return ids;
+    }
+}
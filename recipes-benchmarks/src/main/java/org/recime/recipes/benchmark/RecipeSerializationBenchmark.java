@@ -0,0 +1,51 @@
+package org.recime.recipes.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeSerializationBenchmark {
+
+    @Param({"1", "50", "500"})
+    private int pageSize;
+
+    // Configured like the application's mapper: java.time support, ISO dates
+    private final ObjectMapper objectMapper = JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private List<RecipeDto> page;
+    private byte[] requestJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        page = RecipeDataGenerator.catalogue(42, pageSize);
+        requestJson = objectMapper.writeValueAsBytes(RecipeDataGenerator.recipeRequest(new Random(7), 10));
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public RecipeRequest deserializeRequest() throws IOException {
+        return objectMapper.readValue(requestJson, RecipeRequest.class);
+    }
+}
@@ -0,0 +1,62 @@
+package org.recime.recipes.reactive;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeField;
+import org.recime.recipes.dto.RecipeSearchRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The read endpoints of {@code RecipeController} over WebFlux. Search and stream results are
+ * written as they arrive from the database, under the client's backpressure.
+ */
+@RestController
+@RequestMapping("/api/recipes")
+@RequiredArgsConstructor
+public class ReactiveRecipeController {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final ReactiveRecipeService recipeService;
+
+    @GetMapping
+    public Mono<ResponseEntity<List<RecipeDto>>> getAllRecipes(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) List<String> fields) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return recipeService.getRecipes(cursor, pageSize, RecipeField.parse(fields)).map(page -> {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getItems());
+        });
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<RecipeDto> streamAllRecipes(@RequestParam(required = false) List<String> fields) {
+        return recipeService.streamAllRecipes(RecipeField.parse(fields));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<RecipeDto> getRecipeById(@PathVariable UUID id) {
+        return recipeService.getRecipeById(id);
+    }
+
+    @PostMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<RecipeDto> searchRecipes(
+            @Valid @RequestBody RecipeSearchRequest searchRequest,
+            @RequestParam(required = false) List<String> fields) {
+        return recipeService.searchRecipes(searchRequest, RecipeField.parse(fields));
+    }
+}
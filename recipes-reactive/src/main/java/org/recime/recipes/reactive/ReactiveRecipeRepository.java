@@ -0,0 +1,165 @@
+package org.recime.recipes.reactive;
+
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.recime.recipes.dto.RecipeSearchRequest;
+import org.recime.recipes.dto.RecipeSummary;
+import org.recime.recipes.dto.TextSearchMode;
+import org.recime.recipes.model.Ingredient;
+import org.recime.recipes.service.RecipeCursor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Reads the tables of the servlet application through R2DBC. Queries mirror the summary, text and
+ * ingredient projections of {@code RecipeRepository}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveRecipeRepository {
+
+    private static final String SUMMARY_COLUMNS = "r.id, r.title, r.vegetarian, r.servings, r.created_at, r.updated_at";
+    private static final String KEYSET_ORDER = " ORDER BY r.created_at, r.id";
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<RecipeSummary> findSummaryPage(RecipeCursor after, int limit) {
+        String where = after == null ? "" : " WHERE (r.created_at, r.id) > (:createdAt, :id)";
+        DatabaseClient.GenericExecuteSpec spec = databaseClient
+                .sql("SELECT " + SUMMARY_COLUMNS + " FROM recipes r" + where + KEYSET_ORDER + " LIMIT :limit")
+                .bind("limit", limit);
+        if (after != null) {
+            spec = spec.bind("createdAt", after.getCreatedAt()).bind("id", after.getId());
+        }
+        return spec.map(ReactiveRecipeRepository::toSummary).all();
+    }
+
+    public Mono<RecipeSummary> findSummaryById(UUID id) {
+        return databaseClient.sql("SELECT " + SUMMARY_COLUMNS + " FROM recipes r WHERE r.id = :id")
+                .bind("id", id)
+                .map(ReactiveRecipeRepository::toSummary)
+                .one();
+    }
+
+    public Flux<TextRow> findTextByIdIn(Collection<UUID> ids) {
+        return databaseClient.sql("SELECT r.id, r.description, r.instructions FROM recipes r WHERE r.id IN (:ids)")
+                .bind("ids", ids)
+                .map(row -> new TextRow(
+                        row.get("id", UUID.class),
+                        row.get("description", String.class),
+                        row.get("instructions", String.class)))
+                .all();
+    }
+
+    public Flux<IngredientRow> findIngredientsByIdIn(Collection<UUID> ids) {
+        return databaseClient.sql("SELECT ri.recipe_id, i.name FROM recipe_ingredients ri "
+                        + "JOIN ingredients i ON i.id = ri.ingredient_id WHERE ri.recipe_id IN (:ids) ORDER BY i.name")
+                .bind("ids", ids)
+                .map(row -> new IngredientRow(row.get("recipe_id", UUID.class), row.get("name", String.class)))
+                .all();
+    }
+
+    /**
+     * The same filters as {@code RecipeSpecifications#matching}, as one SQL statement. Ingredients are
+     * matched by normalized name, so an unknown include ingredient matches nothing.
+     */
+    public Flux<RecipeSummary> search(RecipeSearchRequest searchRequest) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        String order = KEYSET_ORDER;
+
+        if (searchRequest.getVegetarian() != null) {
+            conditions.add("r.vegetarian = :vegetarian");
+            parameters.put("vegetarian", searchRequest.getVegetarian());
+        }
+        if (searchRequest.getServings() != null) {
+            conditions.add("r.servings = :servings");
+            parameters.put("servings", searchRequest.getServings());
+        }
+        if (searchRequest.getInstructionText() != null && !searchRequest.getInstructionText().isBlank()) {
+            if (searchRequest.getTextMode() == TextSearchMode.FULL_TEXT) {
+                conditions.add("r.search_vector @@ websearch_to_tsquery('english', :terms)");
+                order = " ORDER BY ts_rank(r.search_vector, websearch_to_tsquery('english', :terms)) DESC, r.id";
+                parameters.put("terms", searchRequest.getInstructionText().trim());
+            } else {
+                conditions.add("LOWER(r.instructions) LIKE :instructionPattern");
+                parameters.put("instructionPattern", "%" + searchRequest.getInstructionText().trim().toLowerCase() + "%");
+            }
+        }
+        Set<String> include = normalizedNames(searchRequest.getIncludeIngredients());
+        if (!include.isEmpty()) {
+            conditions.add("r.id IN (SELECT ri.recipe_id FROM recipe_ingredients ri JOIN ingredients i ON i.id = ri.ingredient_id "
+                    + "WHERE i.name IN (:include) GROUP BY ri.recipe_id HAVING COUNT(DISTINCT i.id) = :includeCount)");
+            parameters.put("include", include);
+            parameters.put("includeCount", (long) include.size());
+        }
+        Set<String> exclude = normalizedNames(searchRequest.getExcludeIngredients());
+        if (!exclude.isEmpty()) {
+            conditions.add("NOT EXISTS (SELECT 1 FROM recipe_ingredients ri JOIN ingredients i ON i.id = ri.ingredient_id "
+                    + "WHERE ri.recipe_id = r.id AND i.name IN (:exclude))");
+            parameters.put("exclude", exclude);
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(SUMMARY_COLUMNS).append(" FROM recipes r");
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(order);
+        if (searchRequest.getSize() != null) {
+            int page = searchRequest.getPage() == null ? 0 : searchRequest.getPage();
+            sql.append(" LIMIT :limit OFFSET :offset");
+            parameters.put("limit", searchRequest.getSize());
+            parameters.put("offset", (long) page * searchRequest.getSize());
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            spec = spec.bind(parameter.getKey(), parameter.getValue());
+        }
+        return spec.map(ReactiveRecipeRepository::toSummary).all();
+    }
+
+    private static Set<String> normalizedNames(Collection<String> names) {
+        Set<String> normalized = new LinkedHashSet<>();
+        if (names != null) {
+            names.forEach(name -> normalized.add(Ingredient.normalizeName(name)));
+        }
+        return normalized;
+    }
+
+    private static RecipeSummary toSummary(Readable row) {
+        return new RecipeSummary(
+                row.get("id", UUID.class),
+                row.get("title", String.class),
+                Boolean.TRUE.equals(row.get("vegetarian", Boolean.class)),
+                row.get("servings", Integer.class),
+                row.get("created_at", LocalDateTime.class),
+                row.get("updated_at", LocalDateTime.class));
+    }
+
+    @Value
+    public static class TextRow {
+        UUID id;
+        String description;
+        String instructions;
+    }
+
+    @Value
+    public static class IngredientRow {
+        UUID recipeId;
+        String ingredient;
+    }
+}
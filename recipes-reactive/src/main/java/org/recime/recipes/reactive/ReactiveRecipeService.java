@@ -0,0 +1,104 @@
+package org.recime.recipes.reactive;
+
+import lombok.RequiredArgsConstructor;
+import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeField;
+import org.recime.recipes.dto.RecipePage;
+import org.recime.recipes.dto.RecipeSearchRequest;
+import org.recime.recipes.dto.RecipeSummary;
+import org.recime.recipes.exception.RecipeNotFoundException;
+import org.recime.recipes.service.RecipeConverter;
+import org.recime.recipes.service.RecipeCursor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class ReactiveRecipeService {
+
+    private static final int STREAM_PAGE_SIZE = 500;
+    private static final int HYDRATION_BATCH_SIZE = 500;
+
+    private final ReactiveRecipeRepository recipeRepository;
+    private final RecipeConverter recipeConverter;
+
+    public Mono<RecipePage> getRecipes(String cursor, int size, Set<RecipeField> fields) {
+        RecipeCursor after = cursor == null || cursor.isBlank() ? null : RecipeCursor.decode(cursor);
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        return recipeRepository.findSummaryPage(after, size + 1).collectList().flatMap(summaries -> {
+            String nextCursor = null;
+            if (summaries.size() > size) {
+                summaries = summaries.subList(0, size);
+                nextCursor = RecipeCursor.of(summaries.get(size - 1)).encode();
+            }
+            String next = nextCursor;
+            return hydrate(summaries, fields).collectList().map(items -> new RecipePage(items, next));
+        });
+    }
+
+    /**
+     * Walks the catalogue in keyset pages; the next page is only queried once the subscriber has
+     * asked for the rows of the current one.
+     */
+    public Flux<RecipeDto> streamAllRecipes(Set<RecipeField> fields) {
+        return recipeRepository.findSummaryPage(null, STREAM_PAGE_SIZE).collectList()
+                .expand(page -> page.size() < STREAM_PAGE_SIZE
+                        ? Mono.empty()
+                        : recipeRepository.findSummaryPage(RecipeCursor.of(page.get(page.size() - 1)), STREAM_PAGE_SIZE).collectList())
+                .concatMap(page -> hydrate(page, fields), 1);
+    }
+
+    public Mono<RecipeDto> getRecipeById(UUID id) {
+        return recipeRepository.findSummaryById(id)
+                .switchIfEmpty(Mono.error(() -> new RecipeNotFoundException(id)))
+                .flatMap(summary -> hydrate(List.of(summary), EnumSet.allOf(RecipeField.class)).next());
+    }
+
+    public Flux<RecipeDto> searchRecipes(RecipeSearchRequest searchRequest, Set<RecipeField> fields) {
+        return recipeRepository.search(searchRequest)
+                .buffer(HYDRATION_BATCH_SIZE)
+                .concatMap(batch -> hydrate(batch, fields), 1);
+    }
+
+    /**
+     * Maps summaries to DTOs and loads the requested heavy fields with one query per kind, run concurrently.
+     */
+    private Flux<RecipeDto> hydrate(List<RecipeSummary> summaries, Set<RecipeField> fields) {
+        Map<UUID, RecipeDto> recipesById = new LinkedHashMap<>();
+        summaries.forEach(summary -> recipesById.put(summary.getId(), recipeConverter.mapToDto(summary)));
+        if (recipesById.isEmpty() || fields.isEmpty()) {
+            return Flux.fromIterable(recipesById.values());
+        }
+
+        List<UUID> ids = new ArrayList<>(recipesById.keySet());
+        Mono<Void> text = Mono.empty();
+        if (fields.contains(RecipeField.DESCRIPTION) || fields.contains(RecipeField.INSTRUCTIONS)) {
+            text = recipeRepository.findTextByIdIn(ids).doOnNext(row -> {
+                RecipeDto recipe = recipesById.get(row.getId());
+                if (fields.contains(RecipeField.DESCRIPTION)) {
+                    recipe.setDescription(row.getDescription());
+                }
+                if (fields.contains(RecipeField.INSTRUCTIONS)) {
+                    recipe.setInstructions(row.getInstructions());
+                }
+            }).then();
+        }
+        Mono<Void> ingredients = Mono.empty();
+        if (fields.contains(RecipeField.INGREDIENTS)) {
+            recipesById.values().forEach(recipe -> recipe.setIngredients(new ArrayList<>()));
+            ingredients = recipeRepository.findIngredientsByIdIn(ids)
+                    .doOnNext(row -> recipesById.get(row.getRecipeId()).getIngredients().add(row.getIngredient()))
+                    .then();
+        }
+        return Mono.when(text, ingredients).thenMany(Flux.fromIterable(recipesById.values()));
+    }
+}
@@ -0,0 +1,16 @@
+package org.recime.recipes.reactive;
+
+import org.recime.recipes.service.RecipeConverter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+
+@SpringBootApplication
+@Import(RecipeConverter.class)
+public class ReactiveRecipesApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveRecipesApplication.class, args);
+    }
+
+}
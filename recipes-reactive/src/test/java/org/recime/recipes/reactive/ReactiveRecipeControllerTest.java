@@ -0,0 +1,145 @@
+package org.recime.recipes.reactive;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.recime.recipes.dto.RecipeDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-recipes;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:reactive-schema.sql"
+})
+@AutoConfigureWebTestClient
+public class ReactiveRecipeControllerTest {
+
+    private static final int RECIPE_COUNT = 12;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private final List<UUID> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ids.clear();
+        Mono<Void> reset = databaseClient.sql("DELETE FROM recipe_ingredients").then()
+                .then(databaseClient.sql("DELETE FROM recipes").then())
+                .then(databaseClient.sql("DELETE FROM ingredients").then())
+                .then(databaseClient.sql("INSERT INTO ingredients (id, name) VALUES (1, 'salt'), (2, 'basil')").then());
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 12, 0);
+        Flux<Void> recipes = Flux.range(0, RECIPE_COUNT).concatMap(i -> {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            Mono<Void> recipe = databaseClient.sql("INSERT INTO recipes (id, title, description, instructions, vegetarian, servings, created_at, updated_at) "
+                            + "VALUES (:id, :title, :description, :instructions, :vegetarian, 4, :createdAt, :createdAt)")
+                    .bind("id", id)
+                    .bind("title", "Recipe " + i)
+                    .bind("description", "Description " + i)
+                    .bind("instructions", "Cook for " + i + " minutes")
+                    .bind("vegetarian", i % 2 == 0)
+                    .bind("createdAt", start.plusMinutes(i))
+                    .then();
+            Mono<Void> salt = databaseClient.sql("INSERT INTO recipe_ingredients (recipe_id, ingredient_id) VALUES (:id, 1)")
+                    .bind("id", id).then();
+            Mono<Void> basil = i % 3 == 0
+                    ? databaseClient.sql("INSERT INTO recipe_ingredients (recipe_id, ingredient_id) VALUES (:id, 2)").bind("id", id).then()
+                    : Mono.empty();
+            return recipe.then(salt).then(basil);
+        });
+        StepVerifier.create(reset.thenMany(recipes)).verifyComplete();
+    }
+
+    @Test
+    void getAllRecipes_ShouldPageByCursor() {
+        String nextCursor = webTestClient.get().uri("/api/recipes?size=5")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(ReactiveRecipeController.NEXT_CURSOR_HEADER)
+                .expectBodyList(RecipeDto.class).hasSize(5)
+                .returnResult().getResponseHeaders().getFirst(ReactiveRecipeController.NEXT_CURSOR_HEADER);
+
+        // Asserted on the raw JSON: deserializing into RecipeDto would fill in the omitted ingredients
+        webTestClient.get().uri("/api/recipes?size=5&cursor={cursor}", nextCursor)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].title").isEqualTo("Recipe 5")
+                .jsonPath("$..ingredients").doesNotExist();
+    }
+
+    @Test
+    void getRecipeById_ShouldReturnAllFields() {
+        RecipeDto recipe = webTestClient.get().uri("/api/recipes/{id}", ids.get(0))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(RecipeDto.class).returnResult().getResponseBody();
+
+        assertEquals("Description 0", recipe.getDescription());
+        assertEquals(List.of("basil", "salt"), recipe.getIngredients());
+    }
+
+    @Test
+    void getRecipeById_WithUnknownId_ShouldReturnNotFound() {
+        webTestClient.get().uri("/api/recipes/{id}", UUID.randomUUID())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void searchRecipes_ShouldFilterInDatabase() {
+        List<RecipeDto> results = webTestClient.post().uri("/api/recipes/search?fields=ingredients")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"vegetarian\": true, \"includeIngredients\": [\" Basil \"], \"excludeIngredients\": [\"Pepper\"]}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(RecipeDto.class).returnResult().getResponseBody();
+
+        // Vegetarian recipes are the even ones, basil is in every third
+        assertEquals(List.of("Recipe 0", "Recipe 6"), results.stream().map(RecipeDto::getTitle).toList());
+        results.forEach(recipe -> assertTrue(recipe.getIngredients().contains("basil")));
+    }
+
+    @Test
+    void streamAllRecipes_ShouldHonourBackpressure() {
+        Flux<RecipeDto> stream = webTestClient.get().uri("/api/recipes/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(RecipeDto.class)
+                .getResponseBody();
+
+        StepVerifier.create(stream, 2)
+                .expectNextCount(2)
+                .thenRequest(RECIPE_COUNT)
+                .expectNextCount(RECIPE_COUNT - 2)
+                .verifyComplete();
+    }
+
+    @Test
+    void getAllRecipes_WithUnknownField_ShouldReturnBadRequest() {
+        webTestClient.get().uri("/api/recipes?fields=calories")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+}
@@ -0,0 +1,21 @@
+CREATE TABLE recipes (
+    id UUID PRIMARY KEY,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    instructions TEXT NOT NULL,
+    vegetarian BOOLEAN NOT NULL,
+    servings INTEGER NOT NULL,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+CREATE TABLE ingredients (
+    id INTEGER AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE recipe_ingredients (
+    recipe_id UUID NOT NULL REFERENCES recipes (id),
+    ingredient_id INTEGER NOT NULL REFERENCES ingredients (id),
+    PRIMARY KEY (recipe_id, ingredient_id)
+);
@@ -0,0 +1,21 @@
+package org.recime.recipes.cache;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+public class LocalRecipeCacheInvalidationChannel implements RecipeCacheInvalidationChannel {
+
+    private final List<Consumer<UUID>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(UUID recipeId) {
+        listeners.forEach(listener -> listener.accept(recipeId));
+    }
+
+    @Override
+    public void subscribe(Consumer<UUID> listener) {
+        listeners.add(listener);
+    }
+}
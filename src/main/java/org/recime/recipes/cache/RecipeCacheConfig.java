@@ -0,0 +1,23 @@
+package org.recime.recipes.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class RecipeCacheConfig {
+
+    public static final String RECIPES_CACHE = "recipes";
+
+    /**
+     * Multi-node deployments set {@code recipes.cache.invalidation} to anything else and declare their
+     * own {@link RecipeCacheInvalidationChannel}.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "recipes.cache.invalidation", havingValue = "local", matchIfMissing = true)
+    public RecipeCacheInvalidationChannel recipeCacheInvalidationChannel() {
+        return new LocalRecipeCacheInvalidationChannel();
+    }
+}
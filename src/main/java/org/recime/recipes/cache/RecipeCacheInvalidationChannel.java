@@ -0,0 +1,16 @@
+package org.recime.recipes.cache;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Fans recipe invalidations out to every node holding a recipe cache. The default
+ * {@link LocalRecipeCacheInvalidationChannel} only reaches the current JVM; multi-node deployments
+ * set {@code recipes.cache.invalidation} to another value and declare a bean backed by their message broker.
+ */
+public interface RecipeCacheInvalidationChannel {
+
+    void publish(UUID recipeId);
+
+    void subscribe(Consumer<UUID> listener);
+}
@@ -0,0 +1,34 @@
+package org.recime.recipes.cache;
+
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Objects;
+
+/**
+ * Publishes every committed change on the invalidation channel, which evicts the recipe from the
+ * recipe cache and retires cached search results. Publishing after commit means a read that starts
+ * after the eviction sees the committed state. It does not stop a read that loaded the recipe before
+ * the commit from caching it after the eviction; that entry stays until it expires
+ * ({@code spring.cache.caffeine.spec}). Search results are not exposed to this, as their keys carry
+ * the generation taken before the query.
+ */
+@Component
+public class RecipeCacheInvalidator {
+
+    private final RecipeCacheInvalidationChannel channel;
+
+    public RecipeCacheInvalidator(CacheManager cacheManager, RecipeCacheInvalidationChannel channel) {
+        this.channel = channel;
+        Cache recipes = Objects.requireNonNull(cacheManager.getCache(RecipeCacheConfig.RECIPES_CACHE));
+        channel.subscribe(recipes::evict);
+    }
+
+    @TransactionalEventListener
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        channel.publish(event.getRecipeId());
+    }
+}
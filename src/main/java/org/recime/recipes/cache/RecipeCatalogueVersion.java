@@ -0,0 +1,40 @@
+package org.recime.recipes.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.recime.recipes.repository.RecipeChangeRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * A version of the whole catalogue for conditional list requests, read from the {@code recipe_changes}
+ * outbox that every write goes through, whichever node makes it. The ETag is the last published feed
+ * position and the number of changes still pending: a commit adds a pending change and publishing it
+ * moves the position, so the pair changes with every write and never comes back. Every node therefore
+ * issues and accepts the same ETags.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecipeCatalogueVersion {
+
+    private final RecipeChangeRepository changeRepository;
+
+    /**
+     * Read before the catalogue is queried, so a change committed meanwhile yields a newer ETag on
+     * the next request rather than a stale 304. Costs one statement.
+     */
+    public Snapshot current() {
+        RecipeChangeRepository.OutboxState state = changeRepository.findOutboxState();
+        LocalDateTime modified = state.getModified();
+        Instant lastModified = modified == null
+                ? Instant.EPOCH
+                : modified.atZone(ZoneId.systemDefault()).toInstant().truncatedTo(ChronoUnit.SECONDS);
+        return new Snapshot("\"" + state.getPublished() + "-" + state.getPending() + "\"", lastModified);
+    }
+
+    public record Snapshot(String etag, Instant lastModified) {
+    }
+}
@@ -0,0 +1,96 @@
+package org.recime.recipes.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.recime.recipes.dto.RecipeFacets;
+import org.recime.recipes.dto.RecipeSearchRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the ordered ids matching a search, and the facet counts of its filters. Any recipe change bumps a generation counter that is
+ * part of every key, so entries written before the change are never read again and simply age out.
+ * <p>
+ * Id lists are bounded by the total number of ids they hold rather than by entry count, as an unpaged
+ * search can match most of the catalogue. A result too large for the whole budget is not cached.
+ */
+@Component
+public class RecipeSearchCache {
+
+    private final Cache<RecipeSearchKey, List<UUID>> cache;
+    private final Cache<RecipeSearchKey, RecipeFacets> facets;
+    private final AtomicLong generation = new AtomicLong();
+    private final long maximumIds;
+
+    public RecipeSearchCache(
+            MeterRegistry meterRegistry,
+            RecipeCacheInvalidationChannel channel,
+            @Value("${recipes.search-cache.maximum-size:1000}") long maximumSize,
+            @Value("${recipes.search-cache.maximum-ids:250000}") long maximumIds,
+            @Value("${recipes.search-cache.expire-after-write:5m}") Duration expireAfterWrite) {
+        this.maximumIds = maximumIds;
+        this.cache = Caffeine.newBuilder()
+                // An empty result still takes an entry
+                .<RecipeSearchKey, List<UUID>>weigher((key, ids) -> ids.size() + 1)
+                .maximumWeight(maximumIds)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.facets = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "recipeSearch");
+        CaffeineCacheMetrics.monitor(meterRegistry, facets, "recipeSearchFacets");
+        Gauge.builder("recipes.search.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of searches answered from the search result cache")
+                .register(meterRegistry);
+        channel.subscribe(recipeId -> generation.incrementAndGet());
+    }
+
+    /**
+     * Captures the current generation; take the key before querying so a change committed while the
+     * query runs files the result under the old generation.
+     */
+    public RecipeSearchKey keyFor(RecipeSearchRequest searchRequest) {
+        return RecipeSearchKey.of(searchRequest, generation.get());
+    }
+
+    /**
+     * Like {@link #keyFor}, but shared by every page of the same filters.
+     */
+    public RecipeSearchKey facetKeyFor(RecipeSearchRequest searchRequest) {
+        return RecipeSearchKey.ofFilters(searchRequest, generation.get());
+    }
+
+    public List<UUID> getIfPresent(RecipeSearchKey key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(RecipeSearchKey key, List<UUID> ids) {
+        if (ids.size() < maximumIds) {
+            cache.put(key, List.copyOf(ids));
+        }
+    }
+
+    public RecipeFacets getFacetsIfPresent(RecipeSearchKey key) {
+        return facets.getIfPresent(key);
+    }
+
+    public void putFacets(RecipeSearchKey key, RecipeFacets recipeFacets) {
+        facets.put(key, recipeFacets);
+    }
+
+    public double hitRatio() {
+        return cache.stats().hitRate();
+    }
+}
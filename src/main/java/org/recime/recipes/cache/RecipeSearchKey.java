@@ -0,0 +1,65 @@
+package org.recime.recipes.cache;
+
+import lombok.Value;
+import org.recime.recipes.dto.RecipeSearchRequest;
+import org.recime.recipes.dto.TextSearchMode;
+import org.recime.recipes.model.Ingredient;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * Canonical form of a {@link RecipeSearchRequest}: ingredient names normalized, sorted and de-duplicated,
+ * instruction text trimmed and lower-cased (both text modes ignore case) and defaults made explicit,
+ * so equivalent requests share one cache entry.
+ */
+@Value
+public class RecipeSearchKey {
+
+    long generation;
+    Boolean vegetarian;
+    Integer servings;
+    List<String> includeIngredients;
+    List<String> excludeIngredients;
+    String instructionText;
+    TextSearchMode textMode;
+    int page;
+    Integer size;
+
+    public static RecipeSearchKey of(RecipeSearchRequest searchRequest, long generation) {
+        String text = searchRequest.getInstructionText();
+        String instructionText = text == null || text.isBlank() ? null : text.trim().toLowerCase(Locale.ROOT);
+        return new RecipeSearchKey(
+                generation,
+                searchRequest.getVegetarian(),
+                searchRequest.getServings(),
+                canonical(searchRequest.getIncludeIngredients()),
+                canonical(searchRequest.getExcludeIngredients()),
+                instructionText,
+                instructionText == null || searchRequest.getTextMode() == null
+                        ? TextSearchMode.SUBSTRING
+                        : searchRequest.getTextMode(),
+                searchRequest.getSize() == null || searchRequest.getPage() == null ? 0 : searchRequest.getPage(),
+                searchRequest.getSize());
+    }
+
+    /**
+     * Like {@link #of}, but ignoring page and size, for results that cover every match such as facet counts.
+     */
+    public static RecipeSearchKey ofFilters(RecipeSearchRequest searchRequest, long generation) {
+        RecipeSearchKey key = of(searchRequest, generation);
+        return new RecipeSearchKey(key.generation, key.vegetarian, key.servings, key.includeIngredients,
+                key.excludeIngredients, key.instructionText, key.textMode, 0, null);
+    }
+
+    private static List<String> canonical(Collection<String> ingredients) {
+        if (ingredients == null) {
+            return List.of();
+        }
+        TreeSet<String> names = new TreeSet<>();
+        ingredients.forEach(ingredient -> names.add(Ingredient.normalizeName(ingredient)));
+        return List.copyOf(names);
+    }
+}
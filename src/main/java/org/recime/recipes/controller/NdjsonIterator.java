@@ -0,0 +1,43 @@
+package org.recime.recipes.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.recime.recipes.exception.MalformedBulkItemException;
+
+import java.io.BufferedReader;
+import java.util.Iterator;
+
+/**
+ * Reads one JSON value per non-blank line. A line that does not hold a value of the reader's type
+ * makes {@link #next()} throw {@link MalformedBulkItemException}; iteration carries on with the next line.
+ */
+class NdjsonIterator<T> implements Iterator<T> {
+
+    private final Iterator<String> lines;
+    private final ObjectReader reader;
+
+    NdjsonIterator(BufferedReader body, ObjectReader reader) {
+        this.lines = body.lines().filter(line -> !line.isBlank()).iterator();
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return lines.hasNext();
+    }
+
+    @Override
+    public T next() {
+        String line = lines.next();
+        T value;
+        try {
+            value = reader.readValue(line);
+        } catch (JsonProcessingException ex) {
+            throw new MalformedBulkItemException(ex.getOriginalMessage(), ex);
+        }
+        if (value == null) {
+            throw new MalformedBulkItemException("Expected a JSON object, got null", null);
+        }
+        return value;
+    }
+}
@@ -1,16 +1,45 @@
 package org.recime.recipes.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.recime.recipes.cache.RecipeCatalogueVersion;
+import org.recime.recipes.dto.BulkDeleteResult;
+import org.recime.recipes.dto.BulkItemResult;
+import org.recime.recipes.dto.PantryMatch;
+import org.recime.recipes.dto.PantrySearchRequest;
+import org.recime.recipes.dto.RecipeChangePage;
 import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeField;
+import org.recime.recipes.dto.RecipePage;
+import org.recime.recipes.dto.RecipePatch;
 import org.recime.recipes.dto.RecipeRequest;
 import org.recime.recipes.dto.RecipeSearchRequest;
+import org.recime.recipes.dto.RecipeSearchResult;
+import org.recime.recipes.dto.RecipeUpdateItem;
+import org.recime.recipes.dto.RecipeVersion;
+import org.recime.recipes.outbox.RecipeChangeFeed;
+import org.recime.recipes.service.RecipeBulkService;
 import org.recime.recipes.service.RecipeService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
@@ -18,16 +47,92 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class RecipeController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_CHANGES_LIMIT = 1000;
+    private static final int MAX_CHANGES_WAIT_SECONDS = 60;
+
     private final RecipeService recipeService;
+    private final RecipeBulkService recipeBulkService;
+    private final RecipeCatalogueVersion catalogueVersion;
+    private final RecipeChangeFeed recipeChangeFeed;
+    private final ObjectMapper objectMapper;
 
+    /**
+     * Lists return the light fields only; add {@code fields=description,instructions,ingredients}
+     * (any subset) to include the heavy ones. Carries the catalogue version as its ETag, so polling
+     * clients get a 304 without a query while nothing has changed.
+     */
     @GetMapping
-    public ResponseEntity<List<RecipeDto>> getAllRecipes() {
-        return ResponseEntity.ok(recipeService.getAllRecipes());
+    public ResponseEntity<List<RecipeDto>> getAllRecipes(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) List<String> fields,
+            WebRequest request) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Set<RecipeField> recipeFields = RecipeField.parse(fields);
+        RecipeCatalogueVersion.Snapshot version = catalogueVersion.current();
+        String etag = version.etag();
+        long lastModified = version.lastModified().toEpochMilli();
+        if (request.checkNotModified(etag, lastModified)) {
+            return null;
+        }
+        RecipePage page = recipeService.getRecipes(cursor, pageSize, recipeFields);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag).lastModified(lastModified);
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllRecipes(@RequestParam(required = false) List<String> fields) {
+        Set<RecipeField> recipeFields = RecipeField.parse(fields);
+        StreamingResponseBody body = outputStream -> recipeService.streamAllRecipes(recipeFields, recipe -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(recipe));
+                outputStream.write('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Changes published after position {@code since}, oldest first, for consumers that follow the catalogue
+     * instead of re-reading it. When there are none the request is held for up to {@code wait} seconds
+     * and answered as soon as one is published. Returns 410 when {@code since} is older than the retention.
+     */
+    @GetMapping("/changes")
+    public DeferredResult<RecipeChangePage> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "25") int wait) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_CHANGES_LIMIT));
+        Duration timeout = Duration.ofSeconds(Math.max(0, Math.min(wait, MAX_CHANGES_WAIT_SECONDS)));
+        return recipeChangeFeed.awaitChangesSince(Math.max(0, since), pageSize, timeout);
     }
 
+    /**
+     * Checks {@code If-None-Match} and {@code If-Modified-Since} against the stored version before the
+     * recipe is loaded.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<RecipeDto> getRecipeById(@PathVariable UUID id) {
-        return ResponseEntity.ok(recipeService.getRecipeById(id));
+    public ResponseEntity<RecipeDto> getRecipeById(@PathVariable UUID id, WebRequest request) {
+        RecipeVersion version = recipeService.getRecipeVersion(id);
+        if (request.checkNotModified(RecipeETags.of(version.getVersion()), RecipeETags.lastModified(version.getUpdatedAt()))) {
+            return null;
+        }
+        RecipeDto recipe = recipeService.getRecipeById(id);
+        return ResponseEntity.ok()
+                .eTag(RecipeETags.of(recipe.getVersion()))
+                .lastModified(RecipeETags.lastModified(recipe.getUpdatedAt()))
+                .body(recipe);
     }
 
     @PostMapping
@@ -36,11 +141,72 @@ public class RecipeController {
         return new ResponseEntity<>(createdRecipe, HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BulkItemResult>> createRecipes(@RequestBody List<RecipeRequest> recipeRequests) {
+        return ResponseEntity.ok(recipeBulkService.createRecipes(recipeRequests.iterator()));
+    }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<BulkItemResult>> createRecipesFromStream(InputStream body) throws IOException {
+        // Read one line at a time so the import never holds the whole body in memory, and a malformed
+        // line fails only its own item
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            return ResponseEntity.ok(recipeBulkService.createRecipes(
+                    new NdjsonIterator<>(lines, objectMapper.readerFor(RecipeRequest.class))));
+        }
+    }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<List<BulkItemResult>> updateRecipes(@RequestBody List<RecipeUpdateItem> items) {
+        return ResponseEntity.ok(recipeBulkService.updateRecipes(items.iterator()));
+    }
+
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<List<BulkItemResult>> deleteRecipes(@RequestBody List<UUID> ids) {
+        return ResponseEntity.ok(recipeBulkService.deleteRecipes(ids.iterator()));
+    }
+
+    /**
+     * Deletes every recipe matching the search criteria, whatever the page and size. A request without
+     * any criteria is rejected rather than emptying the catalogue.
+     */
+    @PostMapping("/bulk/delete-matching")
+    public ResponseEntity<BulkDeleteResult> deleteMatchingRecipes(@Valid @RequestBody RecipeSearchRequest searchRequest) {
+        return ResponseEntity.ok(new BulkDeleteResult(recipeBulkService.deleteMatching(searchRequest)));
+    }
+
+    /**
+     * With {@code If-Match: "<version>"} the update only applies if the recipe is still at that version
+     * and answers 412 otherwise; without it, concurrent updates are still caught by optimistic locking.
+     */
     @PutMapping("/{id}")
     public ResponseEntity<RecipeDto> updateRecipe(
             @PathVariable UUID id,
-            @Valid @RequestBody RecipeRequest recipeRequest) {
-        return ResponseEntity.ok(recipeService.updateRecipe(id, recipeRequest));
+            @Valid @RequestBody RecipeRequest recipeRequest,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = RecipeETags.version(ifMatch, id);
+        RecipeDto updatedRecipe = expectedVersion == null
+                ? recipeService.updateRecipe(id, recipeRequest)
+                : recipeService.updateRecipe(id, recipeRequest, expectedVersion);
+        return ResponseEntity.ok()
+                .eTag(RecipeETags.of(updatedRecipe.getVersion()))
+                .body(updatedRecipe);
+    }
+
+    /**
+     * Applies a JSON Merge Patch: members present in the body replace the recipe's value and the others
+     * are left unchanged. {@code If-Match} is honoured as for {@code PUT}.
+     */
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<RecipeDto> patchRecipe(
+            @PathVariable UUID id,
+            @RequestBody ObjectNode patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        RecipeDto patchedRecipe = recipeService.patchRecipe(id, RecipePatch.of(patch, objectMapper),
+                RecipeETags.version(ifMatch, id));
+        return ResponseEntity.ok()
+                .eTag(RecipeETags.of(patchedRecipe.getVersion()))
+                .body(patchedRecipe);
     }
 
     @DeleteMapping("/{id}")
@@ -50,7 +216,30 @@ public class RecipeController {
     }
 
     @PostMapping("/search")
-    public ResponseEntity<List<RecipeDto>> searchRecipes(@RequestBody RecipeSearchRequest searchRequest) {
-        return ResponseEntity.ok(recipeService.searchRecipes(searchRequest));
+    public ResponseEntity<List<RecipeDto>> searchRecipes(
+            @Valid @RequestBody RecipeSearchRequest searchRequest,
+            @RequestParam(required = false) List<String> fields) {
+        return ResponseEntity.ok(recipeService.searchRecipes(searchRequest, RecipeField.parse(fields)));
+    }
+
+    /**
+     * The same search with {@code facets=true}: the matches come wrapped with their facet counts.
+     */
+    @PostMapping(value = "/search", params = "facets=true")
+    public ResponseEntity<RecipeSearchResult> searchRecipesWithFacets(
+            @Valid @RequestBody RecipeSearchRequest searchRequest,
+            @RequestParam(required = false) List<String> fields) {
+        return ResponseEntity.ok(recipeService.searchRecipesWithFacets(searchRequest, RecipeField.parse(fields)));
+    }
+
+    /**
+     * Recipes ranked by the fraction of their ingredients found in the pantry, each missing at most
+     * {@code maxMissing} ingredients.
+     */
+    @PostMapping("/search/pantry")
+    public ResponseEntity<List<PantryMatch>> searchByPantry(
+            @Valid @RequestBody PantrySearchRequest pantryRequest,
+            @RequestParam(required = false) List<String> fields) {
+        return ResponseEntity.ok(recipeService.searchByPantry(pantryRequest, RecipeField.parse(fields)));
     }
 }
\ No newline at end of file
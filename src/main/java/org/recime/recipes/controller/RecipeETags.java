@@ -0,0 +1,45 @@
+package org.recime.recipes.controller;
+
+import org.recime.recipes.exception.RecipeVersionMismatchException;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * Validators for conditional requests on a single recipe. The strong ETag is the recipe's
+ * {@code @Version}.
+ */
+final class RecipeETags {
+
+    private RecipeETags() {
+    }
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * The version named by an {@code If-Match} value, or {@code null} when the header is absent or
+     * {@code *} and the write is unconditional. Anything but a single strong ETag in this format
+     * cannot match, so it fails the precondition.
+     */
+    static Long version(String ifMatch, UUID id) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.length() > 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            try {
+                return Long.parseLong(etag.substring(1, etag.length() - 1));
+            } catch (NumberFormatException ex) {
+                // falls through to the mismatch below
+            }
+        }
+        throw new RecipeVersionMismatchException(id, etag);
+    }
+
+    static long lastModified(LocalDateTime updatedAt) {
+        return updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,58 @@
+package org.recime.recipes.datasource;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "recipes.db-limiter.enabled")
+public class DatabaseConcurrencyConfig {
+
+    @Bean
+    public static BeanPostProcessor concurrencyLimitingDataSourcePostProcessor(
+            @Value("${recipes.db-limiter.max-concurrency:20}") int maxConcurrency,
+            @Value("${recipes.db-limiter.max-wait:1s}") Duration maxWait) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitingDataSource)) {
+                    return new ConcurrencyLimitingDataSource(dataSource, maxConcurrency, maxWait);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder databaseConcurrencyLimiterMetrics(DataSource dataSource) {
+        return registry -> {
+            ConcurrencyLimitingDataSource limiter = unwrap(dataSource);
+            Gauge.builder("recipes.db.limiter.active", limiter, ConcurrencyLimitingDataSource::getActiveCount)
+                    .description("Connections currently held through the concurrency limiter")
+                    .register(registry);
+            Gauge.builder("recipes.db.limiter.waiting", limiter, ConcurrencyLimitingDataSource::getWaitingCount)
+                    .description("Threads waiting for a database permit")
+                    .register(registry);
+            FunctionCounter.builder("recipes.db.limiter.rejected", limiter, ConcurrencyLimitingDataSource::getRejectedCount)
+                    .description("Connection requests rejected after waiting for a permit")
+                    .register(registry);
+        };
+    }
+
+    private static ConcurrencyLimitingDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.unwrap(ConcurrencyLimitingDataSource.class);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Data source is not concurrency limited", e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package org.recime.recipes.dto;
+
+import lombok.Value;
+
+@Value
+public class BulkDeleteResult {
+    long deleted;
+}
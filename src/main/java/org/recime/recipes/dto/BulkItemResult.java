@@ -0,0 +1,30 @@
+package org.recime.recipes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkItemResult {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        DELETED,
+        INVALID,
+        NOT_FOUND,
+        FAILED
+    }
+
+    private int index;
+    private UUID id;
+    private Status status;
+    private Map<String, String> errors;
+}
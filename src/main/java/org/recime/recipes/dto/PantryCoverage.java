@@ -0,0 +1,23 @@
+package org.recime.recipes.dto;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * How many of a recipe's ingredients a pantry covers, as computed by the database or the search index.
+ */
+@Value
+public class PantryCoverage {
+    UUID recipeId;
+    long ingredientCount;
+    long matchedCount;
+
+    public long getMissingCount() {
+        return ingredientCount - matchedCount;
+    }
+
+    public double getCoverage() {
+        return ingredientCount == 0 ? 0 : (double) matchedCount / ingredientCount;
+    }
+}
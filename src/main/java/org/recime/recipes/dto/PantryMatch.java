@@ -0,0 +1,31 @@
+package org.recime.recipes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PantryMatch {
+    private RecipeDto recipe;
+    private long ingredientCount;
+    private long matchedCount;
+    private long missingCount;
+    /**
+     * Fraction of the recipe's ingredients found in the pantry, from 0 to 1.
+     */
+    private double coverage;
+
+    public static PantryMatch of(RecipeDto recipe, PantryCoverage coverage) {
+        return PantryMatch.builder()
+                .recipe(recipe)
+                .ingredientCount(coverage.getIngredientCount())
+                .matchedCount(coverage.getMatchedCount())
+                .missingCount(coverage.getMissingCount())
+                .coverage(coverage.getCoverage())
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package org.recime.recipes.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * "What can I cook": recipes ranked by how much of their ingredient list the pantry covers.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PantrySearchRequest {
+
+    public static final int DEFAULT_MAX_MISSING = 2;
+    public static final int DEFAULT_LIMIT = 20;
+
+    @NotEmpty(message = "The pantry must list at least one ingredient")
+    @Size(max = 500, message = "The pantry can list at most 500 ingredients")
+    @Builder.Default
+    private List<@NotBlank(message = "Ingredient names must not be blank") String> pantry = new ArrayList<>();
+
+    /**
+     * Most ingredients a recipe may need beyond the pantry; defaults to {@value #DEFAULT_MAX_MISSING}.
+     */
+    @Min(value = 0, message = "Max missing must not be negative")
+    @Max(value = 20, message = "Max missing must be at most 20")
+    private Integer maxMissing;
+
+    private Boolean vegetarian;
+    private Integer servings;
+
+    /**
+     * Number of recipes to return; defaults to {@value #DEFAULT_LIMIT}.
+     */
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 100, message = "Limit must be at most 100")
+    private Integer limit;
+}
@@ -0,0 +1,20 @@
+package org.recime.recipes.dto;
+
+import lombok.Value;
+import org.recime.recipes.event.RecipeChangedEvent;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A published recipe change. {@code version} is the recipe's version after the change and {@code null}
+ * for deletions; consumers fetch the recipe when they need more than the id.
+ */
+@Value
+public class RecipeChangeDto {
+    long position;
+    UUID recipeId;
+    RecipeChangedEvent.ChangeType type;
+    Long version;
+    LocalDateTime changedAt;
+}
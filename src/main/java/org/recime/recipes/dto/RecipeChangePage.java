@@ -0,0 +1,24 @@
+package org.recime.recipes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes after the requested position, oldest first. Pass {@code nextSince} as {@code since} to read
+ * on; {@code latest} is the last position published when the page was read.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecipeChangePage {
+    @Builder.Default
+    private List<RecipeChangeDto> items = new ArrayList<>();
+    private long nextSince;
+    private long latest;
+}
@@ -0,0 +1,20 @@
+package org.recime.recipes.dto;
+
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * The part of a recipe the facets count: its vegetarian flag, its servings and its ingredient names.
+ * Changes carry the state from before them, so catalogue counters can take the old contribution off.
+ */
+@Value
+public class RecipeFacetState {
+    boolean vegetarian;
+    int servings;
+    Set<String> ingredients;
+
+    public static RecipeFacetState of(RecipeDto recipe) {
+        return new RecipeFacetState(recipe.isVegetarian(), recipe.getServings(), Set.copyOf(recipe.getIngredients()));
+    }
+}
@@ -0,0 +1,64 @@
+package org.recime.recipes.dto;
+
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts over all recipes matching a search, whatever page was requested: per vegetarian flag, per
+ * servings bucket and for the most used ingredients.
+ */
+@Value
+public class RecipeFacets {
+
+    public static final int TOP_INGREDIENTS = 10;
+
+    /**
+     * Upper bounds of the servings buckets; larger values fall into a last, open-ended bucket.
+     */
+    private static final int[] SERVINGS_BUCKET_LIMITS = {2, 4, 6, 8};
+
+    long total;
+    long vegetarian;
+    long nonVegetarian;
+    /**
+     * Bucket label such as {@code "3-4"} or {@code "9+"} to count, in bucket order, empty buckets included.
+     */
+    Map<String, Long> servings;
+    /**
+     * Ingredient name to the number of matching recipes using it, most used first.
+     */
+    Map<String, Long> ingredients;
+
+    /**
+     * @param countsByServings recipe counts per servings value
+     * @param topIngredients   ingredient counts, most used first
+     */
+    public static RecipeFacets of(long total, long vegetarian, Map<Integer, Long> countsByServings,
+                                  Map<String, Long> topIngredients) {
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        int lower = 1;
+        for (int limit : SERVINGS_BUCKET_LIMITS) {
+            buckets.put(lower + "-" + limit, 0L);
+            lower = limit + 1;
+        }
+        buckets.put(lower + "+", 0L);
+        countsByServings.forEach((servings, count) -> buckets.merge(servingsBucket(servings), count, Long::sum));
+        return new RecipeFacets(total, vegetarian, total - vegetarian,
+                Collections.unmodifiableMap(buckets),
+                Collections.unmodifiableMap(new LinkedHashMap<>(topIngredients)));
+    }
+
+    public static String servingsBucket(int servings) {
+        int lower = 1;
+        for (int limit : SERVINGS_BUCKET_LIMITS) {
+            if (servings <= limit) {
+                return lower + "-" + limit;
+            }
+            lower = limit + 1;
+        }
+        return lower + "+";
+    }
+}
@@ -0,0 +1,36 @@
+package org.recime.recipes.dto;
+
+import org.recime.recipes.exception.UnknownFieldException;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Heavy recipe fields that list and search responses leave out unless they are requested with
+ * {@code fields=}.
+ */
+public enum RecipeField {
+    DESCRIPTION,
+    INSTRUCTIONS,
+    INGREDIENTS;
+
+    public static Set<RecipeField> parse(Collection<String> names) {
+        Set<RecipeField> fields = EnumSet.noneOf(RecipeField.class);
+        if (names == null) {
+            return fields;
+        }
+        for (String name : names) {
+            if (name.isBlank()) {
+                continue;
+            }
+            try {
+                fields.add(valueOf(name.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException ex) {
+                throw new UnknownFieldException(name);
+            }
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,19 @@
+package org.recime.recipes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecipePage {
+    @Builder.Default
+    private List<RecipeDto> items = new ArrayList<>();
+    private String nextCursor;
+}
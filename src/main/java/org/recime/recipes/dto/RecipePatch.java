@@ -0,0 +1,70 @@
+package org.recime.recipes.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.Value;
+import org.recime.recipes.exception.InvalidRecipePatchException;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A JSON Merge Patch (RFC 7396) of a recipe. Members present in the patch replace the recipe's value,
+ * absent members leave it unchanged, and {@code "description": null} removes the description.
+ */
+@Value
+public class RecipePatch {
+
+    public static final String TITLE = "title";
+    public static final String DESCRIPTION = "description";
+    public static final String INGREDIENTS = "ingredients";
+    public static final String INSTRUCTIONS = "instructions";
+    public static final String VEGETARIAN = "vegetarian";
+    public static final String SERVINGS = "servings";
+
+    private static final Set<String> FIELDS = Set.of(TITLE, DESCRIPTION, INGREDIENTS, INSTRUCTIONS, VEGETARIAN, SERVINGS);
+
+    /**
+     * Names of the members present in the patch.
+     */
+    Set<String> fields;
+
+    /**
+     * The patched values; only those named in {@link #fields} are meaningful.
+     */
+    RecipeRequest values;
+
+    public boolean has(String field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * @throws InvalidRecipePatchException if the patch names an unknown field, removes a required one
+     *                                     or has a value of the wrong type
+     */
+    public static RecipePatch of(ObjectNode patch, ObjectMapper objectMapper) {
+        Set<String> fields = new LinkedHashSet<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+        patch.properties().forEach(member -> {
+            String name = member.getKey();
+            if (!FIELDS.contains(name)) {
+                errors.put(name, "Unknown field");
+            } else if (member.getValue().isNull() && !DESCRIPTION.equals(name)) {
+                errors.put(name, "Only the description can be removed");
+            } else {
+                fields.add(name);
+            }
+        });
+        if (!errors.isEmpty()) {
+            throw new InvalidRecipePatchException(errors);
+        }
+        try {
+            return new RecipePatch(Set.copyOf(fields), objectMapper.treeToValue(patch, RecipeRequest.class));
+        } catch (JsonProcessingException ex) {
+            throw new InvalidRecipePatchException(Map.of("patch", ex.getOriginalMessage()));
+        }
+    }
+}
@@ -23,7 +23,7 @@ public class RecipeRequest {
     private String description;
     
     @NotEmpty(message = "At least one ingredient is required")
-    private List<String> ingredients = new ArrayList<>();
+    private List<@NotBlank(message = "Ingredient names must not be blank") String> ingredients = new ArrayList<>();
     
     @NotBlank(message = "Instructions are required")
     private String instructions;
@@ -1,5 +1,7 @@
 package org.recime.recipes.dto;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,4 +20,37 @@ public class RecipeSearchRequest {
     private List<String> includeIngredients = new ArrayList<>();
     private List<String> excludeIngredients = new ArrayList<>();
     private String instructionText;
+    private TextSearchMode textMode;
+
+    @Min(value = 0, message = "Page must not be negative")
+    private Integer page;
+
+    @Min(value = 1, message = "Size must be at least 1")
+    @Max(value = 500, message = "Size must be at most 500")
+    private Integer size;
+
+    /**
+     * The included and excluded ingredient names, to resolve against the dictionary in one lookup.
+     */
+    public List<String> ingredientNames() {
+        List<String> names = new ArrayList<>();
+        if (includeIngredients != null) {
+            names.addAll(includeIngredients);
+        }
+        if (excludeIngredients != null) {
+            names.addAll(excludeIngredients);
+        }
+        return names;
+    }
+
+    /**
+     * Whether any filter is set; {@code page}, {@code size} and {@code textMode} alone do not narrow the result.
+     */
+    public boolean hasCriteria() {
+        return vegetarian != null
+                || servings != null
+                || (includeIngredients != null && !includeIngredients.isEmpty())
+                || (excludeIngredients != null && !excludeIngredients.isEmpty())
+                || (instructionText != null && !instructionText.isBlank());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package org.recime.recipes.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Search response when facets are requested; without them the search answers with the bare item list.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecipeSearchResult {
+    @Builder.Default
+    private List<RecipeDto> items = new ArrayList<>();
+    private RecipeFacets facets;
+}
@@ -0,0 +1,20 @@
+package org.recime.recipes.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * The light columns of a recipe, selected straight from the {@code recipes} table for list and
+ * search responses without loading the entity.
+ */
+@Value
+public class RecipeSummary {
+    UUID id;
+    String title;
+    boolean vegetarian;
+    int servings;
+    LocalDateTime createdAt;
+    LocalDateTime updatedAt;
+}
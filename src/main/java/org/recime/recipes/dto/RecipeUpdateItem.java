@@ -0,0 +1,23 @@
+package org.recime.recipes.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecipeUpdateItem {
+    @NotNull(message = "Id is required")
+    private UUID id;
+
+    @Valid
+    @NotNull(message = "Recipe is required")
+    private RecipeRequest recipe;
+}
@@ -0,0 +1,14 @@
+package org.recime.recipes.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * The validators of a recipe, read without loading it, for conditional requests.
+ */
+@Value
+public class RecipeVersion {
+    long version;
+    LocalDateTime updatedAt;
+}
@@ -0,0 +1,12 @@
+package org.recime.recipes.dto;
+
+public enum TextSearchMode {
+    /**
+     * Case-insensitive substring match on the instructions, served by a trigram index.
+     */
+    SUBSTRING,
+    /**
+     * Ranked full-text match on title, description and instructions.
+     */
+    FULL_TEXT
+}
@@ -0,0 +1,48 @@
+package org.recime.recipes.event;
+
+import lombok.Value;
+import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeFacetState;
+
+import java.util.UUID;
+
+/**
+ * Published by {@code RecipeService} whenever a recipe is written. {@code recipe} holds the
+ * state after the change and is {@code null} for deletions. {@code previous} holds the facet fields
+ * before an update or deletion, read while the recipe was locked or version-checked; it is
+ * {@code null} for creations and when the publisher did not read it.
+ */
+@Value
+public class RecipeChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    UUID recipeId;
+    ChangeType type;
+    RecipeDto recipe;
+    RecipeFacetState previous;
+
+    public static RecipeChangedEvent created(RecipeDto recipe) {
+        return new RecipeChangedEvent(recipe.getId(), ChangeType.CREATED, recipe, null);
+    }
+
+    public static RecipeChangedEvent updated(RecipeDto recipe) {
+        return updated(null, recipe);
+    }
+
+    public static RecipeChangedEvent updated(RecipeFacetState previous, RecipeDto recipe) {
+        return new RecipeChangedEvent(recipe.getId(), ChangeType.UPDATED, recipe, previous);
+    }
+
+    public static RecipeChangedEvent deleted(UUID recipeId) {
+        return deleted(recipeId, null);
+    }
+
+    public static RecipeChangedEvent deleted(UUID recipeId, RecipeFacetState previous) {
+        return new RecipeChangedEvent(recipeId, ChangeType.DELETED, null, previous);
+    }
+}
@@ -0,0 +1,12 @@
+package org.recime.recipes.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GONE)
+public class ChangeFeedExpiredException extends RuntimeException {
+    public ChangeFeedExpiredException(long since, long oldest) {
+        super("Changes after " + since + " have expired; the oldest retained change is " + oldest
+                + ", reload the recipes and follow the feed from the latest position");
+    }
+}
@@ -0,0 +1,21 @@
+package org.recime.recipes.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.Map;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidRecipePatchException extends RuntimeException {
+
+    private final Map<String, String> errors;
+
+    public InvalidRecipePatchException(Map<String, String> errors) {
+        super("Invalid recipe patch: " + errors);
+        this.errors = errors;
+    }
+
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+}
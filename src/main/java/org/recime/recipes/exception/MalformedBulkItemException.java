@@ -0,0 +1,11 @@
+package org.recime.recipes.exception;
+
+/**
+ * An item of a streamed bulk body that could not be read. The bulk result reports it as a failed
+ * entry and the items after it are still processed, so it never reaches the exception handler.
+ */
+public class MalformedBulkItemException extends RuntimeException {
+    public MalformedBulkItemException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,11 @@
+package org.recime.recipes.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class MissingFilterException extends RuntimeException {
+    public MissingFilterException() {
+        super("At least one filter is required; use the bulk delete by id to remove specific recipes");
+    }
+}
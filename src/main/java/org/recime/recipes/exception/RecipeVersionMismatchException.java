@@ -0,0 +1,13 @@
+package org.recime.recipes.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.UUID;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class RecipeVersionMismatchException extends RuntimeException {
+    public RecipeVersionMismatchException(UUID id, String expectedETag) {
+        super("Recipe " + id + " no longer matches " + expectedETag);
+    }
+}
@@ -0,0 +1,11 @@
+package org.recime.recipes.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnknownFieldException extends RuntimeException {
+    public UnknownFieldException(String field) {
+        super("Unknown field: " + field + "; expected description, instructions or ingredients");
+    }
+}
@@ -0,0 +1,82 @@
+package org.recime.recipes.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Records how many rows each repository query returns, next to the
+ * {@code spring.data.repository.invocations} timer Spring Boot publishes for the same call.
+ * Streams are counted as they are consumed and recorded when they are closed.
+ */
+class RepositoryRowCountInterceptor implements MethodInterceptor {
+
+    static final String METRIC_NAME = "recipes.repository.rows";
+
+    private final MeterRegistry meterRegistry;
+    private final String repository;
+
+    RepositoryRowCountInterceptor(MeterRegistry meterRegistry, Class<?> repositoryInterface) {
+        this.meterRegistry = meterRegistry;
+        this.repository = repositoryInterface.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        if (!returnsRows(invocation.getMethod().getReturnType())) {
+            return result;
+        }
+
+        DistributionSummary rows = DistributionSummary.builder(METRIC_NAME)
+                .description("Rows returned per repository method call")
+                .baseUnit("rows")
+                .tag("repository", repository)
+                .tag("method", invocation.getMethod().getName())
+                .register(meterRegistry);
+        if (result instanceof Stream<?> stream) {
+            LongAdder count = new LongAdder();
+            return stream.peek(row -> count.increment()).onClose(() -> rows.record(count.sum()));
+        }
+        rows.record(rowCount(result));
+        return result;
+    }
+
+    private static boolean returnsRows(Class<?> returnType) {
+        // Counts, existence checks and deletes report no rows
+        return !returnType.isPrimitive()
+                && !Number.class.isAssignableFrom(returnType)
+                && !Boolean.class.equals(returnType)
+                && !Void.class.equals(returnType);
+    }
+
+    private static long rowCount(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Iterable<?> iterable) {
+            long count = 0;
+            for (Object ignored : iterable) {
+                count++;
+            }
+            return count;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,79 @@
+package org.recime.recipes.metrics;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Counts and times the statements of every request and flags requests over the configured budget:
+ * they are logged together with any repeated statements, and their {@code http.server.requests}
+ * observation is tagged {@code db.budget=exceeded}. The statistics are left on the request under
+ * {@link #STATS_ATTRIBUTE} for tests.
+ */
+@Slf4j
+public class StatementBudgetFilter extends OncePerRequestFilter {
+
+    public static final String STATS_ATTRIBUTE = StatementBudgetFilter.class.getName() + ".stats";
+
+    private final StatementTracker tracker;
+    private final MeterRegistry meterRegistry;
+    private final int maxStatements;
+    private final Duration maxTime;
+    private final int repeatThreshold;
+
+    public StatementBudgetFilter(StatementTracker tracker, MeterRegistry meterRegistry,
+                                 int maxStatements, Duration maxTime, int repeatThreshold) {
+        this.tracker = tracker;
+        this.meterRegistry = meterRegistry;
+        this.maxStatements = maxStatements;
+        this.maxTime = maxTime;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        StatementStats stats = tracker.start();
+        request.setAttribute(STATS_ATTRIBUTE, stats);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            tracker.stop();
+            report(request, stats);
+        }
+    }
+
+    private void report(HttpServletRequest request, StatementStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        DistributionSummary.builder("recipes.request.statements")
+                .description("JDBC statements executed per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getStatementCount());
+
+        Map<String, Integer> repeated = stats.repeatedStatements(repeatThreshold);
+        boolean exceeded = stats.getStatementCount() > maxStatements
+                || stats.getElapsedTime().compareTo(maxTime) > 0
+                || !repeated.isEmpty();
+        ServerHttpObservationFilter.findObservationContext(request).ifPresent(context ->
+                context.addLowCardinalityKeyValue(KeyValue.of("db.budget", exceeded ? "exceeded" : "ok")));
+        if (exceeded) {
+            log.warn("{} {} ran {} statements in {} ms; repeated statements (N+1 suspects): {}",
+                    request.getMethod(), uri, stats.getStatementCount(), stats.getElapsedTime().toMillis(), repeated);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.recime.recipes.metrics;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JDBC statements executed while handling one request. The same SQL executed again and again
+ * is the usual signature of an N+1 query.
+ */
+public class StatementStats {
+
+    private final Map<String, Integer> executions = new LinkedHashMap<>();
+    private int statementCount;
+    private long elapsedMillis;
+
+    /**
+     * Records one round trip; a JDBC batch counts once, however many rows it carries.
+     */
+    void record(List<String> sql, long elapsedMillis) {
+        statementCount++;
+        this.elapsedMillis += elapsedMillis;
+        sql.stream().distinct().forEach(query -> executions.merge(query, 1, Integer::sum));
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public Duration getElapsedTime() {
+        return Duration.ofMillis(elapsedMillis);
+    }
+
+    /**
+     * SQL executed at least {@code threshold} times, with its execution count.
+     */
+    public Map<String, Integer> repeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        executions.forEach((sql, count) -> {
+            if (count >= threshold) {
+                repeated.put(sql, count);
+            }
+        });
+        return repeated;
+    }
+}
@@ -0,0 +1,41 @@
+package org.recime.recipes.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Attributes statements executed through the proxied data source to the {@link StatementStats} of
+ * the current thread. Statements run outside {@link #start()} and {@link #stop()}, such as those of
+ * a streamed response body written on another thread, are not tracked.
+ */
+public class StatementTracker implements QueryExecutionListener {
+
+    private final ThreadLocal<StatementStats> current = new ThreadLocal<>();
+
+    public StatementStats start() {
+        StatementStats stats = new StatementStats();
+        current.set(stats);
+        return stats;
+    }
+
+    public void stop() {
+        current.remove();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        StatementStats stats = current.get();
+        if (stats != null) {
+            stats.record(queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.toList()),
+                    execInfo.getElapsedTime());
+        }
+    }
+}
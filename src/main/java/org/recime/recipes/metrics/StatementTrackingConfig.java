@@ -0,0 +1,53 @@
+package org.recime.recipes.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "recipes.statement-budget.enabled", matchIfMissing = true)
+public class StatementTrackingConfig {
+
+    @Bean
+    public static StatementTracker statementTracker() {
+        return new StatementTracker();
+    }
+
+    /**
+     * Wraps the data source so every executed statement is reported to the {@link StatementTracker}.
+     */
+    @Bean
+    public static BeanPostProcessor statementTrackingDataSourcePostProcessor(ObjectProvider<StatementTracker> tracker) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(tracker.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public StatementBudgetFilter statementBudgetFilter(
+            StatementTracker statementTracker,
+            MeterRegistry meterRegistry,
+            @Value("${recipes.statement-budget.max-statements:20}") int maxStatements,
+            @Value("${recipes.statement-budget.max-time:500ms}") Duration maxTime,
+            @Value("${recipes.statement-budget.repeat-threshold:5}") int repeatThreshold) {
+        return new StatementBudgetFilter(statementTracker, meterRegistry, maxStatements, maxTime, repeatThreshold);
+    }
+}
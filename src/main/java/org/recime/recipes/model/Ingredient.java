@@ -0,0 +1,42 @@
+package org.recime.recipes.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Entry of the ingredient dictionary. Recipes reference ingredients by id, so each name is stored
+ * once, in its normalized form, and never changes after it is inserted.
+ */
+@Entity
+@Table(name = "ingredients")
+@Immutable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class Ingredient {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @EqualsAndHashCode.Include
+    @Column(nullable = false, unique = true)
+    private String name;
+
+    public static Ingredient named(String name) {
+        return new Ingredient(null, normalizeName(name));
+    }
+
+    /**
+     * Canonical form of the name, see {@link IngredientNames}: {@code " Olive  Oil"} and {@code "olive oil"},
+     * or {@code "Tomatoes"} and {@code "cherry tomato"}, are the same ingredient.
+     */
+    public static String normalizeName(String name) {
+        return IngredientNames.canonical(name);
+    }
+}
@@ -0,0 +1,167 @@
+package org.recime.recipes.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Maps ingredient names to their canonical form: trimmed, inner whitespace collapsed, lower-cased,
+ * the last word singularized and synonyms replaced by the name their group in
+ * {@code ingredient-synonyms.txt} starts with. {@code "Tomatoes"}, {@code "tomato"} and
+ * {@code "Cherry tomatoes"} all become {@code "tomato"}.
+ * <p>
+ * The synonym table is loaded once into a hash map keyed by the singularized alias, so canonicalizing a
+ * name costs one lookup whatever the size of the table.
+ */
+public final class IngredientNames {
+
+    static final String SYNONYMS_RESOURCE = "/ingredient-synonyms.txt";
+
+    private static final String INVARIANT_PREFIX = "invariant:";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern COMMA = Pattern.compile("\\s*,\\s*");
+
+    /**
+     * Nouns whose singular ends in {@code -ie}, which the {@code -ies} to {@code -y} rule would mangle.
+     */
+    private static final Set<String> IE_NOUNS = Set.of(
+            "brownie", "calorie", "cookie", "goodie", "hoagie", "smoothie", "veggie");
+
+    private static final IngredientNames DEFAULT = loadDefault();
+
+    private final Set<String> invariants;
+    private final Map<String, String> synonyms;
+
+    /**
+     * @param invariants words that are never singularized, such as {@code "molasses"}
+     * @param groups     canonical name to its synonyms
+     * @throws IllegalArgumentException if a synonym belongs to two groups or is itself a canonical name
+     */
+    IngredientNames(Set<String> invariants, Map<String, List<String>> groups) {
+        this.invariants = new HashSet<>();
+        invariants.forEach(word -> this.invariants.add(fold(word)));
+        this.synonyms = new HashMap<>();
+        groups.forEach((name, aliases) -> {
+            String canonical = singularize(fold(name));
+            for (String alias : aliases) {
+                String key = singularize(fold(alias));
+                if (key.equals(canonical)) {
+                    continue;
+                }
+                String previous = synonyms.putIfAbsent(key, canonical);
+                if (previous != null && !previous.equals(canonical)) {
+                    throw new IllegalArgumentException(
+                            "Synonym '" + alias + "' is listed for both '" + previous + "' and '" + canonical + "'");
+                }
+            }
+        });
+        for (String canonical : synonyms.values()) {
+            if (synonyms.containsKey(canonical)) {
+                throw new IllegalArgumentException(
+                        "Canonical name '" + canonical + "' is also a synonym of '" + synonyms.get(canonical) + "'");
+            }
+        }
+    }
+
+    /**
+     * Canonicalizes with the table on the classpath.
+     */
+    public static String canonical(String name) {
+        return DEFAULT.canonicalize(name);
+    }
+
+    public String canonicalize(String name) {
+        String singular = singularize(fold(name));
+        return synonyms.getOrDefault(singular, singular);
+    }
+
+    /**
+     * Reads the synonym table format: one {@code canonical = synonym, synonym} group per line,
+     * {@code invariant: word, word} lines and {@code #} comments.
+     */
+    static IngredientNames parse(BufferedReader reader) throws IOException {
+        Set<String> invariants = new HashSet<>();
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            String content = (comment >= 0 ? line.substring(0, comment) : line).trim();
+            if (content.isEmpty()) {
+                continue;
+            }
+            if (content.startsWith(INVARIANT_PREFIX)) {
+                invariants.addAll(List.of(COMMA.split(content.substring(INVARIANT_PREFIX.length()).trim())));
+                continue;
+            }
+            int separator = content.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Line " + lineNumber + " is not 'canonical = synonym, ...': " + line);
+            }
+            String canonical = content.substring(0, separator).trim();
+            List<String> aliases = List.of(COMMA.split(content.substring(separator + 1).trim()));
+            groups.computeIfAbsent(canonical, key -> new ArrayList<>()).addAll(aliases);
+        }
+        return new IngredientNames(invariants, groups);
+    }
+
+    private static IngredientNames loadDefault() {
+        InputStream stream = IngredientNames.class.getResourceAsStream(SYNONYMS_RESOURCE);
+        if (stream == null) {
+            return new IngredientNames(Set.of(), Map.of());
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            return parse(reader);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read " + SYNONYMS_RESOURCE, ex);
+        }
+    }
+
+    private static String fold(String name) {
+        return WHITESPACE.matcher(name.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Singularizes the last word only, so {@code "cherry tomatoes"} becomes {@code "cherry tomato"}
+     * while {@code "peas and carrots"} keeps its first plural.
+     */
+    private String singularize(String name) {
+        int start = name.lastIndexOf(' ') + 1;
+        String word = name.substring(start);
+        String singular = singularWord(word);
+        return singular.equals(word) ? name : name.substring(0, start) + singular;
+    }
+
+    private String singularWord(String word) {
+        if (word.length() <= 3 || invariants.contains(word)) {
+            return word;
+        }
+        if (word.endsWith("ies") && IE_NOUNS.contains(word.substring(0, word.length() - 1))) {
+            return word.substring(0, word.length() - 1);
+        }
+        if (word.endsWith("ies") && word.length() > 4) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.endsWith("oes") || word.endsWith("ches") || word.endsWith("shes")
+                || word.endsWith("sses") || word.endsWith("xes")) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is")) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+}
@@ -5,13 +5,19 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.UUID;
 
 @Entity
 @Table(name = "recipes")
+// Write only the changed columns, so a title edit does not resend the description and instructions
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,7 +25,7 @@ import java.util.UUID;
 public class Recipe {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private UUID id;
 
     @Column(nullable = false)
@@ -28,10 +34,15 @@ public class Recipe {
     @Column(columnDefinition = "TEXT")
     private String description;
 
-    @ElementCollection
-    @CollectionTable(name = "recipe_ingredients", joinColumns = @JoinColumn(name = "recipe_id"))
-    @Column(name = "ingredient")
-    private List<String> ingredients = new ArrayList<>();
+    @ManyToMany
+    @BatchSize(size = 100)
+    // recipe_ingredients.recipe_id cascades, so deleting a recipe is one statement
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinTable(name = "recipe_ingredients",
+            joinColumns = @JoinColumn(name = "recipe_id"),
+            inverseJoinColumns = @JoinColumn(name = "ingredient_id"))
+    @OrderBy("name")
+    private Set<Ingredient> ingredients = new LinkedHashSet<>();
 
     @Column(columnDefinition = "TEXT", nullable = false)
     private String instructions;
@@ -46,14 +57,26 @@ public class Recipe {
     @Column(name = "updated_at")
     private java.time.LocalDateTime updatedAt;
 
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     @PrePersist
     protected void onCreate() {
-        createdAt = java.time.LocalDateTime.now();
+        createdAt = timestamp();
         updatedAt = createdAt;
     }
 
     @PreUpdate
     protected void onUpdate() {
-        updatedAt = java.time.LocalDateTime.now();
+        updatedAt = timestamp();
+    }
+
+    /**
+     * The current time truncated to what the database stores, so a freshly saved recipe compares equal
+     * to its reloaded self.
+     */
+    public static java.time.LocalDateTime timestamp() {
+        return java.time.LocalDateTime.now().truncatedTo(java.time.temporal.ChronoUnit.MICROS);
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package org.recime.recipes.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.recime.recipes.event.RecipeChangedEvent;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Outbox row of a recipe change, inserted in the transaction that made the change. {@code feedPosition}
+ * is {@code null} until the change feed drains the row and numbers it.
+ */
+@Entity
+@Table(name = "recipe_changes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecipeChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recipe_changes_id_seq")
+    // Ids are allocated in blocks, so the outbox rows of a bulk write are inserted as one JDBC batch
+    @SequenceGenerator(name = "recipe_changes_id_seq", sequenceName = "recipe_changes_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "feed_position", unique = true)
+    private Long feedPosition;
+
+    @Column(name = "recipe_id", nullable = false)
+    private UUID recipeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 16)
+    private RecipeChangedEvent.ChangeType type;
+
+    @Column(name = "recipe_version")
+    private Long recipeVersion;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,26 @@
+package org.recime.recipes.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The single row holding the last position the change feed assigned. Drainers lock it for the whole
+ * batch, so positions are handed out by one drainer at a time across instances.
+ */
+@Entity
+@Table(name = "recipe_change_counter")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeChangeCounter {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "last_position", nullable = false)
+    private long lastPosition;
+}
@@ -0,0 +1,230 @@
+package org.recime.recipes.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.recime.recipes.dto.RecipeChangeDto;
+import org.recime.recipes.dto.RecipeChangePage;
+import org.recime.recipes.exception.ChangeFeedExpiredException;
+import org.recime.recipes.model.RecipeChange;
+import org.recime.recipes.model.RecipeChangeCounter;
+import org.recime.recipes.repository.RecipeChangeCounterRepository;
+import org.recime.recipes.repository.RecipeChangeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the outbox as a feed of changes numbered 1, 2, 3... in the order they were drained, which
+ * follows commit order closely. Drains run in the background in batches, each under the lock of the
+ * single {@link RecipeChangeCounter} row, so drainers on several instances take turns and positions
+ * are contiguous: a consumer that has read up to {@code since} misses nothing by asking for what follows.
+ * <p>
+ * Long-polls wait in memory and are completed by the next drain on this instance that finds the feed
+ * moved past them, whichever instance published the changes.
+ */
+@Slf4j
+@Service
+public class RecipeChangeFeed {
+
+    private final RecipeChangeRepository changeRepository;
+    private final RecipeChangeCounterRepository counterRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retention;
+
+    private final AtomicLong lastPosition = new AtomicLong(-1);
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    public RecipeChangeFeed(
+            RecipeChangeRepository changeRepository,
+            RecipeChangeCounterRepository counterRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${recipes.change-feed.batch-size:500}") int batchSize,
+            @Value("${recipes.change-feed.retention:7d}") Duration retention) {
+        this.changeRepository = changeRepository;
+        this.counterRepository = counterRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.retention = retention;
+    }
+
+    /**
+     * Numbers the pending changes, one transaction per batch, then wakes the long-polls the feed has
+     * moved past.
+     */
+    @Scheduled(fixedDelayString = "${recipes.change-feed.drain-interval:250ms}")
+    public void drain() {
+        int drained;
+        do {
+            drained = transactionTemplate.execute(status -> drainBatch());
+        } while (drained == batchSize);
+
+        long last = lastPosition.accumulateAndGet(changeRepository.findLastFeedPosition(), Math::max);
+        List<Waiter> ready = new ArrayList<>();
+        for (Waiter waiter : waiters) {
+            if (last > waiter.since() && waiters.remove(waiter)) {
+                ready.add(waiter);
+            }
+        }
+        if (!ready.isEmpty()) {
+            completeAll(ready);
+        }
+    }
+
+    private int drainBatch() {
+        // Drainers on other instances wait on this lock, then read the pending rows this one numbered as published
+        RecipeChangeCounter counter = counterRepository.lockCounter().orElseGet(this::createCounter);
+        List<RecipeChange> pending = changeRepository.findByFeedPositionIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        long position = counter.getLastPosition();
+        for (RecipeChange change : pending) {
+            change.setFeedPosition(++position);
+        }
+        counter.setLastPosition(position);
+        log.debug("Published changes up to {}", position);
+        return pending.size();
+    }
+
+    /**
+     * The migration creates the counter row; schemas generated from the entities, as in tests, start
+     * without it.
+     */
+    private RecipeChangeCounter createCounter() {
+        return counterRepository.save(new RecipeChangeCounter(RecipeChangeCounter.ID, changeRepository.findLastFeedPosition()));
+    }
+
+    @Scheduled(fixedDelayString = "${recipes.change-feed.purge-interval:1h}")
+    public void purge() {
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        int deleted = transactionTemplate.execute(status -> changeRepository.deletePublishedBefore(before));
+        if (deleted > 0) {
+            log.info("Deleted {} changes published before {}", deleted, before);
+        }
+    }
+
+    /**
+     * @throws ChangeFeedExpiredException if changes after {@code since} were already deleted; a
+     *                                    {@code since} of 0 reads from the oldest retained change instead
+     */
+    public RecipeChangePage changesSince(long since, int limit) {
+        return page(since, changeRepository.findByFeedPositionGreaterThanOrderByFeedPositionAsc(
+                since, PageRequest.of(0, limit)));
+    }
+
+    private RecipeChangePage page(long since, List<RecipeChange> changes) {
+        if (since > 0 && !changes.isEmpty() && changes.get(0).getFeedPosition() > since + 1) {
+            throw new ChangeFeedExpiredException(since, changes.get(0).getFeedPosition());
+        }
+        List<RecipeChangeDto> items = changes.stream().map(RecipeChangeFeed::toDto).toList();
+        long nextSince = items.isEmpty() ? since : items.get(items.size() - 1).getPosition();
+        return new RecipeChangePage(items, nextSince, Math.max(latest(), nextSince));
+    }
+
+    /**
+     * Answers at once when there are changes after {@code since}, otherwise when the next one is
+     * published or, with an empty page, after {@code timeout}.
+     */
+    public DeferredResult<RecipeChangePage> awaitChangesSince(long since, int limit, Duration timeout) {
+        RecipeChangePage page = changesSince(since, limit);
+        DeferredResult<RecipeChangePage> result = new DeferredResult<>(timeout.toMillis(), page);
+        if (!page.getItems().isEmpty() || timeout.isZero()) {
+            result.setResult(page);
+            return result;
+        }
+
+        Waiter waiter = new Waiter(since, limit, result);
+        waiters.add(waiter);
+        result.onCompletion(() -> waiters.remove(waiter));
+        // A drain that finished after the query above did not see this waiter yet
+        if (lastPosition.get() > since) {
+            complete(waiter);
+        }
+        return result;
+    }
+
+    int waiting() {
+        return waiters.size();
+    }
+
+    private void complete(Waiter waiter) {
+        if (!waiters.remove(waiter)) {
+            return;
+        }
+        try {
+            waiter.result().setResult(changesSince(waiter.since(), waiter.limit()));
+        } catch (RuntimeException ex) {
+            waiter.result().setErrorResult(ex);
+        }
+    }
+
+    /**
+     * Answers the waiters from one query starting at the lowest {@code since}. Positions are
+     * contiguous, so the rows up to the furthest {@code since + limit} cover every waiter's page.
+     */
+    private void completeAll(List<Waiter> ready) {
+        long from = Long.MAX_VALUE;
+        long to = Long.MIN_VALUE;
+        for (Waiter waiter : ready) {
+            from = Math.min(from, waiter.since());
+            to = Math.max(to, waiter.since() + waiter.limit());
+        }
+        List<RecipeChange> changes;
+        try {
+            changes = changeRepository.findByFeedPositionGreaterThanOrderByFeedPositionAsc(
+                    from, PageRequest.of(0, Math.toIntExact(to - from)));
+        } catch (RuntimeException ex) {
+            ready.forEach(waiter -> waiter.result().setErrorResult(ex));
+            return;
+        }
+        for (Waiter waiter : ready) {
+            try {
+                waiter.result().setResult(page(waiter.since(), after(changes, waiter.since(), waiter.limit())));
+            } catch (RuntimeException ex) {
+                waiter.result().setErrorResult(ex);
+            }
+        }
+    }
+
+    /**
+     * The first {@code limit} of {@code changes}, sorted by position, that come after {@code since}.
+     */
+    private static List<RecipeChange> after(List<RecipeChange> changes, long since, int limit) {
+        int low = 0;
+        int high = changes.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (changes.get(middle).getFeedPosition() <= since) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return changes.subList(low, Math.min(changes.size(), low + limit));
+    }
+
+    private long latest() {
+        long latest = lastPosition.get();
+        return latest >= 0 ? latest : lastPosition.accumulateAndGet(changeRepository.findLastFeedPosition(), Math::max);
+    }
+
+    private static RecipeChangeDto toDto(RecipeChange change) {
+        return new RecipeChangeDto(change.getFeedPosition(), change.getRecipeId(), change.getType(),
+                change.getRecipeVersion(), change.getChangedAt());
+    }
+
+    private record Waiter(long since, int limit, DeferredResult<RecipeChangePage> result) {
+    }
+}
@@ -0,0 +1,12 @@
+package org.recime.recipes.outbox;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the change feed's drain and purge on Spring's scheduler.
+ */
+@Configuration
+@EnableScheduling
+public class RecipeChangeFeedConfig {
+}
@@ -0,0 +1,34 @@
+package org.recime.recipes.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.model.Recipe;
+import org.recime.recipes.model.RecipeChange;
+import org.recime.recipes.repository.RecipeChangeRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Writes every recipe change to the {@code recipe_changes} outbox before the transaction that made it
+ * commits, so the change and its outbox row commit or roll back together. {@link RecipeChangeFeed}
+ * publishes the rows afterwards.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecipeChangeOutbox {
+
+    private final RecipeChangeRepository changeRepository;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        RecipeDto recipe = event.getRecipe();
+        changeRepository.save(RecipeChange.builder()
+                .recipeId(event.getRecipeId())
+                .type(event.getType())
+                .recipeVersion(recipe == null ? null : recipe.getVersion())
+                .changedAt(Recipe.timestamp())
+                .build());
+    }
+}
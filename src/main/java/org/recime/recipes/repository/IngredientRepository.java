@@ -0,0 +1,52 @@
+package org.recime.recipes.repository;
+
+import org.recime.recipes.model.Ingredient;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface IngredientRepository extends JpaRepository<Ingredient, Integer> {
+
+    List<Ingredient> findByNameIn(Collection<String> names);
+
+    /**
+     * Adds the name unless it is already in the dictionary. A concurrent transaction inserting the
+     * same name makes this wait for it to end instead of failing, so the caller's transaction is not
+     * aborted by losing the race.
+     *
+     * @return 1 if the name was added, 0 if it was already there
+     */
+    @Modifying
+    @Query(value = "INSERT INTO ingredients (name) VALUES (:name) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name);
+
+    /**
+     * Points the recipes using {@code source} at {@code target} as well, skipping those that already
+     * reference it; {@link #deleteRecipeIngredients} then removes the {@code source} rows.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO recipe_ingredients (recipe_id, ingredient_id) "
+            + "SELECT ri.recipe_id, :target FROM recipe_ingredients ri "
+            + "WHERE ri.ingredient_id = :source AND NOT EXISTS ("
+            + "SELECT 1 FROM recipe_ingredients t WHERE t.recipe_id = ri.recipe_id AND t.ingredient_id = :target)",
+            nativeQuery = true)
+    int copyRecipeIngredients(@Param("source") int source, @Param("target") int target);
+
+    @Query(value = "SELECT DISTINCT recipe_id FROM recipe_ingredients WHERE ingredient_id IN (:ids)", nativeQuery = true)
+    List<UUID> findRecipeIdsByIngredientIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM recipe_ingredients WHERE ingredient_id = :id", nativeQuery = true)
+    int deleteRecipeIngredients(@Param("id") int id);
+
+    @Modifying
+    @Query(value = "DELETE FROM ingredients WHERE id = :id", nativeQuery = true)
+    int deleteIngredient(@Param("id") int id);
+}
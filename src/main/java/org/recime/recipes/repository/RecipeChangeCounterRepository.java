@@ -0,0 +1,21 @@
+package org.recime.recipes.repository;
+
+import jakarta.persistence.LockModeType;
+import org.recime.recipes.model.RecipeChangeCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface RecipeChangeCounterRepository extends JpaRepository<RecipeChangeCounter, Integer> {
+
+    /**
+     * Locks the counter row until the transaction ends; a drainer on another instance waits here.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM RecipeChangeCounter c WHERE c.id = " + RecipeChangeCounter.ID)
+    Optional<RecipeChangeCounter> lockCounter();
+}
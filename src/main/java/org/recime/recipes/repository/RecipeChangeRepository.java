@@ -0,0 +1,54 @@
+package org.recime.recipes.repository;
+
+import org.recime.recipes.model.RecipeChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RecipeChangeRepository extends JpaRepository<RecipeChange, Long> {
+
+    /**
+     * The oldest pending changes. Call it with the {@link RecipeChangeCounterRepository#lockCounter()
+     * counter} locked, so no other drainer numbers the same rows.
+     */
+    List<RecipeChange> findByFeedPositionIsNullOrderByIdAsc(Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(c.feedPosition), 0) FROM RecipeChange c")
+    long findLastFeedPosition();
+
+    /**
+     * The outbox's high-water marks in one statement, each read from an index: the last published
+     * position, the number of changes not yet published and the time of the latest change.
+     */
+    @Query(value = "SELECT (SELECT COALESCE(MAX(feed_position), 0) FROM recipe_changes) AS published, "
+            + "(SELECT COUNT(*) FROM recipe_changes WHERE feed_position IS NULL) AS pending, "
+            + "(SELECT MAX(changed_at) FROM recipe_changes) AS modified",
+            nativeQuery = true)
+    OutboxState findOutboxState();
+
+    List<RecipeChange> findByFeedPositionGreaterThanOrderByFeedPositionAsc(long feedPosition, Pageable pageable);
+
+    /**
+     * Deletes published changes older than {@code before}. The last one is kept, so positions keep
+     * counting from it when every change has expired.
+     */
+    @Modifying
+    @Query("DELETE FROM RecipeChange c WHERE c.changedAt < :before "
+            + "AND c.feedPosition < (SELECT MAX(l.feedPosition) FROM RecipeChange l)")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+
+    interface OutboxState {
+        long getPublished();
+
+        long getPending();
+
+        LocalDateTime getModified();
+    }
+}
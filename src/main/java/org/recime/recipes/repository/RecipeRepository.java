@@ -1,35 +1,185 @@
 package org.recime.recipes.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.recime.recipes.dto.PantryCoverage;
+import org.recime.recipes.dto.RecipeSummary;
+import org.recime.recipes.dto.RecipeVersion;
 import org.recime.recipes.model.Recipe;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface RecipeRepository extends JpaRepository<Recipe, UUID> {
+public interface RecipeRepository extends JpaRepository<Recipe, UUID>, JpaSpecificationExecutor<Recipe>,
+        RecipeSummaryRepository {
 
-    List<Recipe> findByVegetarian(boolean vegetarian);
+    @Override
+    @EntityGraph(attributePaths = "ingredients")
+    Optional<Recipe> findById(UUID id);
 
-    List<Recipe> findByServings(int servings);
+    @Query("SELECT new org.recime.recipes.dto.RecipeVersion(r.version, COALESCE(r.updatedAt, r.createdAt)) " +
+           "FROM Recipe r WHERE r.id = :id")
+    Optional<RecipeVersion> findVersionById(@Param("id") UUID id);
 
-    @Query("SELECT r FROM Recipe r JOIN r.ingredients i WHERE i IN :ingredients GROUP BY r HAVING COUNT(DISTINCT i) = :count")
-    List<Recipe> findByIngredientsIn(@Param("ingredients") List<String> ingredients, @Param("count") long ingredientCount);
+    /**
+     * Updates the recipe's columns only if it is still at {@code version}, without reading it first.
+     *
+     * @return 1 if the recipe was updated, 0 if it does not exist or has moved on
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Recipe r SET r.title = :title, r.description = :description, r.instructions = :instructions, " +
+           "r.vegetarian = :vegetarian, r.servings = :servings, r.updatedAt = :updatedAt, r.version = r.version + 1 " +
+           "WHERE r.id = :id AND r.version = :version")
+    int updateIfVersionMatches(
+            @Param("id") UUID id,
+            @Param("version") long version,
+            @Param("title") String title,
+            @Param("description") String description,
+            @Param("instructions") String instructions,
+            @Param("vegetarian") boolean vegetarian,
+            @Param("servings") int servings,
+            @Param("updatedAt") LocalDateTime updatedAt);
 
-    @Query("SELECT r FROM Recipe r WHERE NOT EXISTS (SELECT i FROM r.ingredients i WHERE i IN :ingredients)")
-    List<Recipe> findByIngredientsNotIn(@Param("ingredients") List<String> ingredients);
+    /**
+     * Bumps the version and modification time of recipes whose rows were changed without loading them,
+     * so cached copies and ETags are not served afterwards.
+     */
+    @Modifying
+    @Query("UPDATE Recipe r SET r.version = r.version + 1, r.updatedAt = :updatedAt WHERE r.id IN :ids")
+    int touchRecipesByIdIn(@Param("ids") Collection<UUID> ids, @Param("updatedAt") LocalDateTime updatedAt);
 
-    List<Recipe> findByInstructionsContainingIgnoreCase(String instructionText);
+    /**
+     * Deletes the recipe with a single statement; the database removes its {@code recipe_ingredients}
+     * rows through the cascading foreign key.
+     *
+     * @return 1 if the recipe was deleted, 0 if it does not exist
+     */
+    @Modifying
+    @Query(value = "DELETE FROM recipes WHERE id = :id", nativeQuery = true)
+    int deleteRecipeById(@Param("id") UUID id);
 
-    @Query("SELECT DISTINCT r FROM Recipe r WHERE " +
-           "(:vegetarian IS NULL OR r.vegetarian = :vegetarian) AND " +
-           "(:servings IS NULL OR r.servings = :servings) AND " +
-           "(:instructionText IS NULL OR LOWER(r.instructions) LIKE LOWER(CONCAT('%', :instructionText, '%')))")
-    List<Recipe> searchRecipes(
+    @Modifying
+    @Query(value = "DELETE FROM recipes WHERE id IN (:ids)", nativeQuery = true)
+    int deleteRecipesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM recipe_ingredients WHERE recipe_id = :recipeId AND ingredient_id NOT IN (:ingredientIds)",
+           nativeQuery = true)
+    int removeIngredientsNotIn(@Param("recipeId") UUID recipeId, @Param("ingredientIds") Collection<Integer> ingredientIds);
+
+    @Modifying
+    @Query(value = "INSERT INTO recipe_ingredients (recipe_id, ingredient_id) " +
+                   "SELECT r.id, i.id FROM recipes r JOIN ingredients i ON i.id IN (:ingredientIds) " +
+                   "WHERE r.id = :recipeId AND NOT EXISTS (SELECT 1 FROM recipe_ingredients ri " +
+                   "WHERE ri.recipe_id = r.id AND ri.ingredient_id = i.id)",
+           nativeQuery = true)
+    int addMissingIngredients(@Param("recipeId") UUID recipeId, @Param("ingredientIds") Collection<Integer> ingredientIds);
+
+    @Query("SELECT new org.recime.recipes.dto.RecipeSummary(r.id, r.title, r.vegetarian, r.servings, r.createdAt, r.updatedAt) " +
+           "FROM Recipe r ORDER BY r.createdAt, r.id")
+    List<RecipeSummary> findFirstSummaryPage(Pageable pageable);
+
+    @Query("SELECT new org.recime.recipes.dto.RecipeSummary(r.id, r.title, r.vegetarian, r.servings, r.createdAt, r.updatedAt) " +
+           "FROM Recipe r WHERE (r.createdAt, r.id) > (:createdAt, :id) " +
+           "ORDER BY r.createdAt, r.id")
+    List<RecipeSummary> findSummaryPageAfter(
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") UUID id,
+            Pageable pageable);
+
+    @Query("SELECT new org.recime.recipes.dto.RecipeSummary(r.id, r.title, r.vegetarian, r.servings, r.createdAt, r.updatedAt) " +
+           "FROM Recipe r WHERE r.id IN :ids")
+    List<RecipeSummary> findSummariesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT r.id AS id, r.description AS description, r.instructions AS instructions FROM Recipe r WHERE r.id IN :ids")
+    List<TextRow> findTextRowsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT r.id AS recipeId, i.name AS ingredient FROM Recipe r JOIN r.ingredients i WHERE r.id IN :ids ORDER BY i.name")
+    List<IngredientRow> findIngredientRowsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Recipes that share at least one ingredient with the pantry and miss at most {@code maxMissing},
+     * best covered first; {@code pageable} sets the limit. The candidates come from the ingredient
+     * index, and a single GROUP BY counts both their ingredients and the ones in the pantry.
+     */
+    @Query("SELECT new org.recime.recipes.dto.PantryCoverage(r.id, COUNT(i), SUM(CASE WHEN i.id IN :pantry THEN 1 ELSE 0 END)) " +
+           "FROM Recipe r JOIN r.ingredients i " +
+           "WHERE r.id IN (SELECT c.id FROM Recipe c JOIN c.ingredients ci WHERE ci.id IN :pantry) " +
+           "AND (:vegetarian IS NULL OR r.vegetarian = :vegetarian) " +
+           "AND (:servings IS NULL OR r.servings = :servings) " +
+           "GROUP BY r.id " +
+           "HAVING COUNT(i) - SUM(CASE WHEN i.id IN :pantry THEN 1 ELSE 0 END) <= :maxMissing " +
+           "ORDER BY SUM(CASE WHEN i.id IN :pantry THEN 1 ELSE 0 END) * 1.0 / COUNT(i) DESC, " +
+           "COUNT(i) - SUM(CASE WHEN i.id IN :pantry THEN 1 ELSE 0 END), r.id")
+    List<PantryCoverage> findTopByPantryCoverage(
+            @Param("pantry") Collection<Integer> pantryIngredientIds,
+            @Param("maxMissing") long maxMissing,
             @Param("vegetarian") Boolean vegetarian,
             @Param("servings") Integer servings,
-            @Param("instructionText") String instructionText);
-}
\ No newline at end of file
+            Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT r.id AS id, r.vegetarian AS vegetarian, r.servings AS servings FROM Recipe r ORDER BY r.createdAt, r.id")
+    Stream<IndexRow> streamIndexRows();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT r.id AS recipeId, i.name AS ingredient FROM Recipe r JOIN r.ingredients i")
+    Stream<IngredientRow> streamIngredientRows();
+
+    @Query("SELECT r.vegetarian AS vegetarian, r.servings AS servings, COUNT(r) AS recipes FROM Recipe r " +
+           "GROUP BY r.vegetarian, r.servings")
+    List<FlagCount> countByFlags();
+
+    @Query("SELECT i.name AS ingredient, COUNT(r) AS recipes FROM Recipe r JOIN r.ingredients i GROUP BY i.name")
+    List<IngredientCount> countByIngredient();
+
+    interface IndexRow {
+        UUID getId();
+
+        boolean isVegetarian();
+
+        int getServings();
+    }
+
+    interface TextRow {
+        UUID getId();
+
+        String getDescription();
+
+        String getInstructions();
+    }
+
+    interface IngredientRow {
+        UUID getRecipeId();
+
+        String getIngredient();
+    }
+
+    interface FlagCount {
+        boolean isVegetarian();
+
+        int getServings();
+
+        long getRecipes();
+    }
+
+    interface IngredientCount {
+        String getIngredient();
+
+        long getRecipes();
+    }
+}
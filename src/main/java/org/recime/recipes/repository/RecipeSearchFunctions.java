@@ -0,0 +1,74 @@
+package org.recime.recipes.repository;
+
+import java.util.List;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.query.ReturnableType;
+import org.hibernate.query.sqm.function.AbstractSqmSelfRenderingFunctionDescriptor;
+import org.hibernate.query.sqm.function.SqmFunctionRegistry;
+import org.hibernate.query.sqm.produce.function.StandardArgumentsValidators;
+import org.hibernate.query.sqm.produce.function.StandardFunctionReturnTypeResolvers;
+import org.hibernate.sql.ast.SqlAstTranslator;
+import org.hibernate.sql.ast.spi.SqlAppender;
+import org.hibernate.sql.ast.tree.SqlAstNode;
+import org.hibernate.sql.ast.tree.expression.ColumnReference;
+import org.hibernate.sql.ast.tree.expression.Expression;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers the PostgreSQL full-text functions used by {@link RecipeSpecifications}.
+ * <p>
+ * Both take the recipe id and the user query. The id only names the row: it is rendered as the
+ * generated {@code search_vector} column of the same table alias, so the match and the rank apply
+ * to the query's own row and the GIN index is used; see {@code db/migration/postgresql}.
+ */
+public class RecipeSearchFunctions implements FunctionContributor {
+
+    public static final String FULL_TEXT_MATCH = "recipe_fts_match";
+    public static final String FULL_TEXT_RANK = "recipe_fts_rank";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        SqmFunctionRegistry registry = functionContributions.getFunctionRegistry();
+        BasicTypeRegistry types = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+
+        registry.register(FULL_TEXT_MATCH, new SearchVectorFunction(
+                FULL_TEXT_MATCH, "(%s @@ websearch_to_tsquery('english', %s))",
+                types.resolve(StandardBasicTypes.BOOLEAN)));
+        registry.register(FULL_TEXT_RANK, new SearchVectorFunction(
+                FULL_TEXT_RANK, "ts_rank(%s, websearch_to_tsquery('english', %s))",
+                types.resolve(StandardBasicTypes.DOUBLE)));
+    }
+
+    /**
+     * Renders {@code pattern} with the {@code search_vector} column of the recipe id's alias and the
+     * query argument.
+     */
+    private static final class SearchVectorFunction extends AbstractSqmSelfRenderingFunctionDescriptor {
+
+        private final String pattern;
+
+        SearchVectorFunction(String name, String pattern, BasicType<?> type) {
+            super(name, StandardArgumentsValidators.exactly(2),
+                    StandardFunctionReturnTypeResolvers.invariant(type), null);
+            this.pattern = pattern;
+        }
+
+        @Override
+        public void render(SqlAppender sqlAppender, List<? extends SqlAstNode> arguments,
+                           ReturnableType<?> returnType, SqlAstTranslator<?> walker) {
+            ColumnReference id = ((Expression) arguments.get(0)).getColumnReference();
+            if (id == null) {
+                throw new IllegalArgumentException(getName() + " takes a recipe id path as its first argument");
+            }
+            String column = id.getQualifier() == null ? "search_vector" : id.getQualifier() + ".search_vector";
+            int split = pattern.lastIndexOf("%s");
+            sqlAppender.appendSql(String.format(pattern.substring(0, split), column));
+            arguments.get(1).accept(walker);
+            sqlAppender.appendSql(pattern.substring(split + 2));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.recime.recipes.repository;
+
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.recime.recipes.dto.RecipeSearchRequest;
+import org.recime.recipes.dto.TextSearchMode;
+import org.recime.recipes.model.Ingredient;
+import org.recime.recipes.model.Recipe;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Criteria building blocks for {@link RecipeRepository}, composed so a search runs as a single query.
+ */
+public final class RecipeSpecifications {
+
+    private RecipeSpecifications() {
+    }
+
+    /**
+     * @param dictionary the request's ingredients resolved by {@code IngredientDictionary#lookup}
+     */
+    public static Specification<Recipe> matching(RecipeSearchRequest searchRequest, Map<String, Ingredient> dictionary) {
+        return Specification.allOf(constraints(searchRequest, dictionary));
+    }
+
+    /**
+     * The predicates {@link #matching} combines; empty when nothing in the request narrows the result,
+     * e.g. when every excluded ingredient is unknown and so excludes no recipe.
+     *
+     * @param dictionary the request's ingredients resolved by {@code IngredientDictionary#lookup}
+     */
+    public static List<Specification<Recipe>> constraints(RecipeSearchRequest searchRequest,
+                                                          Map<String, Ingredient> dictionary) {
+        List<Specification<Recipe>> specifications = new ArrayList<>();
+        if (searchRequest.getVegetarian() != null) {
+            specifications.add(isVegetarian(searchRequest.getVegetarian()));
+        }
+        if (searchRequest.getServings() != null) {
+            specifications.add(hasServings(searchRequest.getServings()));
+        }
+        if (searchRequest.getInstructionText() != null && !searchRequest.getInstructionText().isBlank()) {
+            specifications.add(searchRequest.getTextMode() == TextSearchMode.FULL_TEXT
+                    ? matchesFullText(searchRequest.getInstructionText())
+                    : instructionsContain(searchRequest.getInstructionText()));
+        }
+        if (searchRequest.getIncludeIngredients() != null && !searchRequest.getIncludeIngredients().isEmpty()) {
+            Set<Integer> ids = ingredientIds(searchRequest.getIncludeIngredients(), dictionary);
+            // An ingredient missing from the dictionary is in no recipe
+            specifications.add(ids == null ? matchesNothing() : containsAllIngredients(ids));
+        }
+        if (searchRequest.getExcludeIngredients() != null && !searchRequest.getExcludeIngredients().isEmpty()) {
+            Set<Integer> ids = new LinkedHashSet<>();
+            for (String name : searchRequest.getExcludeIngredients()) {
+                Ingredient ingredient = dictionary.get(Ingredient.normalizeName(name));
+                if (ingredient != null) {
+                    ids.add(ingredient.getId());
+                }
+            }
+            if (!ids.isEmpty()) {
+                specifications.add(containsNoIngredients(ids));
+            }
+        }
+        return specifications;
+    }
+
+    public static Specification<Recipe> matchesNothing() {
+        return (root, query, cb) -> cb.disjunction();
+    }
+
+    public static Specification<Recipe> isVegetarian(boolean vegetarian) {
+        return (root, query, cb) -> cb.equal(root.get("vegetarian"), vegetarian);
+    }
+
+    public static Specification<Recipe> hasServings(int servings) {
+        return (root, query, cb) -> cb.equal(root.get("servings"), servings);
+    }
+
+    public static Specification<Recipe> instructionsContain(String text) {
+        String pattern = "%" + text.trim().toLowerCase() + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("instructions")), pattern);
+    }
+
+    /**
+     * Full-text match over title, description and instructions. Order by rank with
+     * {@link RecipeSummaryRepository#findSummariesByRank}.
+     */
+    public static Specification<Recipe> matchesFullText(String text) {
+        String terms = text.trim();
+        return (root, query, cb) -> cb.isTrue(cb.function(RecipeSearchFunctions.FULL_TEXT_MATCH, Boolean.class,
+                root.get("id"), cb.literal(terms)));
+    }
+
+    /**
+     * {@code id IN (SELECT recipe_id ... WHERE ingredient_id IN :ids GROUP BY recipe_id HAVING COUNT(DISTINCT ingredient_id) = n)}
+     */
+    public static Specification<Recipe> containsAllIngredients(Collection<Integer> ingredientIds) {
+        Set<Integer> distinct = new LinkedHashSet<>(ingredientIds);
+        return (root, query, cb) -> {
+            Subquery<UUID> matches = query.subquery(UUID.class);
+            Root<Recipe> recipe = matches.from(Recipe.class);
+            Join<Recipe, Ingredient> ingredient = recipe.join("ingredients");
+            matches.select(recipe.get("id"))
+                    .where(ingredient.get("id").in(distinct))
+                    .groupBy(recipe.get("id"))
+                    .having(cb.equal(cb.countDistinct(ingredient.get("id")), (long) distinct.size()));
+            return root.get("id").in(matches);
+        };
+    }
+
+    /**
+     * {@code NOT EXISTS (SELECT 1 FROM recipe_ingredients WHERE recipe_id = r.id AND ingredient_id IN :ids)}
+     */
+    public static Specification<Recipe> containsNoIngredients(Collection<Integer> ingredientIds) {
+        Set<Integer> distinct = new LinkedHashSet<>(ingredientIds);
+        return (root, query, cb) -> {
+            Subquery<Integer> matches = query.subquery(Integer.class);
+            Root<Recipe> recipe = matches.correlate(root);
+            Join<Recipe, Ingredient> ingredient = recipe.join("ingredients");
+            matches.select(cb.literal(1))
+                    .where(ingredient.get("id").in(distinct));
+            return cb.not(cb.exists(matches));
+        };
+    }
+
+    /**
+     * Ids of all {@code names}, or {@code null} if any of them is not in the dictionary.
+     */
+    private static Set<Integer> ingredientIds(Collection<String> names, Map<String, Ingredient> dictionary) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (String name : names) {
+            Ingredient ingredient = dictionary.get(Ingredient.normalizeName(name));
+            if (ingredient == null) {
+                return null;
+            }
+            ids.add(ingredient.getId());
+        }
+        return ids;
+    }
+}
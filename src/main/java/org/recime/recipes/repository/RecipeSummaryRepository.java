@@ -0,0 +1,42 @@
+package org.recime.recipes.repository;
+
+import org.recime.recipes.dto.RecipeFacetState;
+import org.recime.recipes.dto.RecipeFacets;
+import org.recime.recipes.dto.RecipeSummary;
+import org.recime.recipes.model.Recipe;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Specification queries that select {@link RecipeSummary} rows or aggregates instead of entities.
+ */
+public interface RecipeSummaryRepository {
+
+    /**
+     * Orders by {@code pageable}'s sort; unsorted pages come back in no particular order.
+     */
+    List<RecipeSummary> findSummaries(Specification<Recipe> specification, Pageable pageable);
+
+    /**
+     * Orders by full-text rank against {@code text}, best first and then by id, ignoring
+     * {@code pageable}'s sort. Only meaningful with {@link RecipeSpecifications#matchesFullText}.
+     */
+    List<RecipeSummary> findSummariesByRank(Specification<Recipe> specification, String text, Pageable pageable);
+
+    /**
+     * Counts the matching recipes with two aggregate queries: one grouped by vegetarian flag and
+     * servings, one grouped by ingredient and limited to the {@code topIngredients} most used.
+     */
+    RecipeFacets findFacets(Specification<Recipe> specification, int topIngredients);
+
+    /**
+     * Locks the recipes for update, then reads their facet fields and ingredient names, so nothing
+     * changes them before the caller's own write or delete. Ids of missing recipes are left out.
+     */
+    Map<UUID, RecipeFacetState> lockFacetStates(Collection<UUID> ids);
+}
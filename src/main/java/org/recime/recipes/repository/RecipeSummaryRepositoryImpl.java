@@ -0,0 +1,164 @@
+package org.recime.recipes.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.recime.recipes.dto.RecipeFacetState;
+import org.recime.recipes.dto.RecipeFacets;
+import org.recime.recipes.dto.RecipeSummary;
+import org.recime.recipes.model.Ingredient;
+import org.recime.recipes.model.Recipe;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiFunction;
+
+@RequiredArgsConstructor
+class RecipeSummaryRepositoryImpl implements RecipeSummaryRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<RecipeSummary> findSummaries(Specification<Recipe> specification, Pageable pageable) {
+        return findSummaries(specification, pageable, (root, cb) -> pageable.getSort().isSorted()
+                ? QueryUtils.toOrders(pageable.getSort(), root, cb)
+                : List.of());
+    }
+
+    @Override
+    public List<RecipeSummary> findSummariesByRank(Specification<Recipe> specification, String text, Pageable pageable) {
+        String terms = text.trim();
+        return findSummaries(specification, pageable, (root, cb) -> List.of(
+                cb.desc(cb.function(RecipeSearchFunctions.FULL_TEXT_RANK, Double.class, root.get("id"), cb.literal(terms))),
+                cb.asc(root.get("id"))));
+    }
+
+    private List<RecipeSummary> findSummaries(Specification<Recipe> specification, Pageable pageable,
+                                              BiFunction<Root<Recipe>, CriteriaBuilder, List<Order>> ordering) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<RecipeSummary> query = cb.createQuery(RecipeSummary.class);
+        Root<Recipe> root = query.from(Recipe.class);
+
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(cb.construct(RecipeSummary.class,
+                root.get("id"),
+                root.get("title"),
+                root.get("vegetarian"),
+                root.get("servings"),
+                root.get("createdAt"),
+                root.get("updatedAt")));
+        query.orderBy(ordering.apply(root, cb));
+
+        TypedQuery<RecipeSummary> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public RecipeFacets findFacets(Specification<Recipe> specification, int topIngredients) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Tuple> byFlags = cb.createTupleQuery();
+        Root<Recipe> root = byFlags.from(Recipe.class);
+        Predicate predicate = specification.toPredicate(root, byFlags, cb);
+        if (predicate != null) {
+            byFlags.where(predicate);
+        }
+        byFlags.multiselect(root.get("vegetarian"), root.get("servings"), cb.count(root))
+                .groupBy(root.get("vegetarian"), root.get("servings"));
+
+        long total = 0;
+        long vegetarian = 0;
+        Map<Integer, Long> countsByServings = new HashMap<>();
+        for (Tuple row : entityManager.createQuery(byFlags).getResultList()) {
+            long count = row.get(2, Long.class);
+            total += count;
+            if (row.get(0, Boolean.class)) {
+                vegetarian += count;
+            }
+            countsByServings.merge(row.get(1, Integer.class), count, Long::sum);
+        }
+        if (total == 0) {
+            return RecipeFacets.of(0, 0, countsByServings, Map.of());
+        }
+
+        CriteriaQuery<Tuple> byIngredient = cb.createTupleQuery();
+        Root<Recipe> recipe = byIngredient.from(Recipe.class);
+        Join<Recipe, Ingredient> ingredient = recipe.join("ingredients");
+        predicate = specification.toPredicate(recipe, byIngredient, cb);
+        if (predicate != null) {
+            byIngredient.where(predicate);
+        }
+        Expression<Long> uses = cb.count(recipe);
+        byIngredient.multiselect(ingredient.get("name"), uses)
+                .groupBy(ingredient.get("name"))
+                .orderBy(cb.desc(uses), cb.asc(ingredient.get("name")));
+
+        Map<String, Long> ingredients = new LinkedHashMap<>();
+        for (Tuple row : entityManager.createQuery(byIngredient).setMaxResults(topIngredients).getResultList()) {
+            ingredients.put(row.get(0, String.class), row.get(1, Long.class));
+        }
+        return RecipeFacets.of(total, vegetarian, countsByServings, ingredients);
+    }
+
+    @Override
+    public Map<UUID, RecipeFacetState> lockFacetStates(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        // Every write to a recipe's ingredient rows also updates its recipe row, so locking that row is enough
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(
+                        "SELECT id, vegetarian, servings FROM recipes WHERE id IN (:ids) FOR UPDATE")
+                .unwrap(NativeQuery.class)
+                .addScalar("id", UUID.class)
+                .addScalar("vegetarian", Boolean.class)
+                .addScalar("servings", Integer.class)
+                .setParameter("ids", ids)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<UUID, Set<String>> ingredients = new HashMap<>();
+        List<Tuple> ingredientRows = entityManager.createQuery(
+                        "SELECT r.id, i.name FROM Recipe r JOIN r.ingredients i WHERE r.id IN :ids", Tuple.class)
+                .setParameter("ids", ids)
+                .getResultList();
+        for (Tuple row : ingredientRows) {
+            ingredients.computeIfAbsent(row.get(0, UUID.class), key -> new HashSet<>()).add(row.get(1, String.class));
+        }
+
+        Map<UUID, RecipeFacetState> states = new HashMap<>();
+        for (Object[] row : rows) {
+            UUID id = (UUID) row[0];
+            states.put(id, new RecipeFacetState((Boolean) row[1], (Integer) row[2],
+                    Set.copyOf(ingredients.getOrDefault(id, Set.of()))));
+        }
+        return states;
+    }
+}
@@ -0,0 +1,154 @@
+package org.recime.recipes.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeFacetState;
+import org.recime.recipes.dto.RecipeFacets;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.repository.RecipeRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Facet counts of the whole catalogue, kept whether or not the search index is enabled. They are
+ * counted from the database on first use; after that each committed change adds the recipe's new
+ * state and takes off the state its event carries from before the change, so an unfiltered facet
+ * request only reads counters. Ingredients are also kept sorted by use, so the top ones are read off
+ * the front.
+ * <p>
+ * A change published without its previous state cannot be undone exactly, so it marks the counts
+ * stale and the next request counts again. As with the search index rebuild, a change that commits
+ * while the counts are read may be counted twice until then.
+ */
+@Slf4j
+@Component
+public class CatalogueFacetCounts {
+
+    private static final Comparator<Map.Entry<String, Long>> MOST_USED_FIRST =
+            Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry::getKey);
+
+    private final RecipeRepository recipeRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Long> byServings = new HashMap<>();
+    private final Map<String, Long> byIngredient = new HashMap<>();
+    private final NavigableSet<Map.Entry<String, Long>> ingredientsByUse = new TreeSet<>(MOST_USED_FIRST);
+    private long total;
+    private long vegetarian;
+    private boolean counted;
+
+    public CatalogueFacetCounts(RecipeRepository recipeRepository) {
+        this.recipeRepository = recipeRepository;
+    }
+
+    public RecipeFacets facets() {
+        lock.readLock().lock();
+        try {
+            if (counted) {
+                return snapshot();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!counted) {
+                recount();
+            }
+            return snapshot();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (!counted) {
+                return;
+            }
+            if (event.getType() != RecipeChangedEvent.ChangeType.CREATED) {
+                RecipeFacetState previous = event.getPrevious();
+                if (previous == null) {
+                    counted = false;
+                    return;
+                }
+                count(previous, -1);
+            }
+            RecipeDto recipe = event.getRecipe();
+            if (recipe != null) {
+                count(RecipeFacetState.of(recipe), 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void recount() {
+        total = 0;
+        vegetarian = 0;
+        byServings.clear();
+        byIngredient.clear();
+        ingredientsByUse.clear();
+
+        for (RecipeRepository.FlagCount row : recipeRepository.countByFlags()) {
+            total += row.getRecipes();
+            if (row.isVegetarian()) {
+                vegetarian += row.getRecipes();
+            }
+            byServings.merge(row.getServings(), row.getRecipes(), Long::sum);
+        }
+        for (RecipeRepository.IngredientCount row : recipeRepository.countByIngredient()) {
+            countIngredient(row.getIngredient(), row.getRecipes());
+        }
+        counted = true;
+        log.debug("Counted catalogue facets over {} recipes", total);
+    }
+
+    private void count(RecipeFacetState state, int delta) {
+        total += delta;
+        if (state.isVegetarian()) {
+            vegetarian += delta;
+        }
+        byServings.merge(state.getServings(), (long) delta, (count, change) -> count + change == 0 ? null : count + change);
+        for (String ingredient : state.getIngredients()) {
+            countIngredient(ingredient, delta);
+        }
+    }
+
+    private void countIngredient(String ingredient, long delta) {
+        Long previous = byIngredient.get(ingredient);
+        if (previous != null) {
+            ingredientsByUse.remove(Map.entry(ingredient, previous));
+        }
+        long count = (previous == null ? 0 : previous) + delta;
+        if (count > 0) {
+            byIngredient.put(ingredient, count);
+            ingredientsByUse.add(Map.entry(ingredient, count));
+        } else {
+            byIngredient.remove(ingredient);
+        }
+    }
+
+    private RecipeFacets snapshot() {
+        Map<String, Long> ingredients = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : ingredientsByUse) {
+            if (ingredients.size() == RecipeFacets.TOP_INGREDIENTS) {
+                break;
+            }
+            ingredients.put(entry.getKey(), entry.getValue());
+        }
+        return RecipeFacets.of(total, vegetarian, byServings, ingredients);
+    }
+}
@@ -0,0 +1,82 @@
+package org.recime.recipes.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.recime.recipes.dto.RecipeFacetState;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.model.Ingredient;
+import org.recime.recipes.model.Recipe;
+import org.recime.recipes.repository.IngredientRepository;
+import org.recime.recipes.repository.RecipeRepository;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Merges dictionary entries stored under a name that is no longer canonical, after the normalization
+ * rules or the synonym table changed, into the entry for their current canonical name. Runs before
+ * the application is ready, so the search index is built from the merged dictionary.
+ * <p>
+ * Every recipe using a merged entry gets a new version and is published as updated, so caches, the
+ * outbox and the catalogue ETag see the rename like any other edit.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "recipes.ingredients.canonicalize-on-startup")
+@RequiredArgsConstructor
+public class IngredientCanonicalizer implements ApplicationRunner {
+
+    private final IngredientRepository ingredientRepository;
+    private final IngredientDictionary ingredientDictionary;
+    private final RecipeRepository recipeRepository;
+    private final RecipeConverter recipeConverter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        canonicalize();
+    }
+
+    /**
+     * @return the number of entries merged
+     */
+    @Transactional
+    public int canonicalize() {
+        List<Ingredient> stale = ingredientRepository.findAll().stream()
+                .filter(ingredient -> !Ingredient.normalizeName(ingredient.getName()).equals(ingredient.getName()))
+                .toList();
+        if (stale.isEmpty()) {
+            return 0;
+        }
+
+        List<UUID> affected = ingredientRepository.findRecipeIdsByIngredientIdIn(
+                stale.stream().map(Ingredient::getId).toList());
+        // Locked before the merge rewrites their ingredient rows, and read for the change events
+        Map<UUID, RecipeFacetState> previous = recipeRepository.lockFacetStates(affected);
+        Map<String, Ingredient> canonical = ingredientDictionary.intern(stale.stream().map(Ingredient::getName).toList());
+        for (Ingredient ingredient : stale) {
+            Ingredient target = canonical.get(Ingredient.normalizeName(ingredient.getName()));
+            ingredientRepository.copyRecipeIngredients(ingredient.getId(), target.getId());
+            ingredientRepository.deleteRecipeIngredients(ingredient.getId());
+            ingredientRepository.deleteIngredient(ingredient.getId());
+            log.info("Merged ingredient '{}' into '{}'", ingredient.getName(), target.getName());
+        }
+        ingredientDictionary.evict(stale.stream().map(Ingredient::getName).toList());
+
+        if (!affected.isEmpty()) {
+            recipeRepository.touchRecipesByIdIn(affected, Recipe.timestamp());
+            // Loaded after the merge, so each event carries the recipe's new ingredients and version
+            recipeRepository.findAllById(affected).forEach(recipe -> eventPublisher.publishEvent(
+                    RecipeChangedEvent.updated(previous.get(recipe.getId()), recipeConverter.mapToDto(recipe))));
+        }
+        return stale.size();
+    }
+}
@@ -0,0 +1,118 @@
+package org.recime.recipes.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.recime.recipes.model.Ingredient;
+import org.recime.recipes.repository.IngredientRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Resolves ingredient names to their dictionary entries. Entries are immutable and only deleted when
+ * {@link IngredientCanonicalizer} merges them into their canonical entry, which {@link #evict evicts}
+ * them. Otherwise they are cached in process without invalidation and only names not seen before
+ * reach the database.
+ * <p>
+ * Cached entries are detached; recipes only need their ids to write {@code recipe_ingredients} rows.
+ * Entries read inside a transaction are cached once it commits, so an entry the transaction added
+ * and then rolled back never reaches the cache.
+ */
+@Component
+public class IngredientDictionary {
+
+    private final IngredientRepository ingredientRepository;
+    private final Cache<String, Ingredient> cache;
+
+    public IngredientDictionary(
+            IngredientRepository ingredientRepository,
+            @Value("${recipes.ingredient-cache.maximum-size:100000}") long maximumSize) {
+        this.ingredientRepository = ingredientRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * Returns the known ingredients among {@code names}, keyed by normalized name. Names not in the
+     * dictionary are left out; no recipe can contain them.
+     */
+    public Map<String, Ingredient> lookup(Collection<String> names) {
+        Map<String, Ingredient> ingredients = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String name : names) {
+            String normalized = Ingredient.normalizeName(name);
+            Ingredient ingredient = cache.getIfPresent(normalized);
+            if (ingredient != null) {
+                ingredients.put(normalized, ingredient);
+            } else {
+                missing.add(normalized);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, Ingredient> loaded = new HashMap<>();
+            ingredientRepository.findByNameIn(missing).forEach(ingredient -> loaded.put(ingredient.getName(), ingredient));
+            cache(loaded);
+            ingredients.putAll(loaded);
+        }
+        return ingredients;
+    }
+
+    /**
+     * Like {@link #lookup}, but adds the names that are not in the dictionary yet, in the caller's
+     * transaction. Names are added in sorted order, so two transactions adding overlapping names wait
+     * for each other in the same order and cannot deadlock.
+     */
+    @Transactional
+    public Map<String, Ingredient> intern(Collection<String> names) {
+        Map<String, Ingredient> ingredients = lookup(names);
+        Set<String> missing = new TreeSet<>();
+        for (String name : names) {
+            String normalized = Ingredient.normalizeName(name);
+            if (!ingredients.containsKey(normalized)) {
+                missing.add(normalized);
+            }
+        }
+        if (!missing.isEmpty()) {
+            missing.forEach(ingredientRepository::insertIfAbsent);
+            Map<String, Ingredient> added = new HashMap<>();
+            ingredientRepository.findByNameIn(missing).forEach(ingredient -> added.put(ingredient.getName(), ingredient));
+            cache(added);
+            ingredients.putAll(added);
+        }
+        return ingredients;
+    }
+
+    /**
+     * Drops the entries the caller's transaction deletes, once it commits.
+     */
+    public void evict(Collection<String> names) {
+        afterCommit(() -> cache.invalidateAll(names));
+    }
+
+    private void cache(Map<String, Ingredient> ingredients) {
+        afterCommit(() -> cache.putAll(ingredients));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
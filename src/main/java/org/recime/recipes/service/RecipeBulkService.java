@@ -0,0 +1,302 @@
+package org.recime.recipes.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.recime.recipes.dto.BulkItemResult;
+import org.recime.recipes.dto.RecipeFacetState;
+import org.recime.recipes.dto.RecipeRequest;
+import org.recime.recipes.dto.RecipeSearchRequest;
+import org.recime.recipes.dto.RecipeSummary;
+import org.recime.recipes.dto.RecipeUpdateItem;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.exception.MalformedBulkItemException;
+import org.recime.recipes.exception.MissingFilterException;
+import org.recime.recipes.model.Ingredient;
+import org.recime.recipes.model.Recipe;
+import org.recime.recipes.repository.RecipeRepository;
+import org.recime.recipes.repository.RecipeSpecifications;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Bulk writes for feed imports. Items are validated one by one, then written in chunks, each in its
+ * own transaction, so Hibernate can send the chunk's inserts, updates and deletes as JDBC batches
+ * and a failing chunk does not roll back the ones before it. An item the source could not read is
+ * reported as failed and the rest of the import goes on.
+ */
+@Slf4j
+@Service
+public class RecipeBulkService {
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeConverter recipeConverter;
+    private final IngredientDictionary ingredientDictionary;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public RecipeBulkService(
+            RecipeRepository recipeRepository,
+            RecipeConverter recipeConverter,
+            IngredientDictionary ingredientDictionary,
+            Validator validator,
+            EntityManager entityManager,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            @Value("${recipes.bulk.chunk-size:500}") int chunkSize) {
+        this.recipeRepository = recipeRepository;
+        this.recipeConverter = recipeConverter;
+        this.ingredientDictionary = ingredientDictionary;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public List<BulkItemResult> createRecipes(Iterator<RecipeRequest> requests) {
+        return process(requests, this::validate, this::createChunk);
+    }
+
+    public List<BulkItemResult> updateRecipes(Iterator<RecipeUpdateItem> items) {
+        return process(items, this::validate, this::updateChunk);
+    }
+
+    public List<BulkItemResult> deleteRecipes(Iterator<UUID> ids) {
+        return process(ids, id -> id == null ? Map.of("id", "Id is required") : Map.of(), this::deleteChunk);
+    }
+
+    /**
+     * Deletes every recipe matching the criteria of {@code searchRequest}, ignoring its page and size.
+     * Each chunk takes one query for the next ids, then in its own transaction locks them, reads their
+     * facet fields for the change events and deletes them with one DELETE, so a large cleanup neither
+     * holds the whole id list nor one long transaction.
+     *
+     * @return the number of recipes deleted
+     * @throws MissingFilterException if the request's criteria narrow nothing and would delete the whole catalogue
+     */
+    public long deleteMatching(RecipeSearchRequest searchRequest) {
+        if (!searchRequest.hasCriteria()) {
+            throw new MissingFilterException();
+        }
+        List<Specification<Recipe>> constraints = RecipeSpecifications.constraints(searchRequest,
+                ingredientDictionary.lookup(searchRequest.ingredientNames()));
+        // Criteria that narrow nothing, such as excluding only unknown ingredients, would match every recipe
+        if (constraints.isEmpty()) {
+            throw new MissingFilterException();
+        }
+        Specification<Recipe> specification = Specification.allOf(constraints);
+        // Deleted rows drop out of the result, so the next chunk is always the first page again
+        Pageable firstChunk = PageRequest.of(0, chunkSize, Sort.by("id"));
+
+        long deleted = 0;
+        while (true) {
+            List<UUID> ids = recipeRepository.findSummaries(specification, firstChunk).stream()
+                    .map(RecipeSummary::getId)
+                    .collect(Collectors.toList());
+            if (ids.isEmpty()) {
+                return deleted;
+            }
+            deleted += transactionTemplate.execute(status -> {
+                Map<UUID, RecipeFacetState> existing = recipeRepository.lockFacetStates(ids);
+                if (existing.isEmpty()) {
+                    return 0;
+                }
+                int count = recipeRepository.deleteRecipesByIdIn(existing.keySet());
+                existing.forEach((id, previous) -> eventPublisher.publishEvent(RecipeChangedEvent.deleted(id, previous)));
+                return count;
+            });
+            if (ids.size() < chunkSize) {
+                return deleted;
+            }
+        }
+    }
+
+    private <T> List<BulkItemResult> process(
+            Iterator<T> items,
+            Function<T, Map<String, String>> validation,
+            Function<List<Item<T>>, List<BulkItemResult>> writer) {
+        List<BulkItemResult> results = new ArrayList<>();
+        List<Item<T>> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        while (items.hasNext()) {
+            T item;
+            try {
+                item = items.next();
+            } catch (MalformedBulkItemException ex) {
+                results.add(BulkItemResult.builder()
+                        .index(index++)
+                        .status(BulkItemResult.Status.FAILED)
+                        .errors(Map.of("item", String.valueOf(ex.getMessage())))
+                        .build());
+                continue;
+            }
+            Map<String, String> errors = validation.apply(item);
+            if (errors.isEmpty()) {
+                chunk.add(new Item<>(index, item));
+            } else {
+                results.add(BulkItemResult.builder().index(index).status(BulkItemResult.Status.INVALID).errors(errors).build());
+            }
+            index++;
+
+            if (chunk.size() == chunkSize) {
+                results.addAll(writeChunk(chunk, writer));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(writeChunk(chunk, writer));
+        }
+
+        results.sort(Comparator.comparingInt(BulkItemResult::getIndex));
+        return results;
+    }
+
+    private <T> List<BulkItemResult> writeChunk(List<Item<T>> chunk, Function<List<Item<T>>, List<BulkItemResult>> writer) {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<BulkItemResult> results = writer.apply(chunk);
+                // Flush the whole chunk as JDBC batches, then drop it from the persistence context
+                entityManager.flush();
+                entityManager.clear();
+                return results;
+            });
+        } catch (DataAccessException | PersistenceException | TransactionException ex) {
+            log.warn("Bulk chunk of {} items starting at index {} failed", chunk.size(), chunk.get(0).index(), ex);
+            return chunk.stream()
+                    .map(item -> BulkItemResult.builder()
+                            .index(item.index())
+                            .status(BulkItemResult.Status.FAILED)
+                            .errors(Map.of("chunk", String.valueOf(NestedExceptionUtils.getMostSpecificCause(ex).getMessage())))
+                            .build())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private List<BulkItemResult> createChunk(List<Item<RecipeRequest>> chunk) {
+        Map<String, Ingredient> dictionary = intern(chunk.stream().map(Item::value));
+
+        List<BulkItemResult> results = new ArrayList<>(chunk.size());
+        for (Item<RecipeRequest> item : chunk) {
+            // Ids are generated in-process, so persisting only queues the INSERT until the flush
+            Recipe recipe = recipeRepository.save(recipeConverter.mapRequestToRecipe(item.value(), dictionary));
+            eventPublisher.publishEvent(RecipeChangedEvent.created(recipeConverter.mapToDto(recipe)));
+            results.add(success(item.index(), recipe.getId(), BulkItemResult.Status.CREATED));
+        }
+        return results;
+    }
+
+    private List<BulkItemResult> updateChunk(List<Item<RecipeUpdateItem>> chunk) {
+        Map<UUID, Recipe> existing = findAllById(chunk.stream().map(item -> item.value().getId()).collect(Collectors.toList()));
+        Map<String, Ingredient> dictionary = intern(chunk.stream().map(item -> item.value().getRecipe()));
+
+        List<BulkItemResult> results = new ArrayList<>(chunk.size());
+        // Each recipe is published once, with its state from before the chunk, even if listed twice
+        Map<UUID, RecipeFacetState> previous = new LinkedHashMap<>();
+        for (Item<RecipeUpdateItem> item : chunk) {
+            Recipe recipe = existing.get(item.value().getId());
+            if (recipe == null) {
+                results.add(notFound(item.index(), item.value().getId()));
+                continue;
+            }
+            previous.computeIfAbsent(recipe.getId(), id -> recipeConverter.mapToFacetState(recipe));
+            recipeConverter.updateRecipeFromRequest(recipe, item.value().getRecipe(), dictionary);
+            results.add(success(item.index(), recipe.getId(), BulkItemResult.Status.UPDATED));
+        }
+        // Flush before mapping, so the events carry the incremented versions and new modification times
+        List<Recipe> updated = previous.keySet().stream().map(existing::get).collect(Collectors.toList());
+        for (Recipe recipe : recipeRepository.saveAllAndFlush(updated)) {
+            eventPublisher.publishEvent(RecipeChangedEvent.updated(previous.get(recipe.getId()),
+                    recipeConverter.mapToDto(recipe)));
+        }
+        return results;
+    }
+
+    private List<BulkItemResult> deleteChunk(List<Item<UUID>> chunk) {
+        // Only the facet fields are read, under a row lock, for the change events; no entity is loaded
+        Map<UUID, RecipeFacetState> existing = recipeRepository.lockFacetStates(
+                chunk.stream().map(Item::value).collect(Collectors.toSet()));
+        if (!existing.isEmpty()) {
+            recipeRepository.deleteRecipesByIdIn(existing.keySet());
+        }
+
+        Set<UUID> notYetReported = new HashSet<>(existing.keySet());
+        List<BulkItemResult> results = new ArrayList<>(chunk.size());
+        for (Item<UUID> item : chunk) {
+            if (!notYetReported.remove(item.value())) {
+                results.add(notFound(item.index(), item.value()));
+                continue;
+            }
+            eventPublisher.publishEvent(RecipeChangedEvent.deleted(item.value(), existing.get(item.value())));
+            results.add(success(item.index(), item.value(), BulkItemResult.Status.DELETED));
+        }
+        return results;
+    }
+
+    /**
+     * Resolves the ingredients of a whole chunk at once.
+     */
+    private Map<String, Ingredient> intern(Stream<RecipeRequest> requests) {
+        return ingredientDictionary.intern(requests
+                .flatMap(request -> request.getIngredients().stream())
+                .collect(Collectors.toSet()));
+    }
+
+    private Map<UUID, Recipe> findAllById(List<UUID> ids) {
+        Map<UUID, Recipe> recipes = new HashMap<>();
+        recipeRepository.findAllById(ids).forEach(recipe -> recipes.put(recipe.getId(), recipe));
+        return recipes;
+    }
+
+    private <T> Map<String, String> validate(T item) {
+        Set<ConstraintViolation<T>> violations = validator.validate(item);
+        Map<String, String> errors = new HashMap<>();
+        violations.forEach(violation -> errors.put(violation.getPropertyPath().toString(), violation.getMessage()));
+        return errors;
+    }
+
+    private static BulkItemResult success(int index, UUID id, BulkItemResult.Status status) {
+        return BulkItemResult.builder().index(index).id(id).status(status).build();
+    }
+
+    private static BulkItemResult notFound(int index, UUID id) {
+        return BulkItemResult.builder()
+                .index(index)
+                .id(id)
+                .status(BulkItemResult.Status.NOT_FOUND)
+                .errors(Map.of("id", "Recipe not found with id: " + id))
+                .build();
+    }
+
+    private record Item<T>(int index, T value) {
+    }
+}
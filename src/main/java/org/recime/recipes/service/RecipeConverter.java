@@ -1,10 +1,20 @@
 package org.recime.recipes.service;
 
 import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeFacetState;
+import org.recime.recipes.dto.RecipePatch;
 import org.recime.recipes.dto.RecipeRequest;
+import org.recime.recipes.dto.RecipeSummary;
+import org.recime.recipes.model.Ingredient;
 import org.recime.recipes.model.Recipe;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 @Component
 public class RecipeConverter {
 
@@ -13,32 +23,100 @@ public class RecipeConverter {
                 .id(recipe.getId())
                 .title(recipe.getTitle())
                 .description(recipe.getDescription())
-                .ingredients(recipe.getIngredients())
+                .ingredients(recipe.getIngredients().stream().map(Ingredient::getName).collect(Collectors.toList()))
                 .instructions(recipe.getInstructions())
                 .vegetarian(recipe.isVegetarian())
                 .servings(recipe.getServings())
                 .createdAt(recipe.getCreatedAt())
                 .updatedAt(recipe.getUpdatedAt())
+                .version(recipe.getVersion())
+                .build();
+    }
+
+    /**
+     * The recipe's facet fields as they are now; taken before a change, for the change event.
+     */
+    public RecipeFacetState mapToFacetState(Recipe recipe) {
+        return new RecipeFacetState(recipe.isVegetarian(), recipe.getServings(),
+                recipe.getIngredients().stream().map(Ingredient::getName).collect(Collectors.toUnmodifiableSet()));
+    }
+
+    /**
+     * Maps the light columns only; description, instructions and ingredients stay {@code null}.
+     */
+    public RecipeDto mapToDto(RecipeSummary summary) {
+        return RecipeDto.builder()
+                .id(summary.getId())
+                .title(summary.getTitle())
+                .vegetarian(summary.isVegetarian())
+                .servings(summary.getServings())
+                .createdAt(summary.getCreatedAt())
+                .updatedAt(summary.getUpdatedAt())
                 .build();
     }
 
-    public Recipe mapRequestToRecipe(RecipeRequest recipeRequest) {
+    /**
+     * @param dictionary the request's ingredients interned by {@link IngredientDictionary#intern}
+     */
+    public Recipe mapRequestToRecipe(RecipeRequest recipeRequest, Map<String, Ingredient> dictionary) {
         return Recipe.builder()
                 .title(recipeRequest.getTitle())
                 .description(recipeRequest.getDescription())
-                .ingredients(recipeRequest.getIngredients())
+                .ingredients(ingredients(recipeRequest.getIngredients(), dictionary))
                 .instructions(recipeRequest.getInstructions())
                 .vegetarian(recipeRequest.isVegetarian())
                 .servings(recipeRequest.getServings())
                 .build();
     }
 
-    public void updateRecipeFromRequest(Recipe recipe, RecipeRequest recipeRequest) {
+    public void updateRecipeFromRequest(Recipe recipe, RecipeRequest recipeRequest, Map<String, Ingredient> dictionary) {
         recipe.setTitle(recipeRequest.getTitle());
         recipe.setDescription(recipeRequest.getDescription());
-        recipe.setIngredients(recipeRequest.getIngredients());
+        replaceIngredients(recipe, ingredients(recipeRequest.getIngredients(), dictionary));
         recipe.setInstructions(recipeRequest.getInstructions());
         recipe.setVegetarian(recipeRequest.isVegetarian());
         recipe.setServings(recipeRequest.getServings());
     }
-}
\ No newline at end of file
+
+    /**
+     * Copies only the fields present in the patch; the ingredients are left untouched unless the patch
+     * replaces them.
+     *
+     * @param dictionary the patch's ingredients interned by {@link IngredientDictionary#intern}
+     */
+    public void patchRecipe(Recipe recipe, RecipePatch patch, Map<String, Ingredient> dictionary) {
+        RecipeRequest values = patch.getValues();
+        if (patch.has(RecipePatch.TITLE)) {
+            recipe.setTitle(values.getTitle());
+        }
+        if (patch.has(RecipePatch.DESCRIPTION)) {
+            recipe.setDescription(values.getDescription());
+        }
+        if (patch.has(RecipePatch.INGREDIENTS)) {
+            replaceIngredients(recipe, ingredients(values.getIngredients(), dictionary));
+        }
+        if (patch.has(RecipePatch.INSTRUCTIONS)) {
+            recipe.setInstructions(values.getInstructions());
+        }
+        if (patch.has(RecipePatch.VEGETARIAN)) {
+            recipe.setVegetarian(values.isVegetarian());
+        }
+        if (patch.has(RecipePatch.SERVINGS)) {
+            recipe.setServings(values.getServings());
+        }
+    }
+
+    private static void replaceIngredients(Recipe recipe, Set<Ingredient> ingredients) {
+        // Change the set in place so only the added and removed recipe_ingredients rows are written
+        recipe.getIngredients().retainAll(ingredients);
+        recipe.getIngredients().addAll(ingredients);
+    }
+
+    private static Set<Ingredient> ingredients(List<String> names, Map<String, Ingredient> dictionary) {
+        Set<Ingredient> ingredients = new LinkedHashSet<>();
+        for (String name : names) {
+            ingredients.add(dictionary.get(Ingredient.normalizeName(name)));
+        }
+        return ingredients;
+    }
+}
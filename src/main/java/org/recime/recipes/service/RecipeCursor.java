@@ -0,0 +1,47 @@
+package org.recime.recipes.service;
+
+import lombok.Value;
+import org.recime.recipes.dto.RecipeSummary;
+import org.recime.recipes.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position on {@code (created_at, id)}, serialized as an opaque URL-safe token.
+ */
+@Value
+public class RecipeCursor {
+
+    private static final String SEPARATOR = "|";
+
+    LocalDateTime createdAt;
+    UUID id;
+
+    public static RecipeCursor of(RecipeSummary recipe) {
+        return new RecipeCursor(recipe.getCreatedAt(), recipe.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RecipeCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidCursorException(token);
+            }
+            return new RecipeCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new InvalidCursorException(token);
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package org.recime.recipes.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.recime.recipes.dto.PantryCoverage;
+import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeFacets;
+import org.recime.recipes.dto.RecipeSearchRequest;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.model.Ingredient;
+import org.recime.recipes.repository.RecipeRepository;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-memory inverted index answering the scalar and ingredient parts of a search.
+ * <p>
+ * Each recipe gets an ordinal in creation order, and every ingredient, servings value and the
+ * vegetarian flag map to a compressed bitmap of ordinals, so include is an AND, exclude an ANDNOT
+ * and the result is already in {@code (created_at, id)} order. Only the ids of the requested page
+ * are handed back for hydration from the database. Deletes leave holes in the ordinals, which are
+ * closed by renumbering once they outnumber the live recipes.
+ * <p>
+ * Each distinct ingredient name is held once, as the key of its bitmap; recipes only keep an array
+ * of references to those keys, needed to unindex them.
+ */
+@Slf4j
+@Component
+public class RecipeSearchIndex {
+
+    /**
+     * Higher coverage first, then fewer missing ingredients, then creation order.
+     */
+    private static final Comparator<ScoredRecipe> BEST_COVERAGE_FIRST = (a, b) -> {
+        // matched / total compared exactly by cross-multiplying
+        int byCoverage = Long.compare(
+                (long) b.matchedCount() * a.ingredientCount(), (long) a.matchedCount() * b.ingredientCount());
+        if (byCoverage != 0) {
+            return byCoverage;
+        }
+        int byMissing = Integer.compare(a.ingredientCount() - a.matchedCount(), b.ingredientCount() - b.matchedCount());
+        return byMissing != 0 ? byMissing : Integer.compare(a.ordinal(), b.ordinal());
+    };
+
+    /**
+     * Fewest freed ordinals worth renumbering for, so small catalogues are not compacted on every delete.
+     */
+    static final int COMPACTION_MIN_FREED = 1024;
+
+    private static final Comparator<Map.Entry<String, Integer>> MOST_USED_FIRST =
+            Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry::getKey);
+
+    private final RecipeRepository recipeRepository;
+    private final boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<UUID, Integer> ordinalById = new HashMap<>();
+    private final List<IndexedRecipe> recipesByOrdinal = new ArrayList<>();
+    private final Map<String, RoaringBitmap> byIngredient = new HashMap<>();
+    /**
+     * Each indexed ingredient name to the one instance shared by its bitmap key and the recipes using it.
+     */
+    private final Map<String, String> ingredientNames = new HashMap<>();
+    private final Map<Integer, RoaringBitmap> byServings = new HashMap<>();
+    private final RoaringBitmap vegetarian = new RoaringBitmap();
+    private final RoaringBitmap live = new RoaringBitmap();
+    private volatile boolean ready;
+
+    public RecipeSearchIndex(
+            RecipeRepository recipeRepository,
+            @Value("${recipes.search-index.enabled:false}") boolean enabled) {
+        this.recipeRepository = recipeRepository;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Instruction text is not indexed, so such searches always go to the database.
+     */
+    public boolean canAnswer(RecipeSearchRequest searchRequest) {
+        return ready && (searchRequest.getInstructionText() == null || searchRequest.getInstructionText().isBlank());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ordinalById.clear();
+            recipesByOrdinal.clear();
+            byIngredient.clear();
+            ingredientNames.clear();
+            byServings.clear();
+            vegetarian.clear();
+            live.clear();
+
+            try (Stream<RecipeRepository.IndexRow> rows = recipeRepository.streamIndexRows()) {
+                rows.forEach(row -> index(recipesByOrdinal.size(), row.getId(), row.isVegetarian(), row.getServings(),
+                        Set.of()));
+            }
+            try (Stream<RecipeRepository.IngredientRow> rows = recipeRepository.streamIngredientRows()) {
+                rows.forEach(row -> {
+                    Integer ordinal = ordinalById.get(row.getRecipeId());
+                    if (ordinal != null) {
+                        byIngredient.computeIfAbsent(internName(row.getIngredient()), key -> new RoaringBitmap()).add(ordinal);
+                    }
+                });
+            }
+            attachIngredients();
+
+            byIngredient.values().forEach(RoaringBitmap::runOptimize);
+            byServings.values().forEach(RoaringBitmap::runOptimize);
+            vegetarian.runOptimize();
+            live.runOptimize();
+            ready = true;
+            log.info("Recipe search index built with {} recipes and {} ingredients",
+                    live.getCardinality(), byIngredient.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalById.get(event.getRecipeId());
+            if (ordinal != null) {
+                unindex(ordinal);
+            }
+            RecipeDto recipe = event.getRecipe();
+            if (recipe == null) {
+                ordinalById.remove(event.getRecipeId());
+                if (ordinal != null) {
+                    recipesByOrdinal.set(ordinal, null);
+                    int freed = recipesByOrdinal.size() - live.getCardinality();
+                    if (freed >= COMPACTION_MIN_FREED && freed > live.getCardinality()) {
+                        compact();
+                    }
+                }
+            } else {
+                // Updates keep their ordinal so results stay in creation order
+                Set<String> ingredients = new HashSet<>();
+                recipe.getIngredients().forEach(ingredient -> ingredients.add(Ingredient.normalizeName(ingredient)));
+                index(ordinal != null ? ordinal : recipesByOrdinal.size(), recipe.getId(), recipe.isVegetarian(),
+                        recipe.getServings(), ingredients);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the requested page of matches, in creation order.
+     */
+    public List<UUID> search(RecipeSearchRequest searchRequest) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = matching(searchRequest);
+
+            int offset = 0;
+            int limit = Integer.MAX_VALUE;
+            if (searchRequest.getSize() != null) {
+                int page = searchRequest.getPage() == null ? 0 : searchRequest.getPage();
+                offset = page * searchRequest.getSize();
+                limit = searchRequest.getSize();
+            }
+            if (offset >= matches.getCardinality()) {
+                return new ArrayList<>();
+            }
+
+            List<UUID> ids = new ArrayList<>(Math.min(limit, matches.getCardinality() - offset));
+            PeekableIntIterator ordinals = matches.getIntIterator();
+            // Jump straight to the first ordinal of the page instead of walking the skipped ones
+            ordinals.advanceIfNeeded(matches.select(offset));
+            while (ordinals.hasNext() && ids.size() < limit) {
+                ids.add(recipesByOrdinal.get(ordinals.next()).id());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The {@code limit} recipes best covered by the pantry, missing at most {@code maxMissing}
+     * ingredients. Candidates are the union of the pantry's ingredient bitmaps; each one is scored by
+     * how many of those bitmaps contain it and offered to a min-heap of size {@code limit}, so the
+     * cost grows with the number of candidates and only logarithmically with {@code limit}.
+     */
+    public List<PantryCoverage> topByCoverage(Collection<String> pantry, int maxMissing, Boolean isVegetarian,
+                                              Integer servings, int limit) {
+        lock.readLock().lock();
+        try {
+            Set<String> pantryNames = new HashSet<>();
+            pantry.forEach(name -> pantryNames.add(Ingredient.normalizeName(name)));
+
+            List<RoaringBitmap> pantryRecipes = new ArrayList<>(pantryNames.size());
+            RoaringBitmap candidates = new RoaringBitmap();
+            for (String name : pantryNames) {
+                RoaringBitmap recipes = byIngredient.get(name);
+                if (recipes != null) {
+                    pantryRecipes.add(recipes);
+                    candidates.or(recipes);
+                }
+            }
+            if (servings != null) {
+                candidates.and(byServings.getOrDefault(servings, new RoaringBitmap()));
+            }
+            if (isVegetarian != null) {
+                if (isVegetarian) {
+                    candidates.and(vegetarian);
+                } else {
+                    candidates.andNot(vegetarian);
+                }
+            }
+
+            // The worst of the best so far sits at the head, ready to be displaced
+            PriorityQueue<ScoredRecipe> best = new PriorityQueue<>(limit + 1, BEST_COVERAGE_FIRST.reversed());
+            PeekableIntIterator ordinals = candidates.getIntIterator();
+            while (ordinals.hasNext()) {
+                int ordinal = ordinals.next();
+                int ingredientCount = recipesByOrdinal.get(ordinal).ingredients().length;
+                int matched = 0;
+                for (RoaringBitmap recipes : pantryRecipes) {
+                    if (recipes.contains(ordinal)) {
+                        matched++;
+                    }
+                }
+                if (ingredientCount - matched > maxMissing) {
+                    continue;
+                }
+                best.offer(new ScoredRecipe(ordinal, ingredientCount, matched));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+
+            List<ScoredRecipe> ranked = new ArrayList<>(best);
+            ranked.sort(BEST_COVERAGE_FIRST);
+            List<PantryCoverage> coverages = new ArrayList<>(ranked.size());
+            for (ScoredRecipe recipe : ranked) {
+                coverages.add(new PantryCoverage(recipesByOrdinal.get(recipe.ordinal()).id(),
+                        recipe.ingredientCount(), recipe.matchedCount()));
+            }
+            return coverages;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Facet counts of the recipes matching the search, ignoring its page. Each count is the cardinality
+     * of an intersection with the matches, so no recipe is visited.
+     */
+    public RecipeFacets facets(RecipeSearchRequest searchRequest) {
+        lock.readLock().lock();
+        try {
+            return facetsOf(matching(searchRequest));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RecipeFacets facetsOf(RoaringBitmap matches) {
+        Map<Integer, Long> countsByServings = new HashMap<>();
+        byServings.forEach((servings, recipes) -> {
+            int count = RoaringBitmap.andCardinality(matches, recipes);
+            if (count > 0) {
+                countsByServings.put(servings, (long) count);
+            }
+        });
+
+        // The least used of the top ingredients so far sits at the head, ready to be displaced
+        PriorityQueue<Map.Entry<String, Integer>> top =
+                new PriorityQueue<>(RecipeFacets.TOP_INGREDIENTS + 1, MOST_USED_FIRST.reversed());
+        byIngredient.forEach((ingredient, recipes) -> {
+            int count = RoaringBitmap.andCardinality(matches, recipes);
+            if (count > 0) {
+                top.offer(Map.entry(ingredient, count));
+                if (top.size() > RecipeFacets.TOP_INGREDIENTS) {
+                    top.poll();
+                }
+            }
+        });
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>(top);
+        ranked.sort(MOST_USED_FIRST);
+        Map<String, Long> ingredients = new LinkedHashMap<>();
+        ranked.forEach(entry -> ingredients.put(entry.getKey(), (long) entry.getValue()));
+
+        return RecipeFacets.of(matches.getLongCardinality(), RoaringBitmap.andCardinality(matches, vegetarian),
+                countsByServings, ingredients);
+    }
+
+    private RoaringBitmap matching(RecipeSearchRequest searchRequest) {
+        RoaringBitmap matches;
+        List<String> includes = searchRequest.getIncludeIngredients();
+        if (includes != null && !includes.isEmpty()) {
+            // Intersect the rarest ingredients first so the working set shrinks as early as possible
+            List<RoaringBitmap> required = new ArrayList<>();
+            for (String ingredient : new HashSet<>(includes)) {
+                RoaringBitmap recipes = byIngredient.get(Ingredient.normalizeName(ingredient));
+                if (recipes == null) {
+                    return new RoaringBitmap();
+                }
+                required.add(recipes);
+            }
+            required.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+            matches = required.get(0).clone();
+            for (int i = 1; i < required.size() && !matches.isEmpty(); i++) {
+                matches.and(required.get(i));
+            }
+        } else {
+            matches = live.clone();
+        }
+
+        if (searchRequest.getServings() != null) {
+            RoaringBitmap servings = byServings.get(searchRequest.getServings());
+            if (servings == null) {
+                return new RoaringBitmap();
+            }
+            matches.and(servings);
+        }
+        if (searchRequest.getVegetarian() != null) {
+            if (searchRequest.getVegetarian()) {
+                matches.and(vegetarian);
+            } else {
+                matches.andNot(vegetarian);
+            }
+        }
+        if (searchRequest.getExcludeIngredients() != null) {
+            for (String ingredient : searchRequest.getExcludeIngredients()) {
+                RoaringBitmap recipes = byIngredient.get(Ingredient.normalizeName(ingredient));
+                if (recipes != null) {
+                    matches.andNot(recipes);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private void index(int ordinal, UUID id, boolean isVegetarian, int servings, Set<String> ingredients) {
+        String[] names = new String[ingredients.size()];
+        int i = 0;
+        for (String ingredient : ingredients) {
+            names[i++] = internName(ingredient);
+        }
+        IndexedRecipe recipe = new IndexedRecipe(id, servings, names);
+        if (ordinal == recipesByOrdinal.size()) {
+            recipesByOrdinal.add(recipe);
+        } else {
+            recipesByOrdinal.set(ordinal, recipe);
+        }
+        ordinalById.put(id, ordinal);
+
+        live.add(ordinal);
+        if (isVegetarian) {
+            vegetarian.add(ordinal);
+        }
+        byServings.computeIfAbsent(servings, key -> new RoaringBitmap()).add(ordinal);
+        for (String ingredient : names) {
+            byIngredient.computeIfAbsent(ingredient, key -> new RoaringBitmap()).add(ordinal);
+        }
+    }
+
+    private String internName(String ingredient) {
+        return ingredientNames.computeIfAbsent(ingredient, key -> key);
+    }
+
+    /**
+     * Gives every recipe of a rebuild its ingredient names, read back from the bitmaps: one pass counts
+     * each recipe's ingredients so its array is allocated at its exact size, a second fills them in.
+     */
+    private void attachIngredients() {
+        int[] counts = new int[recipesByOrdinal.size()];
+        byIngredient.values().forEach(recipes -> recipes.forEach((int ordinal) -> counts[ordinal]++));
+        String[][] names = new String[counts.length][];
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            names[ordinal] = new String[counts[ordinal]];
+            counts[ordinal] = 0;
+        }
+        byIngredient.forEach((ingredient, recipes) ->
+                recipes.forEach((int ordinal) -> names[ordinal][counts[ordinal]++] = ingredient));
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            IndexedRecipe recipe = recipesByOrdinal.get(ordinal);
+            recipesByOrdinal.set(ordinal, new IndexedRecipe(recipe.id(), recipe.servings(), names[ordinal]));
+        }
+    }
+
+    private void unindex(int ordinal) {
+        IndexedRecipe recipe = recipesByOrdinal.get(ordinal);
+        live.remove(ordinal);
+        vegetarian.remove(ordinal);
+        removeFrom(byServings, recipe.servings(), ordinal);
+        for (String ingredient : recipe.ingredients()) {
+            removeFrom(byIngredient, ingredient, ordinal);
+            if (!byIngredient.containsKey(ingredient)) {
+                ingredientNames.remove(ingredient);
+            }
+        }
+    }
+
+    /**
+     * Renumbers the live recipes densely, keeping their order, so ordinals and bitmaps stop growing
+     * with the number of deletes. Runs under the write lock and touches no database.
+     */
+    private void compact() {
+        List<IndexedRecipe> recipes = new ArrayList<>(live.getCardinality());
+        live.forEach((int ordinal) -> recipes.add(recipesByOrdinal.get(ordinal)));
+
+        byIngredient.replaceAll((ingredient, bitmap) -> renumbered(bitmap));
+        byServings.replaceAll((servings, bitmap) -> renumbered(bitmap));
+        RoaringBitmap vegetarianRenumbered = renumbered(vegetarian);
+        vegetarian.clear();
+        vegetarian.or(vegetarianRenumbered);
+
+        recipesByOrdinal.clear();
+        recipesByOrdinal.addAll(recipes);
+        ordinalById.clear();
+        for (int ordinal = 0; ordinal < recipes.size(); ordinal++) {
+            ordinalById.put(recipes.get(ordinal).id(), ordinal);
+        }
+        live.clear();
+        live.add(0L, recipes.size());
+        log.debug("Recipe search index compacted to {} recipes", recipes.size());
+    }
+
+    /**
+     * Maps each ordinal to its position among the live ones, which is its ordinal after compaction.
+     */
+    private RoaringBitmap renumbered(RoaringBitmap ordinals) {
+        RoaringBitmap renumbered = new RoaringBitmap();
+        ordinals.forEach((int ordinal) -> renumbered.add((int) live.rank(ordinal) - 1));
+        renumbered.runOptimize();
+        return renumbered;
+    }
+
+    /**
+     * Ordinals handed out and not yet reclaimed, live or freed.
+     */
+    int ordinalCount() {
+        lock.readLock().lock();
+        try {
+            return recipesByOrdinal.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int ordinal) {
+        RoaringBitmap recipes = bitmaps.get(key);
+        if (recipes != null) {
+            recipes.remove(ordinal);
+            if (recipes.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private record IndexedRecipe(UUID id, int servings, String[] ingredients) {
+    }
+
+    private record ScoredRecipe(int ordinal, int ingredientCount, int matchedCount) {
+    }
+}
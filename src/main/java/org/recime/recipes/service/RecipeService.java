@@ -1,111 +1,391 @@
 package org.recime.recipes.service;
 
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.recime.recipes.cache.RecipeCacheConfig;
+import org.recime.recipes.cache.RecipeSearchCache;
+import org.recime.recipes.cache.RecipeSearchKey;
+import org.recime.recipes.dto.PantryCoverage;
+import org.recime.recipes.dto.PantryMatch;
+import org.recime.recipes.dto.PantrySearchRequest;
 import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeFacetState;
+import org.recime.recipes.dto.RecipeFacets;
+import org.recime.recipes.dto.RecipeField;
+import org.recime.recipes.dto.RecipePage;
+import org.recime.recipes.dto.RecipePatch;
 import org.recime.recipes.dto.RecipeRequest;
 import org.recime.recipes.dto.RecipeSearchRequest;
+import org.recime.recipes.dto.RecipeSearchResult;
+import org.recime.recipes.dto.RecipeSummary;
+import org.recime.recipes.dto.RecipeVersion;
+import org.recime.recipes.dto.TextSearchMode;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.exception.InvalidRecipePatchException;
 import org.recime.recipes.exception.RecipeNotFoundException;
+import org.recime.recipes.exception.RecipeVersionMismatchException;
+import org.recime.recipes.model.Ingredient;
 import org.recime.recipes.model.Recipe;
 import org.recime.recipes.repository.RecipeRepository;
+import org.recime.recipes.repository.RecipeSpecifications;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
-@Transactional
+@Transactional(readOnly = true)
 public class RecipeService {
 
+    private static final Sort SEARCH_ORDER = Sort.by("createdAt", "id");
+    private static final int STREAM_PAGE_SIZE = 500;
+    // Keeps the IN lists of the heavy column lookups well below the driver's bind parameter limit
+    private static final int HYDRATION_BATCH_SIZE = 1000;
+
     private final RecipeRepository recipeRepository;
     private final RecipeConverter recipeConverter;
+    private final IngredientDictionary ingredientDictionary;
+    private final RecipeSearchIndex searchIndex;
+    private final RecipeSearchCache searchCache;
+    private final CatalogueFacetCounts catalogueFacetCounts;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
 
-    public List<RecipeDto> getAllRecipes() {
-        return recipeRepository.findAll().stream()
-                .map(recipeConverter::mapToDto)
-                .collect(Collectors.toList());
+    public RecipePage getRecipes(String cursor, int size, Set<RecipeField> fields) {
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<RecipeSummary> summaries;
+        if (cursor == null || cursor.isBlank()) {
+            summaries = recipeRepository.findFirstSummaryPage(pageable);
+        } else {
+            RecipeCursor after = RecipeCursor.decode(cursor);
+            summaries = recipeRepository.findSummaryPageAfter(after.getCreatedAt(), after.getId(), pageable);
+        }
+
+        String nextCursor = null;
+        if (summaries.size() > size) {
+            summaries = summaries.subList(0, size);
+            nextCursor = RecipeCursor.of(summaries.get(size - 1)).encode();
+        }
+        return new RecipePage(toDtos(summaries, fields), nextCursor);
     }
 
+    /**
+     * Walks the catalogue in keyset pages outside a surrounding transaction, so each query holds a
+     * connection only briefly and a slow client does not pin one for the whole stream.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void streamAllRecipes(Set<RecipeField> fields, Consumer<RecipeDto> sink) {
+        String cursor = null;
+        do {
+            RecipePage page = getRecipes(cursor, STREAM_PAGE_SIZE, fields);
+            page.getItems().forEach(sink);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+    }
+
+    @Cacheable(cacheNames = RecipeCacheConfig.RECIPES_CACHE, key = "#id")
     public RecipeDto getRecipeById(UUID id) {
         Recipe recipe = recipeRepository.findById(id)
                 .orElseThrow(() -> new RecipeNotFoundException(id));
         return recipeConverter.mapToDto(recipe);
     }
 
+    /**
+     * Reads only the version and modification time, so conditional requests can be answered without
+     * loading the recipe.
+     */
+    public RecipeVersion getRecipeVersion(UUID id) {
+        return recipeRepository.findVersionById(id)
+                .orElseThrow(() -> new RecipeNotFoundException(id));
+    }
+
+    @Transactional
     public RecipeDto createRecipe(RecipeRequest recipeRequest) {
-        Recipe recipe = recipeConverter.mapRequestToRecipe(recipeRequest);
+        Recipe recipe = recipeConverter.mapRequestToRecipe(recipeRequest,
+                ingredientDictionary.intern(recipeRequest.getIngredients()));
         Recipe savedRecipe = recipeRepository.save(recipe);
-        return recipeConverter.mapToDto(savedRecipe);
+        RecipeDto createdRecipe = recipeConverter.mapToDto(savedRecipe);
+        eventPublisher.publishEvent(RecipeChangedEvent.created(createdRecipe));
+        return createdRecipe;
     }
 
+    @Transactional
     public RecipeDto updateRecipe(UUID id, RecipeRequest recipeRequest) {
         Recipe existingRecipe = recipeRepository.findById(id)
                 .orElseThrow(() -> new RecipeNotFoundException(id));
+        // The version check on flush guarantees this is still the state being replaced
+        RecipeFacetState previous = recipeConverter.mapToFacetState(existingRecipe);
+
+        recipeConverter.updateRecipeFromRequest(existingRecipe, recipeRequest,
+                ingredientDictionary.intern(recipeRequest.getIngredients()));
+
+        // Flush so the response carries the incremented version and the new modification time
+        Recipe updatedRecipe = recipeRepository.saveAndFlush(existingRecipe);
+        RecipeDto recipeDto = recipeConverter.mapToDto(updatedRecipe);
+        eventPublisher.publishEvent(RecipeChangedEvent.updated(previous, recipeDto));
+        return recipeDto;
+    }
+
+    /**
+     * Applies a JSON Merge Patch. Only the changed columns are written. The recipe is read with its
+     * ingredients in one query, as the response carries them, but they are only diffed and written when
+     * the patch replaces them.
+     *
+     * @param expectedVersion the version from {@code If-Match}, or {@code null} for an unconditional patch
+     */
+    @Transactional
+    public RecipeDto patchRecipe(UUID id, RecipePatch patch, Long expectedVersion) {
+        validate(patch);
+        Recipe existingRecipe = recipeRepository.findById(id)
+                .orElseThrow(() -> new RecipeNotFoundException(id));
+        if (expectedVersion != null && existingRecipe.getVersion() != expectedVersion) {
+            throw new RecipeVersionMismatchException(id, "version " + expectedVersion);
+        }
+
+        RecipeFacetState previous = recipeConverter.mapToFacetState(existingRecipe);
+
+        Map<String, Ingredient> dictionary = patch.has(RecipePatch.INGREDIENTS)
+                ? ingredientDictionary.intern(patch.getValues().getIngredients())
+                : Map.of();
+        recipeConverter.patchRecipe(existingRecipe, patch, dictionary);
+
+        Recipe patchedRecipe = recipeRepository.saveAndFlush(existingRecipe);
+        RecipeDto recipeDto = recipeConverter.mapToDto(patchedRecipe);
+        eventPublisher.publishEvent(RecipeChangedEvent.updated(previous, recipeDto));
+        return recipeDto;
+    }
+
+    private void validate(RecipePatch patch) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (String field : patch.getFields()) {
+            validator.validateProperty(patch.getValues(), field)
+                    .forEach(violation -> errors.put(violation.getPropertyPath().toString(), violation.getMessage()));
+        }
+        if (!errors.isEmpty()) {
+            throw new InvalidRecipePatchException(errors);
+        }
+    }
 
-        recipeConverter.updateRecipeFromRequest(existingRecipe, recipeRequest);
+    /**
+     * Conditional update for a client that already knows the recipe's version: one UPDATE guarded by
+     * the version, then set-based writes of the ingredient rows that changed, without loading the
+     * entity. Only the facet fields are read first, under a row lock, for the change event. The
+     * persisted row is read back once for the response and the change event.
+     *
+     * @throws RecipeVersionMismatchException if the recipe has been changed since {@code expectedVersion}
+     *                                        or no longer exists; either way the precondition fails
+     */
+    @Transactional
+    public RecipeDto updateRecipe(UUID id, RecipeRequest recipeRequest, long expectedVersion) {
+        Map<String, Ingredient> dictionary = ingredientDictionary.intern(recipeRequest.getIngredients());
+        RecipeFacetState previous = recipeRepository.lockFacetStates(List.of(id)).get(id);
+        int updated = recipeRepository.updateIfVersionMatches(id, expectedVersion,
+                recipeRequest.getTitle(),
+                recipeRequest.getDescription(),
+                recipeRequest.getInstructions(),
+                recipeRequest.isVegetarian(),
+                recipeRequest.getServings(),
+                Recipe.timestamp());
+        if (updated == 0) {
+            throw new RecipeVersionMismatchException(id, "version " + expectedVersion);
+        }
+
+        Set<Integer> ingredientIds = dictionary.values().stream()
+                .map(Ingredient::getId)
+                .collect(Collectors.toSet());
+        recipeRepository.removeIngredientsNotIn(id, ingredientIds);
+        recipeRepository.addMissingIngredients(id, ingredientIds);
 
-        Recipe updatedRecipe = recipeRepository.save(existingRecipe);
-        return recipeConverter.mapToDto(updatedRecipe);
+        Recipe recipe = recipeRepository.findById(id)
+                .orElseThrow(() -> new RecipeNotFoundException(id));
+        RecipeDto recipeDto = recipeConverter.mapToDto(recipe);
+        eventPublisher.publishEvent(RecipeChangedEvent.updated(previous, recipeDto));
+        return recipeDto;
     }
 
+    /**
+     * Locks the recipe and reads its facet fields for the change event, then deletes it with a single
+     * statement.
+     */
+    @Transactional
     public void deleteRecipe(UUID id) {
-        if (!recipeRepository.existsById(id)) {
+        RecipeFacetState previous = recipeRepository.lockFacetStates(List.of(id)).get(id);
+        if (previous == null || recipeRepository.deleteRecipeById(id) == 0) {
             throw new RecipeNotFoundException(id);
         }
-        recipeRepository.deleteById(id);
+        eventPublisher.publishEvent(RecipeChangedEvent.deleted(id, previous));
     }
 
-    @Transactional(readOnly = true)
-    public List<RecipeDto> searchRecipes(RecipeSearchRequest searchRequest) {
-        List<Recipe> results;
+    public List<RecipeDto> searchRecipes(RecipeSearchRequest searchRequest, Set<RecipeField> fields) {
+        if (searchIndex.canAnswer(searchRequest)) {
+            return findAllInOrder(searchIndex.search(searchRequest), fields);
+        }
 
-        if (!searchRequest.getIncludeIngredients().isEmpty() || !searchRequest.getExcludeIngredients().isEmpty()) {
-            results = searchRecipesWithIngredients(searchRequest);
-        } else {
-            results = recipeRepository.searchRecipes(
-                    searchRequest.getVegetarian(),
-                    searchRequest.getServings(),
-                    searchRequest.getInstructionText()
-            );
+        RecipeSearchKey cacheKey = searchCache.keyFor(searchRequest);
+        List<UUID> cachedIds = searchCache.getIfPresent(cacheKey);
+        if (cachedIds != null) {
+            return findAllInOrder(cachedIds, fields);
         }
 
-        return results.stream()
-                .map(recipeConverter::mapToDto)
-                .collect(Collectors.toList());
+        Specification<Recipe> specification = RecipeSpecifications.matching(searchRequest,
+                ingredientDictionary.lookup(searchRequest.ingredientNames()));
+        Pageable pageable = searchRequest.getSize() == null
+                ? Pageable.unpaged(SEARCH_ORDER)
+                : PageRequest.of(searchRequest.getPage() == null ? 0 : searchRequest.getPage(), searchRequest.getSize(), SEARCH_ORDER);
+
+        // Full-text matches are ordered by rank instead
+        boolean ranked = searchRequest.getTextMode() == TextSearchMode.FULL_TEXT
+                && searchRequest.getInstructionText() != null && !searchRequest.getInstructionText().isBlank();
+        List<RecipeSummary> summaries = ranked
+                ? recipeRepository.findSummariesByRank(specification, searchRequest.getInstructionText(), pageable)
+                : recipeRepository.findSummaries(specification, pageable);
+        searchCache.put(cacheKey, summaries.stream().map(RecipeSummary::getId).collect(Collectors.toList()));
+        return toDtos(summaries, fields);
     }
 
-    private List<Recipe> searchRecipesWithIngredients(RecipeSearchRequest searchRequest) {
-        List<Recipe> results = recipeRepository.searchRecipes(
-                searchRequest.getVegetarian(),
-                searchRequest.getServings(),
-                searchRequest.getInstructionText()
-        );
+    /**
+     * The requested page of results with facet counts over every match.
+     */
+    public RecipeSearchResult searchRecipesWithFacets(RecipeSearchRequest searchRequest, Set<RecipeField> fields) {
+        return new RecipeSearchResult(searchRecipes(searchRequest, fields), facets(searchRequest));
+    }
 
-        if (!searchRequest.getIncludeIngredients().isEmpty()) {
-            results = filterByIncludedIngredients(results, searchRequest.getIncludeIngredients());
+    /**
+     * From the catalogue counters without filters, which every change keeps up to date; from the search
+     * index when it can answer; otherwise from two aggregate queries, cached per filter set until the
+     * next change.
+     */
+    private RecipeFacets facets(RecipeSearchRequest searchRequest) {
+        if (!searchRequest.hasCriteria()) {
+            return catalogueFacetCounts.facets();
+        }
+        if (searchIndex.canAnswer(searchRequest)) {
+            return searchIndex.facets(searchRequest);
         }
 
-        if (!searchRequest.getExcludeIngredients().isEmpty()) {
-            results = filterByExcludedIngredients(results, searchRequest.getExcludeIngredients());
+        RecipeSearchKey cacheKey = searchCache.facetKeyFor(searchRequest);
+        RecipeFacets cached = searchCache.getFacetsIfPresent(cacheKey);
+        if (cached != null) {
+            return cached;
         }
 
-        return results;
+        Specification<Recipe> specification = RecipeSpecifications.matching(searchRequest,
+                ingredientDictionary.lookup(searchRequest.ingredientNames()));
+        RecipeFacets facets = recipeRepository.findFacets(specification, RecipeFacets.TOP_INGREDIENTS);
+        searchCache.putFacets(cacheKey, facets);
+        return facets;
     }
 
-    private List<Recipe> filterByIncludedIngredients(List<Recipe> recipes, List<String> includeIngredients) {
-        return recipes.stream()
-                .filter(recipe -> new HashSet<>(recipe.getIngredients()).containsAll(includeIngredients))
-                .collect(Collectors.toList());
+    /**
+     * Ranks recipes by pantry coverage in one pass, from the search index when it is enabled and
+     * otherwise with a single aggregated query, instead of one search per pantry subset.
+     */
+    public List<PantryMatch> searchByPantry(PantrySearchRequest pantryRequest, Set<RecipeField> fields) {
+        int maxMissing = pantryRequest.getMaxMissing() == null
+                ? PantrySearchRequest.DEFAULT_MAX_MISSING : pantryRequest.getMaxMissing();
+        int limit = pantryRequest.getLimit() == null ? PantrySearchRequest.DEFAULT_LIMIT : pantryRequest.getLimit();
+
+        List<PantryCoverage> coverages;
+        if (searchIndex.isReady()) {
+            coverages = searchIndex.topByCoverage(pantryRequest.getPantry(), maxMissing,
+                    pantryRequest.getVegetarian(), pantryRequest.getServings(), limit);
+        } else {
+            Set<Integer> pantryIds = ingredientDictionary.lookup(pantryRequest.getPantry()).values().stream()
+                    .map(Ingredient::getId)
+                    .collect(Collectors.toSet());
+            if (pantryIds.isEmpty()) {
+                return new ArrayList<>();
+            }
+            coverages = recipeRepository.findTopByPantryCoverage(pantryIds, maxMissing,
+                    pantryRequest.getVegetarian(), pantryRequest.getServings(), PageRequest.of(0, limit));
+        }
+
+        Map<UUID, RecipeDto> recipesById = new HashMap<>();
+        findAllInOrder(coverages.stream().map(PantryCoverage::getRecipeId).collect(Collectors.toList()), fields)
+                .forEach(recipe -> recipesById.put(recipe.getId(), recipe));
+        List<PantryMatch> matches = new ArrayList<>(coverages.size());
+        for (PantryCoverage coverage : coverages) {
+            RecipeDto recipe = recipesById.get(coverage.getRecipeId());
+            // Deleted since it was ranked
+            if (recipe != null) {
+                matches.add(PantryMatch.of(recipe, coverage));
+            }
+        }
+        return matches;
+    }
+
+    private List<RecipeDto> findAllInOrder(List<UUID> ids, Set<RecipeField> fields) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<UUID, RecipeSummary> summariesById = new HashMap<>();
+        for (List<UUID> batch : batches(ids)) {
+            recipeRepository.findSummariesByIdIn(batch).forEach(summary -> summariesById.put(summary.getId(), summary));
+        }
+        return toDtos(ids.stream()
+                .map(summariesById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()), fields);
     }
 
-    private List<Recipe> filterByExcludedIngredients(List<Recipe> recipes, List<String> excludeIngredients) {
-        return recipes.stream()
-                .filter(recipe -> recipe.getIngredients().stream()
-                        .noneMatch(excludeIngredients::contains))
+    /**
+     * Maps summaries to DTOs and loads the requested heavy fields with one query per kind and batch.
+     */
+    private List<RecipeDto> toDtos(List<RecipeSummary> summaries, Set<RecipeField> fields) {
+        List<RecipeDto> recipes = summaries.stream()
+                .map(recipeConverter::mapToDto)
                 .collect(Collectors.toList());
+        if (recipes.isEmpty() || fields.isEmpty()) {
+            return recipes;
+        }
+
+        Map<UUID, RecipeDto> recipesById = new LinkedHashMap<>();
+        recipes.forEach(recipe -> recipesById.put(recipe.getId(), recipe));
+        for (List<UUID> batch : batches(new ArrayList<>(recipesById.keySet()))) {
+            if (fields.contains(RecipeField.DESCRIPTION) || fields.contains(RecipeField.INSTRUCTIONS)) {
+                for (RecipeRepository.TextRow row : recipeRepository.findTextRowsByIdIn(batch)) {
+                    RecipeDto recipe = recipesById.get(row.getId());
+                    if (fields.contains(RecipeField.DESCRIPTION)) {
+                        recipe.setDescription(row.getDescription());
+                    }
+                    if (fields.contains(RecipeField.INSTRUCTIONS)) {
+                        recipe.setInstructions(row.getInstructions());
+                    }
+                }
+            }
+            if (fields.contains(RecipeField.INGREDIENTS)) {
+                batch.forEach(id -> recipesById.get(id).setIngredients(new ArrayList<>()));
+                for (RecipeRepository.IngredientRow row : recipeRepository.findIngredientRowsByIdIn(batch)) {
+                    recipesById.get(row.getRecipeId()).getIngredients().add(row.getIngredient());
+                }
+            }
+        }
+        return recipes;
     }
 
+    private static List<List<UUID>> batches(List<UUID> ids) {
+        List<List<UUID>> batches = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += HYDRATION_BATCH_SIZE) {
+            batches.add(ids.subList(from, Math.min(from + HYDRATION_BATCH_SIZE, ids.size())));
+        }
+        return batches;
+    }
 }
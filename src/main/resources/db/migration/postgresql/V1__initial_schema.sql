@@ -0,0 +1,101 @@
+-- Schema as of the move to Flyway. Every statement is idempotent, so this also upgrades databases that
+-- were created by Hibernate (ddl-auto=update) and schema-postgresql.sql before Flyway managed them;
+-- spring.flyway.baseline-version=0 makes Flyway run it on such a database.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE TABLE IF NOT EXISTS ingredients (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS recipes (
+    id UUID PRIMARY KEY,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    instructions TEXT NOT NULL,
+    vegetarian BOOLEAN NOT NULL,
+    servings INTEGER NOT NULL,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS recipe_ingredients (
+    recipe_id UUID NOT NULL REFERENCES recipes (id) ON DELETE CASCADE,
+    ingredient_id INTEGER NOT NULL REFERENCES ingredients (id),
+    PRIMARY KEY (recipe_id, ingredient_id)
+);
+
+-- Databases created before optimistic locking have recipes without a version
+ALTER TABLE recipes ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE recipes ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(description, '')), 'B') ||
+        setweight(to_tsvector('english', coalesce(instructions, '')), 'C')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_recipes_search_vector ON recipes USING GIN (search_vector);
+
+CREATE INDEX IF NOT EXISTS idx_recipes_instructions_trgm ON recipes USING GIN (lower(instructions) gin_trgm_ops);
+
+-- recipe_ingredients used to hold the ingredient name itself. Intern those names into the ingredients
+-- dictionary and point the rows at it; does nothing on a schema created with the dictionary.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'recipe_ingredients' AND column_name = 'ingredient') THEN
+        ALTER TABLE recipe_ingredients ADD COLUMN IF NOT EXISTS ingredient_id INTEGER;
+
+        INSERT INTO ingredients (name)
+        SELECT DISTINCT lower(regexp_replace(btrim(ingredient), '\s+', ' ', 'g'))
+        FROM recipe_ingredients
+        WHERE ingredient IS NOT NULL AND btrim(ingredient) <> ''
+        ON CONFLICT (name) DO NOTHING;
+
+        UPDATE recipe_ingredients ri
+        SET ingredient_id = i.id
+        FROM ingredients i
+        WHERE i.name = lower(regexp_replace(btrim(ri.ingredient), '\s+', ' ', 'g'));
+
+        DELETE FROM recipe_ingredients WHERE ingredient_id IS NULL;
+        -- Names that only differed in case or spacing are now the same ingredient
+        DELETE FROM recipe_ingredients a
+        USING recipe_ingredients b
+        WHERE a.ctid > b.ctid AND a.recipe_id = b.recipe_id AND a.ingredient_id = b.ingredient_id;
+
+        ALTER TABLE recipe_ingredients DROP COLUMN ingredient;
+        ALTER TABLE recipe_ingredients ALTER COLUMN ingredient_id SET NOT NULL;
+        IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                       WHERE conrelid = 'recipe_ingredients'::regclass AND contype = 'p') THEN
+            ALTER TABLE recipe_ingredients ADD PRIMARY KEY (recipe_id, ingredient_id);
+        END IF;
+        IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                       WHERE conrelid = 'recipe_ingredients'::regclass AND contype = 'f'
+                         AND confrelid = 'ingredients'::regclass) THEN
+            ALTER TABLE recipe_ingredients ADD FOREIGN KEY (ingredient_id) REFERENCES ingredients (id);
+        END IF;
+    END IF;
+END $$;
+
+-- Deleting a recipe is a single statement; its recipe_ingredients rows go with it. Replaces the
+-- foreign key Hibernate created without ON DELETE CASCADE.
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN SELECT conname FROM pg_constraint
+              WHERE conrelid = 'recipe_ingredients'::regclass AND contype = 'f'
+                AND confrelid = 'recipes'::regclass AND confdeltype <> 'c' LOOP
+        EXECUTE format('ALTER TABLE recipe_ingredients DROP CONSTRAINT %I', fk.conname);
+    END LOOP;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conrelid = 'recipe_ingredients'::regclass AND contype = 'f'
+                     AND confrelid = 'recipes'::regclass) THEN
+        ALTER TABLE recipe_ingredients ADD FOREIGN KEY (recipe_id) REFERENCES recipes (id) ON DELETE CASCADE;
+    END IF;
+END $$;
+
+-- The primary key serves recipe -> ingredients; searches go from ingredient to recipes
+CREATE INDEX IF NOT EXISTS idx_recipe_ingredients_ingredient ON recipe_ingredients (ingredient_id, recipe_id);
@@ -0,0 +1,9 @@
+-- flyway:executeInTransaction=false
+-- Built concurrently so a large recipes table stays writable while they are created.
+
+-- Searches filtering on the flags read matches in result order, (created_at, id), and stop at the page size
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_recipes_vegetarian_servings_created
+    ON recipes (vegetarian, servings, created_at, id);
+
+-- Unfiltered searches and the keyset-paginated list seek to the cursor instead of sorting the table
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_recipes_created ON recipes (created_at, id);
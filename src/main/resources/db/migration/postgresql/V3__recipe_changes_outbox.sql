@@ -0,0 +1,16 @@
+-- Outbox of recipe changes. Each row is inserted in the transaction that changed the recipe, so it exists
+-- exactly when the change committed. The change feed numbers rows in feed_position order as it drains them;
+-- rows without a position are still pending.
+CREATE SEQUENCE IF NOT EXISTS recipe_changes_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS recipe_changes (
+    id BIGINT PRIMARY KEY,
+    feed_position BIGINT UNIQUE,
+    recipe_id UUID NOT NULL,
+    change_type VARCHAR(16) NOT NULL,
+    recipe_version BIGINT,
+    changed_at TIMESTAMP(6) NOT NULL
+);
+
+-- The drainer's queue: it reads pending rows oldest first, and they are few compared to published ones
+CREATE INDEX IF NOT EXISTS idx_recipe_changes_pending ON recipe_changes (id) WHERE feed_position IS NULL;
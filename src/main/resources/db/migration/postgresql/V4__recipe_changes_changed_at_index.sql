@@ -0,0 +1,5 @@
+-- flyway:executeInTransaction=false
+-- Built concurrently so the outbox stays writable while it is created.
+
+-- The catalogue's Last-Modified reads the latest change time, and the retention purge deletes by it
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_recipe_changes_changed_at ON recipe_changes (changed_at);
@@ -0,0 +1,10 @@
+-- The change feed's last assigned position. Every drainer locks this single row before numbering, so
+-- concurrent drainers on different instances take turns instead of reading the same MAX(feed_position).
+CREATE TABLE IF NOT EXISTS recipe_change_counter (
+    id INTEGER PRIMARY KEY CHECK (id = 1),
+    last_position BIGINT NOT NULL
+);
+
+INSERT INTO recipe_change_counter (id, last_position)
+SELECT 1, COALESCE(MAX(feed_position), 0) FROM recipe_changes
+ON CONFLICT (id) DO NOTHING;
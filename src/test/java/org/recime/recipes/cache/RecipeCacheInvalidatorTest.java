@@ -0,0 +1,61 @@
+package org.recime.recipes.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.util.TestRecipeFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecipeCacheInvalidatorTest {
+
+    private Cache cache;
+    private LocalRecipeCacheInvalidationChannel channel;
+    private RecipeCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(RecipeCacheConfig.RECIPES_CACHE);
+        cache = cacheManager.getCache(RecipeCacheConfig.RECIPES_CACHE);
+        channel = new LocalRecipeCacheInvalidationChannel();
+        invalidator = new RecipeCacheInvalidator(cacheManager, channel);
+    }
+
+    @Test
+    void onRecipeChanged_WithUpdate_ShouldEvictRecipe() {
+        RecipeDto recipe = TestRecipeFactory.createBasicRecipeDto(UUID.randomUUID());
+        cache.put(recipe.getId(), recipe);
+
+        invalidator.onRecipeChanged(RecipeChangedEvent.updated(recipe));
+
+        assertNull(cache.get(recipe.getId()));
+    }
+
+    @Test
+    void onRecipeChanged_WithDelete_ShouldEvictOnlyThatRecipe() {
+        RecipeDto deleted = TestRecipeFactory.createBasicRecipeDto(UUID.randomUUID());
+        RecipeDto kept = TestRecipeFactory.createVegetarianRecipeDto(UUID.randomUUID());
+        cache.put(deleted.getId(), deleted);
+        cache.put(kept.getId(), kept);
+
+        invalidator.onRecipeChanged(RecipeChangedEvent.deleted(deleted.getId()));
+
+        assertNull(cache.get(deleted.getId()));
+        assertNotNull(cache.get(kept.getId()));
+    }
+
+    @Test
+    void channel_ShouldEvictInvalidationsPublishedByOtherNodes() {
+        RecipeDto recipe = TestRecipeFactory.createBasicRecipeDto(UUID.randomUUID());
+        cache.put(recipe.getId(), recipe);
+
+        channel.publish(recipe.getId());
+
+        assertNull(cache.get(recipe.getId()));
+    }
+}
@@ -0,0 +1,74 @@
+package org.recime.recipes.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.recime.recipes.repository.RecipeChangeRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RecipeCatalogueVersionTest {
+
+    @Mock
+    private RecipeChangeRepository changeRepository;
+
+    @InjectMocks
+    private RecipeCatalogueVersion catalogueVersion;
+
+    @Test
+    void current_ShouldChangeWhenAChangeCommitsAndAgainWhenItIsPublished() {
+        LocalDateTime changedAt = LocalDateTime.of(2025, 6, 19, 10, 30, 15, 123_000);
+        when(changeRepository.findOutboxState()).thenReturn(
+                state(7, 0, changedAt.minusMinutes(1)),
+                state(7, 1, changedAt),
+                state(8, 0, changedAt),
+                state(8, 0, changedAt));
+
+        String before = catalogueVersion.current().etag();
+        String committed = catalogueVersion.current().etag();
+        String published = catalogueVersion.current().etag();
+        RecipeCatalogueVersion.Snapshot unchanged = catalogueVersion.current();
+
+        assertNotEquals(before, committed);
+        assertNotEquals(committed, published);
+        assertNotEquals(before, published);
+        assertEquals(published, unchanged.etag());
+        assertTrue(published.startsWith("\"") && published.endsWith("\""));
+        // HTTP dates have whole seconds
+        assertEquals(changedAt.withNano(0).atZone(ZoneId.systemDefault()).toInstant(), unchanged.lastModified());
+    }
+
+    @Test
+    void current_WithEmptyOutbox_ShouldStartAtEpoch() {
+        when(changeRepository.findOutboxState()).thenReturn(state(0, 0, null));
+
+        assertEquals(Instant.EPOCH, catalogueVersion.current().lastModified());
+    }
+
+    private static RecipeChangeRepository.OutboxState state(long published, long pending, LocalDateTime modified) {
+        return new RecipeChangeRepository.OutboxState() {
+            @Override
+            public long getPublished() {
+                return published;
+            }
+
+            @Override
+            public long getPending() {
+                return pending;
+            }
+
+            @Override
+            public LocalDateTime getModified() {
+                return modified;
+            }
+        };
+    }
+}
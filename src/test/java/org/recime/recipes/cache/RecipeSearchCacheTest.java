@@ -0,0 +1,47 @@
+package org.recime.recipes.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.recime.recipes.dto.RecipeSearchRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecipeSearchCacheTest {
+
+    private RecipeSearchCache searchCache;
+
+    @BeforeEach
+    void setUp() {
+        searchCache = new RecipeSearchCache(new SimpleMeterRegistry(), new LocalRecipeCacheInvalidationChannel(),
+                100, 10, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void put_WithinTheIdBudget_ShouldCacheTheIds() {
+        RecipeSearchKey key = searchCache.keyFor(RecipeSearchRequest.builder().vegetarian(true).build());
+        List<UUID> ids = ids(3);
+
+        searchCache.put(key, ids);
+
+        assertEquals(ids, searchCache.getIfPresent(key));
+    }
+
+    @Test
+    void put_WithMoreIdsThanTheWholeBudget_ShouldNotCache() {
+        RecipeSearchKey key = searchCache.keyFor(RecipeSearchRequest.builder().vegetarian(true).build());
+
+        searchCache.put(key, ids(10));
+
+        assertNull(searchCache.getIfPresent(key));
+    }
+
+    private static List<UUID> ids(int count) {
+        return Stream.generate(UUID::randomUUID).limit(count).toList();
+    }
+}
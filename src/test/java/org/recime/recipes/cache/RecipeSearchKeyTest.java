@@ -0,0 +1,52 @@
+package org.recime.recipes.cache;
+
+import org.junit.jupiter.api.Test;
+import org.recime.recipes.dto.RecipeSearchRequest;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecipeSearchKeyTest {
+
+    @Test
+    void of_WithEquivalentRequests_ShouldProduceEqualKeys() {
+        RecipeSearchRequest first = RecipeSearchRequest.builder()
+                .vegetarian(true)
+                .includeIngredients(Arrays.asList("Tomato", "Basil", "Tomato"))
+                .instructionText("  Bake ")
+                .build();
+        RecipeSearchRequest second = RecipeSearchRequest.builder()
+                .vegetarian(true)
+                .includeIngredients(Arrays.asList("Basil", "Tomato"))
+                .excludeIngredients(Arrays.asList())
+                .instructionText("bake")
+                .page(3)
+                .build();
+
+        assertEquals(RecipeSearchKey.of(first, 7), RecipeSearchKey.of(second, 7));
+    }
+
+    @Test
+    void of_WithDifferentGeneration_ShouldProduceDifferentKeys() {
+        RecipeSearchRequest request = RecipeSearchRequest.builder()
+                .includeIngredients(Arrays.asList("Tomato"))
+                .build();
+
+        assertNotEquals(RecipeSearchKey.of(request, 1), RecipeSearchKey.of(request, 2));
+    }
+
+    @Test
+    void of_WithIngredientSpellings_ShouldShareKeyOfNormalizedName() {
+        RecipeSearchRequest request = RecipeSearchRequest.builder()
+                .includeIngredients(Arrays.asList("Olive Oil"))
+                .build();
+        RecipeSearchRequest respelled = RecipeSearchRequest.builder()
+                .includeIngredients(Arrays.asList(" olive  OIL"))
+                .build();
+
+        assertEquals(RecipeSearchKey.of(request, 1), RecipeSearchKey.of(respelled, 1));
+        assertEquals(List.of("olive oil"), RecipeSearchKey.of(request, 1).getIncludeIngredients());
+    }
+}
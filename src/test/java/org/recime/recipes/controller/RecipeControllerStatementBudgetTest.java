@@ -0,0 +1,122 @@
+package org.recime.recipes.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.recime.recipes.metrics.StatementBudgetFilter;
+import org.recime.recipes.metrics.StatementStats;
+import org.recime.recipes.repository.RecipeRepository;
+import org.recime.recipes.service.RecipeService;
+import org.recime.recipes.util.TestRecipeFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the statement count of the read endpoints end to end. {@link RecipeControllerTest} mocks the
+ * service, so these run against an in-memory database.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statement-budget;MODE=PostgreSQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never"
+})
+@AutoConfigureMockMvc
+public class RecipeControllerStatementBudgetTest {
+
+    private static final int RECIPE_COUNT = 30;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @BeforeEach
+    void setUp() {
+        if (recipeRepository.count() > 0) {
+            return;
+        }
+        for (int i = 0; i < RECIPE_COUNT; i++) {
+            recipeService.createRecipe(TestRecipeFactory.createCustomRecipeRequest(
+                    "Recipe " + i,
+                    "Description " + i,
+                    Arrays.asList("Ingredient " + i, "Salt"),
+                    "Cook for " + i + " minutes",
+                    i % 2 == 0,
+                    4));
+        }
+    }
+
+    @Test
+    void getAllRecipes_WithAllFields_ShouldRunOneStatementPerKind() throws Exception {
+        StatementStats stats = statementsOf(get("/api/recipes")
+                .param("size", "25")
+                .param("fields", "description,instructions,ingredients"));
+
+        // Catalogue version, summary page, text columns, ingredients
+        assertEquals(4, stats.getStatementCount());
+        assertTrue(stats.repeatedStatements(2).isEmpty());
+    }
+
+    @Test
+    void getAllRecipes_ShouldNotScaleStatementsWithPageSize() throws Exception {
+        StatementStats small = statementsOf(get("/api/recipes").param("size", "2").param("fields", "ingredients"));
+        StatementStats large = statementsOf(get("/api/recipes").param("size", "25").param("fields", "ingredients"));
+
+        assertEquals(small.getStatementCount(), large.getStatementCount());
+    }
+
+    @Test
+    void searchRecipes_ShouldStayWithinStatementBudget() throws Exception {
+        StatementStats stats = statementsOf(post("/api/recipes/search")
+                .param("fields", "ingredients")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"vegetarian\": true, \"includeIngredients\": [\"Salt\"], \"size\": 10}"));
+
+        // Dictionary lookup (unless cached), summaries, ingredients
+        assertTrue(stats.getStatementCount() <= 3, "statements: " + stats.getStatementCount());
+        assertTrue(stats.repeatedStatements(2).isEmpty());
+    }
+
+    @Test
+    void patchRecipe_WithTitleOnly_ShouldNotWriteIngredients() throws Exception {
+        UUID id = recipeRepository.findFirstSummaryPage(PageRequest.of(0, 1)).get(0).getId();
+
+        StatementStats stats = statementsOf(patch("/api/recipes/" + id)
+                .contentType(RecipeController.MERGE_PATCH_JSON_VALUE)
+                .content("{\"title\": \"Renamed\"}"));
+
+        // Recipe joined with its ingredients for the response, UPDATE of the title column, the outbox row
+        // and, once every 50 changes, the outbox id sequence
+        assertTrue(stats.getStatementCount() <= 4, "statements: " + stats.getStatementCount());
+        stats.repeatedStatements(1).keySet().forEach(sql -> assertFalse(
+                sql.toLowerCase(Locale.ROOT).matches("(insert into|delete from) recipe_ingredients.*"), sql));
+    }
+
+    private StatementStats statementsOf(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn();
+        return (StatementStats) result.getRequest().getAttribute(StatementBudgetFilter.STATS_ATTRIBUTE);
+    }
+}
@@ -6,27 +6,60 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.recime.recipes.cache.RecipeCatalogueVersion;
+import org.recime.recipes.dto.BulkItemResult;
+import org.recime.recipes.dto.PantryMatch;
+import org.recime.recipes.dto.PantrySearchRequest;
+import org.recime.recipes.dto.RecipeChangeDto;
+import org.recime.recipes.dto.RecipeChangePage;
 import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeFacets;
+import org.recime.recipes.dto.RecipeField;
+import org.recime.recipes.dto.RecipePage;
+import org.recime.recipes.dto.RecipePatch;
 import org.recime.recipes.dto.RecipeRequest;
 import org.recime.recipes.dto.RecipeSearchRequest;
+import org.recime.recipes.dto.RecipeSearchResult;
+import org.recime.recipes.dto.RecipeVersion;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.exception.ChangeFeedExpiredException;
+import org.recime.recipes.exception.MalformedBulkItemException;
 import org.recime.recipes.exception.RecipeNotFoundException;
+import org.recime.recipes.outbox.RecipeChangeFeed;
+import org.recime.recipes.service.RecipeBulkService;
 import org.recime.recipes.service.RecipeService;
 import org.recime.recipes.util.TestRecipeFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -34,19 +67,33 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ExtendWith(MockitoExtension.class)
 public class RecipeControllerTest {
 
+    private static final String CATALOGUE_ETAG = "\"abc-7\"";
+
     private MockMvc mockMvc;
 
     @Mock
     private RecipeService recipeService;
 
+    @Mock
+    private RecipeBulkService recipeBulkService;
+
+    @Mock(lenient = true)
+    private RecipeCatalogueVersion catalogueVersion;
+
+    @Mock
+    private RecipeChangeFeed recipeChangeFeed;
+
     @InjectMocks
     private RecipeController recipeController;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
 
     @BeforeEach
     public void setup() {
         mockMvc = MockMvcBuilders.standaloneSetup(recipeController).build();
+        when(catalogueVersion.current()).thenReturn(
+                new RecipeCatalogueVersion.Snapshot(CATALOGUE_ETAG, Instant.parse("2025-06-19T10:30:00Z")));
     }
 
     @Test
@@ -73,16 +120,63 @@ public class RecipeControllerTest {
 
         List<RecipeDto> recipes = Arrays.asList(recipe1, recipe2);
 
-        when(recipeService.getAllRecipes()).thenReturn(recipes);
+        when(recipeService.getRecipes(null, 50, Set.of())).thenReturn(new RecipePage(recipes, null));
 
         mockMvc.perform(get("/api/recipes"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().doesNotExist(RecipeController.NEXT_CURSOR_HEADER))
+                .andExpect(header().string(HttpHeaders.ETAG, CATALOGUE_ETAG))
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andExpect(jsonPath("$[0].title", is("Pasta Carbonara")))
                 .andExpect(jsonPath("$[1].title", is("Vegetable Stir Fry")));
     }
 
+    @Test
+    public void testGetAllRecipes_WithCurrentETag_ShouldReturnNotModifiedWithoutQuerying() throws Exception {
+        mockMvc.perform(get("/api/recipes").header(HttpHeaders.IF_NONE_MATCH, CATALOGUE_ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(recipeService, never()).getRecipes(any(), anyInt(), any());
+    }
+
+    @Test
+    public void testGetAllRecipes_WithCursor() throws Exception {
+        RecipeDto recipe = TestRecipeFactory.createBasicRecipeDto(UUID.randomUUID());
+
+        when(recipeService.getRecipes("abc", 1, Set.of())).thenReturn(new RecipePage(Arrays.asList(recipe), "def"));
+
+        mockMvc.perform(get("/api/recipes").param("cursor", "abc").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(RecipeController.NEXT_CURSOR_HEADER, "def"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title", is("Basic Test Recipe")));
+    }
+
+    @Test
+    public void testGetAllRecipes_WithFields() throws Exception {
+        RecipeDto recipe = RecipeDto.builder()
+                .id(UUID.randomUUID())
+                .title("Basic Test Recipe")
+                .ingredients(Arrays.asList("salt"))
+                .build();
+
+        when(recipeService.getRecipes(null, 50, EnumSet.of(RecipeField.INGREDIENTS, RecipeField.INSTRUCTIONS)))
+                .thenReturn(new RecipePage(Arrays.asList(recipe), null));
+
+        mockMvc.perform(get("/api/recipes").param("fields", "ingredients,Instructions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].ingredients", contains("salt")))
+                .andExpect(jsonPath("$[0].description").doesNotExist());
+    }
+
+    @Test
+    public void testGetAllRecipes_WithUnknownField() throws Exception {
+        mockMvc.perform(get("/api/recipes").param("fields", "calories"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void testCreateRecipe() throws Exception {
         RecipeRequest request = TestRecipeFactory.createCustomRecipeRequest(
@@ -114,6 +208,57 @@ public class RecipeControllerTest {
                 .andExpect(jsonPath("$.title", is("Chocolate Cake")));
     }
 
+    @Test
+    public void testCreateRecipesInBulk() throws Exception {
+        List<RecipeRequest> requests = Arrays.asList(
+                TestRecipeFactory.createBasicRecipeRequest(),
+                TestRecipeFactory.createVegetarianRecipeRequest());
+        UUID createdId = UUID.randomUUID();
+
+        when(recipeBulkService.createRecipes(any())).thenReturn(Arrays.asList(
+                BulkItemResult.builder().index(0).id(createdId).status(BulkItemResult.Status.CREATED).build(),
+                BulkItemResult.builder().index(1).status(BulkItemResult.Status.INVALID).build()));
+
+        mockMvc.perform(post("/api/recipes/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is(createdId.toString())))
+                .andExpect(jsonPath("$[0].status", is("CREATED")))
+                .andExpect(jsonPath("$[1].status", is("INVALID")));
+    }
+
+    @Test
+    public void testCreateRecipesInBulkFromStream_WithMalformedLine_ShouldOnlyFailThatLine() throws Exception {
+        String body = objectMapper.writeValueAsString(TestRecipeFactory.createBasicRecipeRequest()) + "\n"
+                + "{\"title\": \"Broken\",\n"
+                + objectMapper.writeValueAsString(TestRecipeFactory.createVegetarianRecipeRequest()) + "\n";
+        // Stands in for the service: reads every item, as it would, and reports what it read
+        when(recipeBulkService.createRecipes(any())).thenAnswer(invocation -> {
+            Iterator<RecipeRequest> requests = invocation.getArgument(0);
+            List<BulkItemResult> results = new ArrayList<>();
+            for (int index = 0; requests.hasNext(); index++) {
+                try {
+                    requests.next();
+                    results.add(BulkItemResult.builder().index(index).status(BulkItemResult.Status.CREATED).build());
+                } catch (MalformedBulkItemException ex) {
+                    results.add(BulkItemResult.builder().index(index).status(BulkItemResult.Status.FAILED).build());
+                }
+            }
+            return results;
+        });
+
+        mockMvc.perform(post("/api/recipes/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].status", is("CREATED")))
+                .andExpect(jsonPath("$[1].status", is("FAILED")))
+                .andExpect(jsonPath("$[2].status", is("CREATED")));
+    }
+
     @Test
     public void testUpdateRecipe() throws Exception {
         RecipeRequest request = TestRecipeFactory.createCustomRecipeRequest(
@@ -146,6 +291,107 @@ public class RecipeControllerTest {
                 .andExpect(jsonPath("$.title", is("Updated Pasta Recipe")));
     }
 
+    @Test
+    public void testUpdateRecipe_WithIfMatch_ShouldUpdateConditionally() throws Exception {
+        RecipeRequest request = TestRecipeFactory.createBasicRecipeRequest();
+        UUID testId = UUID.randomUUID();
+        RecipeDto response = TestRecipeFactory.createBasicRecipeDto(testId);
+        response.setVersion(6L);
+        when(recipeService.updateRecipe(eq(testId), any(RecipeRequest.class), eq(5L))).thenReturn(response);
+
+        mockMvc.perform(put("/api/recipes/" + testId)
+                .header(HttpHeaders.IF_MATCH, "\"5\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"6\""))
+                .andExpect(jsonPath("$.version", is(6)));
+    }
+
+    @Test
+    public void testUpdateRecipe_WithWeakIfMatch_ShouldFailPrecondition() throws Exception {
+        RecipeRequest request = TestRecipeFactory.createBasicRecipeRequest();
+
+        mockMvc.perform(put("/api/recipes/" + UUID.randomUUID())
+                .header(HttpHeaders.IF_MATCH, "W/\"5\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void testPatchRecipe_ShouldPassOnlyPresentFields() throws Exception {
+        UUID testId = UUID.randomUUID();
+        RecipeDto response = TestRecipeFactory.createBasicRecipeDto(testId);
+        when(recipeService.patchRecipe(eq(testId), any(RecipePatch.class), isNull())).thenReturn(response);
+
+        mockMvc.perform(patch("/api/recipes/" + testId)
+                .contentType(RecipeController.MERGE_PATCH_JSON_VALUE)
+                .content("{\"title\": \"Renamed\", \"description\": null}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+
+        verify(recipeService).patchRecipe(eq(testId), argThat(recipePatch ->
+                recipePatch.getFields().equals(Set.of(RecipePatch.TITLE, RecipePatch.DESCRIPTION))
+                        && "Renamed".equals(recipePatch.getValues().getTitle())
+                        && recipePatch.getValues().getDescription() == null), isNull());
+    }
+
+    @Test
+    public void testPatchRecipe_WithUnknownOrRemovedRequiredField_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(patch("/api/recipes/" + UUID.randomUUID())
+                .contentType(RecipeController.MERGE_PATCH_JSON_VALUE)
+                .content("{\"id\": \"x\", \"title\": null}"))
+                .andExpect(status().isBadRequest());
+
+        verify(recipeService, never()).patchRecipe(any(), any(), any());
+    }
+
+    @Test
+    public void testDeleteMatchingRecipes_ShouldReturnDeletedCount() throws Exception {
+        when(recipeBulkService.deleteMatching(any(RecipeSearchRequest.class))).thenReturn(12L);
+
+        mockMvc.perform(post("/api/recipes/bulk/delete-matching")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"excludeIngredients\": [\"Salt\"], \"servings\": 2}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted", is(12)));
+
+        verify(recipeBulkService).deleteMatching(argThat(request ->
+                request.getServings() == 2 && request.getExcludeIngredients().equals(List.of("Salt"))));
+    }
+
+    @Test
+    public void testSearchByPantry_ShouldReturnRankedMatches() throws Exception {
+        RecipeDto recipe = TestRecipeFactory.createBasicRecipeDto(UUID.randomUUID());
+        PantryMatch match = PantryMatch.builder()
+                .recipe(recipe)
+                .ingredientCount(3)
+                .matchedCount(2)
+                .missingCount(1)
+                .coverage(2 / 3.0)
+                .build();
+        when(recipeService.searchByPantry(any(PantrySearchRequest.class), eq(Set.of()))).thenReturn(List.of(match));
+
+        mockMvc.perform(post("/api/recipes/search/pantry")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"pantry\": [\"Ingredient 1\", \"Ingredient 2\"], \"maxMissing\": 1}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].recipe.id", is(recipe.getId().toString())))
+                .andExpect(jsonPath("$[0].missingCount", is(1)));
+    }
+
+    @Test
+    public void testSearchByPantry_WithEmptyPantry_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/recipes/search/pantry")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"pantry\": []}"))
+                .andExpect(status().isBadRequest());
+
+        verify(recipeService, never()).searchByPantry(any(), any());
+    }
+
     @Test
     public void testGetRecipeById() throws Exception {
         RecipeDto recipe = TestRecipeFactory.createCustomRecipeDto(
@@ -159,21 +405,35 @@ public class RecipeControllerTest {
         );
 
         UUID testId = UUID.randomUUID();
+        when(recipeService.getRecipeVersion(testId)).thenReturn(new RecipeVersion(0L, recipe.getUpdatedAt()));
         when(recipeService.getRecipeById(testId)).thenReturn(recipe);
 
         mockMvc.perform(get("/api/recipes/" + testId))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
                 .andExpect(jsonPath("$.id").exists())
                 .andExpect(jsonPath("$.title", is("Pasta Carbonara")))
                 .andExpect(jsonPath("$.ingredients", hasSize(4)))
                 .andExpect(jsonPath("$.vegetarian", is(false)));
     }
 
+    @Test
+    public void testGetRecipeById_WithCurrentETag_ShouldReturnNotModifiedWithoutLoading() throws Exception {
+        UUID testId = UUID.randomUUID();
+        when(recipeService.getRecipeVersion(testId)).thenReturn(new RecipeVersion(7L, LocalDateTime.of(2025, 6, 19, 10, 30)));
+
+        mockMvc.perform(get("/api/recipes/" + testId).header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+                .andExpect(status().isNotModified());
+
+        verify(recipeService, never()).getRecipeById(testId);
+    }
+
     @Test
     public void testGetRecipeById_NotFound() throws Exception {
         UUID testId = UUID.randomUUID();
-        when(recipeService.getRecipeById(testId)).thenThrow(new RecipeNotFoundException(testId));
+        when(recipeService.getRecipeVersion(testId)).thenThrow(new RecipeNotFoundException(testId));
 
         mockMvc.perform(get("/api/recipes/" + testId))
                 .andExpect(status().isNotFound());
@@ -217,7 +477,7 @@ public class RecipeControllerTest {
                 4
         );
 
-        when(recipeService.searchRecipes(any(RecipeSearchRequest.class))).thenReturn(Arrays.asList(recipe));
+        when(recipeService.searchRecipes(any(RecipeSearchRequest.class), eq(Set.of()))).thenReturn(Arrays.asList(recipe));
 
         mockMvc.perform(post("/api/recipes/search")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -231,6 +491,32 @@ public class RecipeControllerTest {
                 .andExpect(jsonPath("$[0].servings", is(4)));
     }
 
+    @Test
+    public void testSearchRecipes_WithFacets() throws Exception {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .vegetarian(true)
+                .size(1)
+                .build();
+        RecipeDto recipe = TestRecipeFactory.createVegetarianRecipeDto(UUID.randomUUID());
+        RecipeFacets facets = RecipeFacets.of(3, 3, Map.of(4, 2L, 10, 1L), Map.of("spice 1", 3L));
+
+        when(recipeService.searchRecipesWithFacets(any(RecipeSearchRequest.class), eq(Set.of())))
+                .thenReturn(new RecipeSearchResult(List.of(recipe), facets));
+
+        mockMvc.perform(post("/api/recipes/search")
+                .param("facets", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(searchRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.facets.total", is(3)))
+                .andExpect(jsonPath("$.facets.nonVegetarian", is(0)))
+                .andExpect(jsonPath("$.facets.servings['3-4']", is(2)))
+                .andExpect(jsonPath("$.facets.servings['9+']", is(1)))
+                .andExpect(jsonPath("$.facets.ingredients['spice 1']", is(3)));
+        verify(recipeService, never()).searchRecipes(any(), any());
+    }
+
     @Test
     public void testSearchRecipes_NoResults() throws Exception {
         RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
@@ -240,7 +526,7 @@ public class RecipeControllerTest {
                 .excludeIngredients(new ArrayList<>())
                 .build();
 
-        when(recipeService.searchRecipes(any(RecipeSearchRequest.class))).thenReturn(new ArrayList<>());
+        when(recipeService.searchRecipes(any(RecipeSearchRequest.class), eq(Set.of()))).thenReturn(new ArrayList<>());
 
         mockMvc.perform(post("/api/recipes/search")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -249,4 +535,47 @@ public class RecipeControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$", hasSize(0)));
     }
+
+    @Test
+    public void testGetChanges_ShouldAnswerWithTheChangesAfterSince() throws Exception {
+        UUID id = UUID.randomUUID();
+        DeferredResult<RecipeChangePage> result = new DeferredResult<>();
+        result.setResult(new RecipeChangePage(List.of(new RecipeChangeDto(
+                8, id, RecipeChangedEvent.ChangeType.UPDATED, 3L, LocalDateTime.of(2025, 6, 19, 10, 30))), 8, 9));
+        when(recipeChangeFeed.awaitChangesSince(7, 100, Duration.ofSeconds(25))).thenReturn(result);
+
+        MvcResult pending = mockMvc.perform(get("/api/recipes/changes").param("since", "7"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].position", is(8)))
+                .andExpect(jsonPath("$.items[0].recipeId", is(id.toString())))
+                .andExpect(jsonPath("$.items[0].type", is("UPDATED")))
+                .andExpect(jsonPath("$.nextSince", is(8)))
+                .andExpect(jsonPath("$.latest", is(9)));
+    }
+
+    @Test
+    public void testGetChanges_ShouldClampLimitAndWait() throws Exception {
+        DeferredResult<RecipeChangePage> result = new DeferredResult<>();
+        result.setResult(new RecipeChangePage(List.of(), 0, 0));
+        when(recipeChangeFeed.awaitChangesSince(0, 1000, Duration.ofSeconds(60))).thenReturn(result);
+
+        mockMvc.perform(get("/api/recipes/changes").param("since", "-5").param("limit", "100000").param("wait", "3600"))
+                .andExpect(request().asyncStarted());
+
+        verify(recipeChangeFeed).awaitChangesSince(0, 1000, Duration.ofSeconds(60));
+    }
+
+    @Test
+    public void testGetChanges_WhenSinceHasExpired_ShouldReturnGone() throws Exception {
+        when(recipeChangeFeed.awaitChangesSince(3, 100, Duration.ofSeconds(25)))
+                .thenThrow(new ChangeFeedExpiredException(3, 40));
+
+        mockMvc.perform(get("/api/recipes/changes").param("since", "3"))
+                .andExpect(status().isGone());
+    }
 }
@@ -0,0 +1,191 @@
+package org.recime.recipes.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Value;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.recime.recipes.dto.RecipeRequest;
+import org.recime.recipes.metrics.StatementBudgetFilter;
+import org.recime.recipes.metrics.StatementStats;
+import org.recime.recipes.metrics.StatementTracker;
+import org.recime.recipes.model.Recipe;
+import org.recime.recipes.repository.RecipeRepository;
+import org.recime.recipes.service.IngredientDictionary;
+import org.recime.recipes.service.RecipeConverter;
+import org.recime.recipes.service.RecipeService;
+import org.recime.recipes.util.TestRecipeFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the JDBC statements of typical recipe edits when the ingredient collection is replaced
+ * wholesale, when the full recipe is sent with {@code PUT}, and when only the change is sent with
+ * {@code PATCH}. Excluded from the default build; run with
+ * {@code ./mvnw test -Dsurefire.excludedGroups= -Dgroups=benchmark -Dtest=RecipePatchBenchmarkTest}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:patch-benchmark;MODE=PostgreSQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never"
+})
+@AutoConfigureMockMvc
+public class RecipePatchBenchmarkTest {
+
+    private static final int INGREDIENT_COUNT = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeConverter recipeConverter;
+
+    @Autowired
+    private IngredientDictionary ingredientDictionary;
+
+    @Autowired
+    private StatementTracker statementTracker;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void compareStatementsPerEdit() throws Exception {
+        List<Edit> edits = List.of(
+                new Edit("rename", "{\"title\": \"Renamed\"}", request -> request.setTitle("Renamed")),
+                new Edit("change servings", "{\"servings\": 6}", request -> request.setServings(6)),
+                new Edit("add ingredient", ingredientsPatch(INGREDIENT_COUNT + 1),
+                        request -> request.setIngredients(ingredients(INGREDIENT_COUNT + 1))),
+                new Edit("remove ingredient", ingredientsPatch(INGREDIENT_COUNT - 1),
+                        request -> request.setIngredients(ingredients(INGREDIENT_COUNT - 1))));
+
+        // Each cell: statements in total / statements writing recipe_ingredients
+        System.out.printf("%-18s %12s %12s %12s%n", "edit", "replace", "put", "patch");
+        for (Edit edit : edits) {
+            StatementStats replaced = replaceIngredients(edit);
+            StatementStats put = putRecipe(edit);
+            StatementStats patched = patchRecipe(edit);
+            System.out.printf("%-18s %12s %12s %12s%n", edit.getName(), describe(replaced), describe(put), describe(patched));
+
+            assertTrue(patched.getStatementCount() <= put.getStatementCount(), edit.getName());
+            assertTrue(ingredientWrites(put) < ingredientWrites(replaced), edit.getName());
+        }
+    }
+
+    /**
+     * The former update path: scalar fields copied from the request and the ingredient collection
+     * swapped for a new one, which Hibernate rewrites as a delete of every row plus a re-insert.
+     */
+    private StatementStats replaceIngredients(Edit edit) {
+        UUID id = createRecipe();
+        RecipeRequest request = baseRequest();
+        edit.getPut().accept(request);
+        StatementStats stats = statementTracker.start();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                Recipe recipe = recipeRepository.findById(id).orElseThrow();
+                recipeConverter.updateRecipeFromRequest(recipe, request, ingredientDictionary.intern(request.getIngredients()));
+                recipe.setIngredients(new LinkedHashSet<>(recipe.getIngredients()));
+                recipeRepository.saveAndFlush(recipe);
+            });
+        } finally {
+            statementTracker.stop();
+        }
+        return stats;
+    }
+
+    private StatementStats putRecipe(Edit edit) throws Exception {
+        RecipeRequest request = baseRequest();
+        edit.getPut().accept(request);
+        return statementsOf(put("/api/recipes/" + createRecipe())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)));
+    }
+
+    private StatementStats patchRecipe(Edit edit) throws Exception {
+        return statementsOf(patch("/api/recipes/" + createRecipe())
+                .contentType(RecipeController.MERGE_PATCH_JSON_VALUE)
+                .content(edit.getPatch()));
+    }
+
+    private StatementStats statementsOf(RequestBuilder request) throws Exception {
+        return (StatementStats) mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getRequest()
+                .getAttribute(StatementBudgetFilter.STATS_ATTRIBUTE);
+    }
+
+    private UUID createRecipe() {
+        return recipeService.createRecipe(baseRequest()).getId();
+    }
+
+    private static RecipeRequest baseRequest() {
+        return TestRecipeFactory.createCustomRecipeRequest(
+                "Benchmark Recipe", "A recipe with many ingredients", ingredients(INGREDIENT_COUNT),
+                "Mix everything", false, 4);
+    }
+
+    private static List<String> ingredients(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> "Ingredient " + i)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private String ingredientsPatch(int count) throws Exception {
+        return "{\"ingredients\": " + objectMapper.writeValueAsString(ingredients(count)) + "}";
+    }
+
+    private static String describe(StatementStats stats) {
+        return stats.getStatementCount() + " / " + ingredientWrites(stats);
+    }
+
+    /**
+     * Round trips that insert or delete recipe_ingredients rows; a JDBC batch counts once.
+     */
+    private static int ingredientWrites(StatementStats stats) {
+        return stats.repeatedStatements(1).entrySet().stream()
+                .filter(entry -> entry.getKey().toLowerCase(Locale.ROOT).matches("(insert into|delete from) recipe_ingredients.*"))
+                .mapToInt(Map.Entry::getValue)
+                .sum();
+    }
+
+    @Value
+    private static class Edit {
+        String name;
+        String patch;
+        Consumer<RecipeRequest> put;
+    }
+}
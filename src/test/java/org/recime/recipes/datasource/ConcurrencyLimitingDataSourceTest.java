@@ -0,0 +1,68 @@
+package org.recime.recipes.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ConcurrencyLimitingDataSourceTest {
+
+    @Mock
+    private DataSource targetDataSource;
+
+    @Mock
+    private Connection connection;
+
+    private ConcurrencyLimitingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new ConcurrencyLimitingDataSource(targetDataSource, 1, Duration.ofMillis(10));
+    }
+
+    @Test
+    void getConnection_WhenAllPermitsHeld_ShouldRejectAfterWaiting() throws SQLException {
+        when(targetDataSource.getConnection()).thenReturn(connection);
+        Connection held = dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.getActiveCount());
+        assertEquals(1, dataSource.getRejectedCount());
+
+        held.close();
+        assertNotNull(dataSource.getConnection());
+        verify(targetDataSource, times(2)).getConnection();
+    }
+
+    @Test
+    void close_CalledTwice_ShouldReleaseOnePermit() throws SQLException {
+        when(targetDataSource.getConnection()).thenReturn(connection);
+        Connection held = dataSource.getConnection();
+
+        held.close();
+        held.close();
+
+        assertEquals(0, dataSource.getActiveCount());
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    void getConnection_WhenTargetFails_ShouldReleasePermit() throws SQLException {
+        when(targetDataSource.getConnection()).thenThrow(new SQLException("down"));
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+
+        assertEquals(0, dataSource.getActiveCount());
+    }
+}
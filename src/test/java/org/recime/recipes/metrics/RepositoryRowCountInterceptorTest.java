@@ -0,0 +1,90 @@
+package org.recime.recipes.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.recime.recipes.repository.RecipeRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RepositoryRowCountInterceptorTest {
+
+    @Mock
+    private MethodInvocation invocation;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RepositoryRowCountInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new RepositoryRowCountInterceptor(meterRegistry, RecipeRepository.class);
+    }
+
+    @Test
+    void invoke_WithListResult_ShouldRecordItsSize() throws Throwable {
+        when(invocation.getMethod()).thenReturn(RecipeRepository.class.getMethod("findSummariesByIdIn", Collection.class));
+        when(invocation.proceed()).thenReturn(List.of("a", "b", "c"));
+
+        interceptor.invoke(invocation);
+
+        DistributionSummary rows = rows("findSummariesByIdIn");
+        assertEquals(1, rows.count());
+        assertEquals(3, rows.totalAmount());
+    }
+
+    @Test
+    void invoke_WithEmptyOptional_ShouldRecordZeroRows() throws Throwable {
+        when(invocation.getMethod()).thenReturn(RecipeRepository.class.getMethod("findById", UUID.class));
+        when(invocation.proceed()).thenReturn(Optional.empty());
+
+        interceptor.invoke(invocation);
+
+        assertEquals(0, rows("findById").totalAmount());
+    }
+
+    @Test
+    void invoke_WithStreamResult_ShouldRecordConsumedRowsOnClose() throws Throwable {
+        when(invocation.getMethod()).thenReturn(RecipeRepository.class.getMethod("streamIngredientRows"));
+        when(invocation.proceed()).thenReturn(Stream.of(1, 2));
+
+        try (Stream<?> stream = (Stream<?>) interceptor.invoke(invocation)) {
+            assertEquals(2, stream.collect(Collectors.toList()).size());
+            assertEquals(0, rows("streamIngredientRows").count());
+        }
+
+        assertEquals(2, rows("streamIngredientRows").totalAmount());
+    }
+
+    @Test
+    void invoke_WithCountResult_ShouldNotRecordRows() throws Throwable {
+        when(invocation.getMethod()).thenReturn(RecipeRepository.class.getMethod("existsById", Object.class));
+        when(invocation.proceed()).thenReturn(true);
+
+        interceptor.invoke(invocation);
+
+        assertNull(meterRegistry.find(RepositoryRowCountInterceptor.METRIC_NAME).summary());
+    }
+
+    private DistributionSummary rows(String method) {
+        return meterRegistry.get(RepositoryRowCountInterceptor.METRIC_NAME)
+                .tag("repository", "RecipeRepository")
+                .tag("method", method)
+                .summary();
+    }
+}
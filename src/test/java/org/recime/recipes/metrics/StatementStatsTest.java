@@ -0,0 +1,35 @@
+package org.recime.recipes.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementStatsTest {
+
+    @Test
+    void record_ShouldCountRoundTripsAndTime() {
+        StatementStats stats = new StatementStats();
+
+        stats.record(List.of("select 1"), 3);
+        stats.record(List.of("insert into t values (?)", "insert into t values (?)"), 4);
+
+        assertEquals(2, stats.getStatementCount());
+        assertEquals(Duration.ofMillis(7), stats.getElapsedTime());
+    }
+
+    @Test
+    void repeatedStatements_ShouldReportSqlAtOrAboveThreshold() {
+        StatementStats stats = new StatementStats();
+        stats.record(List.of("select * from recipes"), 1);
+        for (int i = 0; i < 3; i++) {
+            stats.record(List.of("select * from ingredients where id=?"), 1);
+        }
+
+        assertEquals(Map.of("select * from ingredients where id=?", 3), stats.repeatedStatements(3));
+        assertTrue(stats.repeatedStatements(4).isEmpty());
+    }
+}
@@ -0,0 +1,77 @@
+package org.recime.recipes.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IngredientNamesTest {
+
+    @Test
+    void canonicalize_ShouldFoldCaseAndWhitespaceAndSingularizeLastWord() {
+        IngredientNames names = new IngredientNames(Set.of("molasses"), Map.of());
+
+        assertEquals("olive oil", names.canonicalize(" Olive  Oil"));
+        assertEquals("tomato", names.canonicalize("Tomatoes"));
+        assertEquals("berry", names.canonicalize("berries"));
+        assertEquals("brownie", names.canonicalize("Brownies"));
+        assertEquals("veggie", names.canonicalize("veggies"));
+        assertEquals("smoothie", names.canonicalize("smoothie"));
+        assertEquals("peach", names.canonicalize("Peaches"));
+        assertEquals("egg", names.canonicalize("eggs"));
+        assertEquals("peas and carrot", names.canonicalize("Peas and carrots"));
+        assertEquals("molasses", names.canonicalize("Molasses"));
+        assertEquals("hummus", names.canonicalize("hummus"));
+        assertEquals("swiss", names.canonicalize("Swiss"));
+    }
+
+    @Test
+    void canonicalize_ShouldReplaceSynonymsInAnyNumber() {
+        IngredientNames names = new IngredientNames(Set.of(),
+                Map.of("tomato", List.of("cherry tomato"), "scallion", List.of("green onions")));
+
+        assertEquals("tomato", names.canonicalize("Cherry Tomatoes"));
+        assertEquals("tomato", names.canonicalize("tomato"));
+        assertEquals("scallion", names.canonicalize("green onion"));
+        assertEquals("scallion", names.canonicalize("Scallions"));
+    }
+
+    @Test
+    void constructor_ShouldRejectAmbiguousOrChainedSynonyms() {
+        assertThrows(IllegalArgumentException.class, () -> new IngredientNames(Set.of(),
+                Map.of("scallion", List.of("green onion"), "onion", List.of("green onions"))));
+        assertThrows(IllegalArgumentException.class, () -> new IngredientNames(Set.of(),
+                Map.of("scallion", List.of("green onion"), "green onion", List.of("spring onion"))));
+    }
+
+    @Test
+    void parse_ShouldReadGroupsInvariantsAndComments() throws IOException {
+        String table = """
+                # comment
+                invariant: grits
+                bay leaf = bay leaves   # irregular plural
+                zucchini = courgette, Courgettes
+                """;
+
+        IngredientNames names = IngredientNames.parse(new BufferedReader(new StringReader(table)));
+
+        assertEquals("grits", names.canonicalize("Grits"));
+        assertEquals("bay leaf", names.canonicalize("Bay Leaves"));
+        assertEquals("zucchini", names.canonicalize("courgettes"));
+        assertThrows(IllegalArgumentException.class,
+                () -> IngredientNames.parse(new BufferedReader(new StringReader("no separator"))));
+    }
+
+    @Test
+    void canonical_ShouldUseTheClasspathTable() {
+        assertEquals("chickpea", IngredientNames.canonical("Garbanzo Beans"));
+        assertEquals("cookie", IngredientNames.canonical("Cookies"));
+        assertEquals(IngredientNames.canonical("Tomatoes"), Ingredient.normalizeName("cherry tomato"));
+    }
+}
@@ -0,0 +1,48 @@
+package org.recime.recipes.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UuidV7GeneratorTest {
+
+    @Test
+    void nextUuid_ShouldSetVersionVariantAndTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7Generator.nextUuid();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        long millis = uuid.getMostSignificantBits() >>> 16;
+        // The counter may have carried a few milliseconds ahead under load from other tests
+        assertTrue(millis >= before && millis <= System.currentTimeMillis() + 100);
+    }
+
+    @Test
+    void nextUuid_ShouldBeStrictlyIncreasingWithinAThread() {
+        List<UUID> uuids = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            uuids.add(UuidV7Generator.nextUuid());
+        }
+
+        for (int i = 1; i < uuids.size(); i++) {
+            assertTrue(uuids.get(i - 1).compareTo(uuids.get(i)) < 0);
+        }
+    }
+
+    @Test
+    void nextUuid_ShouldBeUniqueAcrossThreads() {
+        Set<UUID> uuids = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 100_000).parallel().forEach(i -> uuids.add(UuidV7Generator.nextUuid()));
+
+        assertEquals(100_000, uuids.size());
+    }
+}
@@ -0,0 +1,216 @@
+package org.recime.recipes.outbox;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.recime.recipes.dto.RecipeChangeDto;
+import org.recime.recipes.dto.RecipeChangePage;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.exception.ChangeFeedExpiredException;
+import org.recime.recipes.model.RecipeChange;
+import org.recime.recipes.model.RecipeChangeCounter;
+import org.recime.recipes.repository.RecipeChangeCounterRepository;
+import org.recime.recipes.repository.RecipeChangeRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RecipeChangeFeedTest {
+
+    @Mock
+    private RecipeChangeRepository changeRepository;
+
+    @Mock
+    private RecipeChangeCounterRepository counterRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RecipeChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new RecipeChangeFeed(changeRepository, counterRepository, transactionManager, 2, Duration.ofDays(7));
+    }
+
+    @Test
+    void drain_ShouldNumberPendingChangesAfterTheLastPosition() {
+        RecipeChange first = pending(1);
+        RecipeChangeCounter counter = new RecipeChangeCounter(RecipeChangeCounter.ID, 7);
+        when(counterRepository.lockCounter()).thenReturn(Optional.of(counter));
+        when(changeRepository.findByFeedPositionIsNullOrderByIdAsc(PageRequest.of(0, 2)))
+                .thenReturn(List.of(first));
+        when(changeRepository.findLastFeedPosition()).thenReturn(8L);
+
+        feed.drain();
+
+        assertEquals(8L, first.getFeedPosition());
+        assertEquals(8L, counter.getLastPosition());
+        verify(changeRepository, times(1)).findByFeedPositionIsNullOrderByIdAsc(any());
+        verify(counterRepository, never()).save(any());
+    }
+
+    @Test
+    void drain_WithoutCounterRow_ShouldStartItFromTheLastPosition() {
+        RecipeChange first = pending(1);
+        when(counterRepository.lockCounter()).thenReturn(Optional.empty());
+        when(counterRepository.save(any(RecipeChangeCounter.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(changeRepository.findByFeedPositionIsNullOrderByIdAsc(PageRequest.of(0, 2)))
+                .thenReturn(List.of(first));
+        when(changeRepository.findLastFeedPosition()).thenReturn(3L, 4L);
+
+        feed.drain();
+
+        assertEquals(4L, first.getFeedPosition());
+    }
+
+    @Test
+    void drain_WhenBatchIsFull_ShouldDrainTheNextBatch() {
+        RecipeChange first = pending(1);
+        RecipeChange second = pending(2);
+        RecipeChange third = pending(3);
+        RecipeChangeCounter counter = new RecipeChangeCounter(RecipeChangeCounter.ID, 0);
+        when(counterRepository.lockCounter()).thenReturn(Optional.of(counter));
+        when(changeRepository.findByFeedPositionIsNullOrderByIdAsc(PageRequest.of(0, 2)))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of(third));
+        when(changeRepository.findLastFeedPosition()).thenReturn(3L);
+
+        feed.drain();
+
+        assertEquals(List.of(1L, 2L, 3L), List.of(first.getFeedPosition(), second.getFeedPosition(), third.getFeedPosition()));
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void awaitChangesSince_WithChanges_ShouldAnswerAtOnce() {
+        when(changeRepository.findByFeedPositionGreaterThanOrderByFeedPositionAsc(5, PageRequest.of(0, 10)))
+                .thenReturn(List.of(published(6), published(7)));
+        when(changeRepository.findLastFeedPosition()).thenReturn(7L);
+
+        DeferredResult<RecipeChangePage> result = feed.awaitChangesSince(5, 10, Duration.ofSeconds(25));
+
+        RecipeChangePage page = (RecipeChangePage) result.getResult();
+        assertEquals(2, page.getItems().size());
+        assertEquals(7, page.getNextSince());
+        assertEquals(7, page.getLatest());
+        assertEquals(0, feed.waiting());
+    }
+
+    @Test
+    void awaitChangesSince_WithoutChanges_ShouldAnswerAfterTheNextDrain() {
+        when(changeRepository.findByFeedPositionGreaterThanOrderByFeedPositionAsc(6, PageRequest.of(0, 10)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(published(7)));
+        when(changeRepository.findLastFeedPosition()).thenReturn(6L, 7L);
+        when(counterRepository.lockCounter()).thenReturn(Optional.of(new RecipeChangeCounter(RecipeChangeCounter.ID, 6)));
+
+        DeferredResult<RecipeChangePage> result = feed.awaitChangesSince(6, 10, Duration.ofSeconds(25));
+
+        assertFalse(result.hasResult());
+        assertEquals(1, feed.waiting());
+
+        feed.drain();
+
+        RecipeChangePage page = (RecipeChangePage) result.getResult();
+        assertEquals(7, page.getItems().get(0).getPosition());
+        assertEquals(7, page.getNextSince());
+        assertEquals(0, feed.waiting());
+    }
+
+    @Test
+    void drain_WithSeveralWaiters_ShouldAnswerThemAllFromOneQuery() {
+        when(changeRepository.findByFeedPositionGreaterThanOrderByFeedPositionAsc(6, PageRequest.of(0, 10)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(published(7), published(8), published(9)));
+        when(changeRepository.findByFeedPositionGreaterThanOrderByFeedPositionAsc(8, PageRequest.of(0, 1)))
+                .thenReturn(List.of());
+        when(changeRepository.findLastFeedPosition()).thenReturn(6L, 9L);
+        when(counterRepository.lockCounter()).thenReturn(Optional.of(new RecipeChangeCounter(RecipeChangeCounter.ID, 6)));
+        DeferredResult<RecipeChangePage> behind = feed.awaitChangesSince(6, 10, Duration.ofSeconds(25));
+        DeferredResult<RecipeChangePage> ahead = feed.awaitChangesSince(8, 1, Duration.ofSeconds(25));
+
+        feed.drain();
+
+        RecipeChangePage behindPage = (RecipeChangePage) behind.getResult();
+        RecipeChangePage aheadPage = (RecipeChangePage) ahead.getResult();
+        assertEquals(List.of(7L, 8L, 9L), behindPage.getItems().stream().map(RecipeChangeDto::getPosition).toList());
+        assertEquals(List.of(9L), aheadPage.getItems().stream().map(RecipeChangeDto::getPosition).toList());
+        assertEquals(9, aheadPage.getNextSince());
+        verify(changeRepository, times(2)).findByFeedPositionGreaterThanOrderByFeedPositionAsc(eq(6L), any());
+        verify(changeRepository, times(1)).findByFeedPositionGreaterThanOrderByFeedPositionAsc(eq(8L), any());
+        assertEquals(0, feed.waiting());
+    }
+
+    @Test
+    void awaitChangesSince_WithoutWait_ShouldAnswerWithAnEmptyPage() {
+        when(changeRepository.findByFeedPositionGreaterThanOrderByFeedPositionAsc(6, PageRequest.of(0, 10)))
+                .thenReturn(List.of());
+        when(changeRepository.findLastFeedPosition()).thenReturn(6L);
+
+        DeferredResult<RecipeChangePage> result = feed.awaitChangesSince(6, 10, Duration.ZERO);
+
+        RecipeChangePage page = (RecipeChangePage) result.getResult();
+        assertTrue(page.getItems().isEmpty());
+        assertEquals(6, page.getNextSince());
+        assertEquals(0, feed.waiting());
+    }
+
+    @Test
+    void changesSince_WhenChangesAfterSinceWereDeleted_ShouldThrow() {
+        when(changeRepository.findByFeedPositionGreaterThanOrderByFeedPositionAsc(3, PageRequest.of(0, 10)))
+                .thenReturn(List.of(published(40)));
+
+        assertThrows(ChangeFeedExpiredException.class, () -> feed.changesSince(3, 10));
+    }
+
+    @Test
+    void changesSince_FromTheStart_ShouldReadTheOldestRetainedChanges() {
+        when(changeRepository.findByFeedPositionGreaterThanOrderByFeedPositionAsc(0, PageRequest.of(0, 10)))
+                .thenReturn(List.of(published(40)));
+        when(changeRepository.findLastFeedPosition()).thenReturn(40L);
+
+        assertEquals(40, feed.changesSince(0, 10).getNextSince());
+    }
+
+    @Test
+    void purge_ShouldDeleteChangesOlderThanTheRetention() {
+        feed.purge();
+
+        ArgumentCaptor<LocalDateTime> before = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(changeRepository).deletePublishedBefore(before.capture());
+        LocalDateTime expected = LocalDateTime.now().minusDays(7);
+        assertTrue(Duration.between(before.getValue(), expected).abs().toSeconds() < 5);
+    }
+
+    private static RecipeChange pending(long id) {
+        return RecipeChange.builder()
+                .id(id)
+                .recipeId(UUID.randomUUID())
+                .type(RecipeChangedEvent.ChangeType.UPDATED)
+                .recipeVersion(2L)
+                .changedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static RecipeChange published(long position) {
+        RecipeChange change = pending(position);
+        change.setFeedPosition(position);
+        return change;
+    }
+}
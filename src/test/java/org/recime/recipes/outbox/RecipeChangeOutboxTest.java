@@ -0,0 +1,61 @@
+package org.recime.recipes.outbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.model.RecipeChange;
+import org.recime.recipes.repository.RecipeChangeRepository;
+import org.recime.recipes.util.TestRecipeFactory;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class RecipeChangeOutboxTest {
+
+    @Mock
+    private RecipeChangeRepository changeRepository;
+
+    @InjectMocks
+    private RecipeChangeOutbox outbox;
+
+    @Test
+    void onRecipeChanged_WithUpdate_ShouldWritePendingChangeWithTheNewVersion() {
+        RecipeDto recipe = TestRecipeFactory.createBasicRecipeDto(UUID.randomUUID());
+        recipe.setVersion(3L);
+
+        outbox.onRecipeChanged(RecipeChangedEvent.updated(recipe));
+
+        RecipeChange change = saved();
+        assertEquals(recipe.getId(), change.getRecipeId());
+        assertEquals(RecipeChangedEvent.ChangeType.UPDATED, change.getType());
+        assertEquals(3L, change.getRecipeVersion());
+        assertNull(change.getFeedPosition());
+        assertNotNull(change.getChangedAt());
+    }
+
+    @Test
+    void onRecipeChanged_WithDelete_ShouldWriteChangeWithoutVersion() {
+        UUID id = UUID.randomUUID();
+
+        outbox.onRecipeChanged(RecipeChangedEvent.deleted(id));
+
+        RecipeChange change = saved();
+        assertEquals(id, change.getRecipeId());
+        assertEquals(RecipeChangedEvent.ChangeType.DELETED, change.getType());
+        assertNull(change.getRecipeVersion());
+    }
+
+    private RecipeChange saved() {
+        ArgumentCaptor<RecipeChange> change = ArgumentCaptor.forClass(RecipeChange.class);
+        verify(changeRepository).save(change.capture());
+        return change.getValue();
+    }
+}
@@ -0,0 +1,252 @@
+package org.recime.recipes.repository;
+
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseProvider;
+import io.zonky.test.db.AutoConfigureEmbeddedDatabase.DatabaseType;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.recime.recipes.dto.RecipeSearchRequest;
+import org.recime.recipes.dto.RecipeSummary;
+import org.recime.recipes.dto.TextSearchMode;
+import org.recime.recipes.model.Ingredient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Applies the Flyway migrations to an embedded PostgreSQL, checks Hibernate's mapping against them and
+ * explains the SQL the repositories actually send, as recorded by {@link SqlCapture}. Sequential scans are disabled, so the planner
+ * only falls back to one when no index can serve the query, which fails the test.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=org.recime.recipes.repository.RecipeQueryPlanTest$SqlCapture"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@AutoConfigureEmbeddedDatabase(type = DatabaseType.POSTGRES, provider = DatabaseProvider.ZONKY)
+public class RecipeQueryPlanTest {
+
+    private static final Sort SEARCH_ORDER = Sort.by("createdAt", "id");
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeChangeRepository changeRepository;
+
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @BeforeEach
+    void setUp() {
+        // Enough rows, with fresh statistics, for the planner to cost the indexes as it would in production
+        execute("INSERT INTO ingredients (name) SELECT 'ingredient ' || g FROM generate_series(1, 50) g");
+        execute("INSERT INTO recipes (id, title, instructions, vegetarian, servings, created_at, updated_at) "
+                + "SELECT gen_random_uuid(), 'Recipe ' || g, 'Bake for ' || g || ' minutes', g % 2 = 0, g % 8 + 1, "
+                + "timestamp '2025-01-01' + g * interval '1 minute', timestamp '2025-01-01' FROM generate_series(1, 20000) g");
+        execute("INSERT INTO recipe_ingredients (recipe_id, ingredient_id) "
+                + "SELECT r.id, i.id FROM recipes r JOIN ingredients i ON i.id % 17 = r.servings");
+        execute("ANALYZE");
+        // Scoped to the test's transaction
+        execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @Test
+    void flagSearch_ShouldReadTheCompositeIndexInResultOrder() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder().vegetarian(true).servings(4).build();
+
+        String plan = explainGenerated(() -> recipeRepository.findSummaries(
+                RecipeSpecifications.matching(searchRequest, Map.of()), PageRequest.of(0, 20, SEARCH_ORDER)),
+                true, 4, 0, 20);
+
+        assertIndexScan(plan, "idx_recipes_vegetarian_servings_created");
+        assertFalse(plan.contains("Sort"), plan);
+    }
+
+    @Test
+    void keysetPage_ShouldSeekTheCreationOrderIndex() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 5, 0, 0);
+        UUID id = new UUID(0, 0);
+
+        String plan = explainGenerated(() -> recipeRepository.findSummaryPageAfter(createdAt, id, PageRequest.of(0, 20)),
+                createdAt, id, 20);
+
+        assertIndexScan(plan, "idx_recipes_created");
+        // The cursor bounds the scan instead of filtering every entry before it
+        assertTrue(plan.contains("Index Cond"), plan);
+    }
+
+    @Test
+    void includedIngredients_ShouldReadRecipesByIngredient() {
+        Map<String, Ingredient> dictionary = dictionary("ingredient 1", "ingredient 2");
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .includeIngredients(List.of("ingredient 1", "ingredient 2"))
+                .build();
+
+        String plan = explainGenerated(() -> recipeRepository.findSummaries(
+                RecipeSpecifications.matching(searchRequest, dictionary), PageRequest.of(0, 20, SEARCH_ORDER)),
+                dictionary.get("ingredient 1").getId(), dictionary.get("ingredient 2").getId(), 2L, 0, 20);
+
+        assertIndexScan(plan, "idx_recipe_ingredients_ingredient");
+    }
+
+    @Test
+    void excludedIngredients_ShouldNotScanRecipeIngredients() {
+        Map<String, Ingredient> dictionary = dictionary("ingredient 3");
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .vegetarian(false)
+                .servings(2)
+                .excludeIngredients(List.of("ingredient 3"))
+                .build();
+
+        String plan = explainGenerated(() -> recipeRepository.findSummaries(
+                RecipeSpecifications.matching(searchRequest, dictionary), PageRequest.of(0, 20, SEARCH_ORDER)),
+                false, 2, dictionary.get("ingredient 3").getId(), 0, 20);
+
+        // Probing the primary key per recipe or reading the ingredient's rows are both fine
+        assertIndexScan(plan, "recipe_ingredients_pkey", "idx_recipe_ingredients_ingredient");
+    }
+
+    @Test
+    void instructionText_ShouldUseTheTrigramAndFullTextIndexes() {
+        // Selective, as a term matching most recipes is better served by walking the creation order index
+        RecipeSearchRequest substring = RecipeSearchRequest.builder().instructionText("for 12345 minutes").build();
+        RecipeSearchRequest fullText = RecipeSearchRequest.builder()
+                .instructionText("grilled salmon")
+                .textMode(TextSearchMode.FULL_TEXT)
+                .build();
+
+        assertIndexScan(explainGenerated(() -> recipeRepository.findSummaries(
+                        RecipeSpecifications.matching(substring, Map.of()), PageRequest.of(0, 20, SEARCH_ORDER)),
+                "%for 12345 minutes%", 0, 20), "idx_recipes_instructions_trgm");
+        assertIndexScan(explainGenerated(() -> recipeRepository.findSummariesByRank(
+                        RecipeSpecifications.matching(fullText, Map.of()), "grilled salmon", PageRequest.of(0, 20)),
+                0, 20), "idx_recipes_search_vector");
+    }
+
+    @Test
+    void fullTextSearch_ShouldMatchAndRankOnTheRecipeRow() {
+        execute("INSERT INTO recipes (id, title, instructions, vegetarian, servings, created_at, updated_at) VALUES "
+                + "(gen_random_uuid(), 'Fish tacos', 'Top with grilled salmon', false, 2, now(), now()), "
+                + "(gen_random_uuid(), 'Grilled salmon', 'Season the fish', false, 2, now(), now())");
+        SqlCapture.statements.clear();
+
+        List<RecipeSummary> results = recipeRepository.findSummariesByRank(
+                RecipeSpecifications.matchesFullText("grilled salmon"), "grilled salmon", PageRequest.of(0, 10));
+
+        // A title match outranks an instructions match
+        assertEquals(List.of("Grilled salmon", "Fish tacos"),
+                results.stream().map(RecipeSummary::getTitle).collect(Collectors.toList()));
+        String sql = SqlCapture.statements.get(0);
+        assertEquals(1, sql.split("(?i)from recipes").length - 1, sql);
+        assertTrue(sql.contains("search_vector @@"), sql);
+        assertTrue(sql.contains("ts_rank("), sql);
+    }
+
+    @Test
+    void changeFeed_ShouldReadPendingAndPublishedChangesByIndex() {
+        assertIndexScan(explainGenerated(() -> changeRepository.findByFeedPositionIsNullOrderByIdAsc(PageRequest.of(0, 500)),
+                500), "idx_recipe_changes_pending");
+        assertIndexScan(explainGenerated(() -> changeRepository.findByFeedPositionGreaterThanOrderByFeedPositionAsc(
+                100, PageRequest.of(0, 100)), 100L, 100), "recipe_changes_feed_position_key");
+    }
+
+    @Test
+    void catalogueVersion_ShouldReadEachOutboxMarkFromAnIndex() {
+        execute("INSERT INTO recipe_changes (id, feed_position, recipe_id, change_type, changed_at) "
+                + "SELECT g, CASE WHEN g <= 19990 THEN g END, gen_random_uuid(), 'UPDATED', "
+                + "timestamp '2025-01-01' + g * interval '1 second' FROM generate_series(1, 20000) g");
+        execute("ANALYZE recipe_changes");
+
+        SqlCapture.statements.clear();
+        RecipeChangeRepository.OutboxState state = changeRepository.findOutboxState();
+        String plan = explain(SqlCapture.statements.get(0));
+
+        // The pending count reads either the partial index or the NULL entries of the position index
+        assertIndexScan(plan, "recipe_changes_feed_position_key");
+        assertTrue(plan.contains("idx_recipe_changes_changed_at"), plan);
+        assertEquals(19990, state.getPublished());
+        assertEquals(10, state.getPending());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 5, 33, 20), state.getModified());
+    }
+
+    /**
+     * Records the SQL Hibernate sends, to check the shape of criteria queries and to explain them.
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    private void execute(String sql) {
+        entityManager.getEntityManager().createNativeQuery(sql).executeUpdate();
+    }
+
+    private String explain(String sql) {
+        List<?> rows = entityManager.getEntityManager().createNativeQuery("EXPLAIN " + sql).getResultList();
+        return rows.stream().map(Object::toString).collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Runs {@code query}, then explains the first statement it sent, exactly as Hibernate generated it,
+     * bound to {@code parameters} in order. The inspector sees only the SQL, so the caller passes the
+     * values again; a mismatch in their number fails the test with the statement.
+     */
+    private String explainGenerated(Runnable query, Object... parameters) {
+        SqlCapture.statements.clear();
+        query.run();
+        String sql = SqlCapture.statements.get(0);
+        assertEquals(parameters.length, sql.chars().filter(c -> c == '?').count(), sql);
+        return entityManager.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    explain.setObject(i + 1, parameters[i]);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rows = explain.executeQuery()) {
+                    while (rows.next()) {
+                        plan.append(rows.getString(1)).append('\n');
+                    }
+                }
+                return plan.toString();
+            }
+        });
+    }
+
+    private Map<String, Ingredient> dictionary(String... names) {
+        return ingredientRepository.findByNameIn(Set.of(names)).stream()
+                .collect(Collectors.toMap(Ingredient::getName, ingredient -> ingredient));
+    }
+
+    private static void assertIndexScan(String plan, String... anyOfIndexes) {
+        assertFalse(plan.contains("Seq Scan"), plan);
+        assertTrue(List.of(anyOfIndexes).stream().anyMatch(plan::contains), plan);
+    }
+}
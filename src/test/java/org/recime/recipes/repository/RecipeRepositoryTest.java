@@ -0,0 +1,345 @@
+package org.recime.recipes.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.recime.recipes.dto.PantryCoverage;
+import org.recime.recipes.dto.RecipeFacetState;
+import org.recime.recipes.dto.RecipeFacets;
+import org.recime.recipes.dto.RecipeSearchRequest;
+import org.recime.recipes.dto.RecipeSummary;
+import org.recime.recipes.dto.RecipeVersion;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.model.Ingredient;
+import org.recime.recipes.model.Recipe;
+import org.recime.recipes.model.RecipeChange;
+import org.recime.recipes.util.TestRecipeFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never"
+})
+public class RecipeRepositoryTest {
+
+    private static final int RECIPE_COUNT = 20;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private RecipeChangeRepository changeRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private final Map<String, Ingredient> dictionary = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < RECIPE_COUNT; i++) {
+            Recipe recipe = TestRecipeFactory.createCustomRecipe(
+                    null,
+                    "Recipe " + i,
+                    "Description " + i,
+                    Arrays.asList("Ingredient " + i, "Salt"),
+                    "Cook for " + i + " minutes",
+                    i % 2 == 0,
+                    4
+            );
+            // The factory assigns a random id; leave it to the generator so persist treats the recipe as new
+            recipe.setId(null);
+            recipe.setIngredients(recipe.getIngredients().stream()
+                    .map(ingredient -> dictionary.computeIfAbsent(ingredient.getName(), name -> entityManager.persist(ingredient)))
+                    .collect(Collectors.toCollection(LinkedHashSet::new)));
+            entityManager.persist(recipe);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findFirstSummaryPage_ShouldSelectLightColumnsInOneStatement() {
+        List<RecipeSummary> page = recipeRepository.findFirstSummaryPage(PageRequest.of(0, RECIPE_COUNT));
+
+        assertEquals(RECIPE_COUNT, page.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void findIngredientRowsByIdIn_ShouldLoadPageIngredientsInOneStatement() {
+        List<UUID> ids = recipeRepository.findFirstSummaryPage(PageRequest.of(0, RECIPE_COUNT)).stream()
+                .map(RecipeSummary::getId)
+                .collect(Collectors.toList());
+
+        List<RecipeRepository.IngredientRow> rows = recipeRepository.findIngredientRowsByIdIn(ids);
+
+        assertEquals(RECIPE_COUNT * 2, rows.size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findSummaryPageAfter_ShouldSeekPastCursor() {
+        List<RecipeSummary> firstPage = recipeRepository.findFirstSummaryPage(PageRequest.of(0, 5));
+        RecipeSummary last = firstPage.get(firstPage.size() - 1);
+
+        List<RecipeSummary> nextPage = recipeRepository.findSummaryPageAfter(last.getCreatedAt(), last.getId(), PageRequest.of(0, 5));
+
+        assertEquals(5, nextPage.size());
+        nextPage.forEach(recipe -> assertFalse(firstPage.contains(recipe)));
+    }
+
+    @Test
+    void findSummaries_WithSpecification_ShouldPageInDatabase() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .vegetarian(true)
+                .includeIngredients(Arrays.asList("Salt"))
+                .build();
+
+        List<RecipeSummary> results = recipeRepository.findSummaries(
+                RecipeSpecifications.matching(searchRequest, dictionary),
+                PageRequest.of(1, 4, Sort.by("createdAt", "id")));
+
+        assertEquals(4, results.size());
+        results.forEach(recipe -> assertTrue(recipe.isVegetarian()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findFacets_ShouldCountAllMatchesInTwoStatements() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .vegetarian(true)
+                .excludeIngredients(Arrays.asList("Ingredient 0"))
+                .build();
+
+        RecipeFacets facets = recipeRepository.findFacets(RecipeSpecifications.matching(searchRequest, dictionary), 3);
+
+        assertEquals(RECIPE_COUNT / 2 - 1, facets.getTotal());
+        assertEquals(RECIPE_COUNT / 2 - 1, facets.getVegetarian());
+        assertEquals(RECIPE_COUNT / 2 - 1, facets.getServings().get("3-4"));
+        assertEquals(List.of("salt", "ingredient 10", "ingredient 12"), List.copyOf(facets.getIngredients().keySet()));
+        assertEquals(RECIPE_COUNT / 2 - 1, facets.getIngredients().get("salt"));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void countByFlagsAndIngredient_ShouldCountTheWholeCatalogue() {
+        List<RecipeRepository.FlagCount> flags = recipeRepository.countByFlags();
+        Map<String, Long> ingredients = recipeRepository.countByIngredient().stream()
+                .collect(Collectors.toMap(RecipeRepository.IngredientCount::getIngredient, RecipeRepository.IngredientCount::getRecipes));
+
+        assertEquals(2, flags.size());
+        flags.forEach(row -> assertEquals(RECIPE_COUNT / 2, row.getRecipes()));
+        assertEquals(RECIPE_COUNT + 1, ingredients.size());
+        assertEquals(RECIPE_COUNT, ingredients.get("salt"));
+    }
+
+    @Test
+    void lockFacetStates_ShouldReadFlagsAndIngredientsOfExistingRecipes() {
+        RecipeSummary recipe = recipeRepository.findFirstSummaryPage(PageRequest.of(0, 1)).get(0);
+        UUID missingId = UUID.randomUUID();
+
+        Map<UUID, RecipeFacetState> states = recipeRepository.lockFacetStates(List.of(recipe.getId(), missingId));
+
+        assertEquals(Set.of(recipe.getId()), states.keySet());
+        RecipeFacetState state = states.get(recipe.getId());
+        assertEquals(recipe.isVegetarian(), state.isVegetarian());
+        assertEquals(4, state.getServings());
+        assertEquals(2, state.getIngredients().size());
+        assertTrue(state.getIngredients().contains("salt"));
+    }
+
+    @Test
+    void findAll_WithIngredientSpecification_ShouldFilterInDatabase() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .vegetarian(true)
+                .includeIngredients(Arrays.asList("Salt", " ingredient  4", "SALT"))
+                .excludeIngredients(Arrays.asList("Ingredient 6"))
+                .build();
+
+        List<Recipe> results = recipeRepository.findAll(RecipeSpecifications.matching(searchRequest, dictionary));
+
+        assertEquals(1, results.size());
+        assertEquals("Recipe 4", results.get(0).getTitle());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAll_WithExcludeSpecification_ShouldDropRecipesContainingIngredient() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .excludeIngredients(Arrays.asList("Ingredient 1", "Ingredient 2"))
+                .instructionText("MINUTES")
+                .build();
+
+        List<Recipe> results = recipeRepository.findAll(RecipeSpecifications.matching(searchRequest, dictionary));
+
+        assertEquals(RECIPE_COUNT - 2, results.size());
+        results.forEach(recipe -> assertNotEquals("Recipe 1", recipe.getTitle()));
+    }
+
+    @Test
+    void findAll_WithIngredientMissingFromDictionary_ShouldMatchNothing() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .includeIngredients(Arrays.asList("Salt", "Saffron"))
+                .build();
+
+        List<Recipe> results = recipeRepository.findAll(RecipeSpecifications.matching(searchRequest, dictionary));
+
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    void updateIfVersionMatches_ShouldWriteOnlyForCurrentVersion() {
+        UUID id = recipeRepository.findFirstSummaryPage(PageRequest.of(0, 1)).get(0).getId();
+        LocalDateTime updatedAt = Recipe.timestamp();
+
+        int stale = recipeRepository.updateIfVersionMatches(id, 3L, "Stale", null, "Cook", true, 2, updatedAt);
+        int current = recipeRepository.updateIfVersionMatches(id, 0L, "Current", null, "Cook", true, 2, updatedAt);
+
+        assertEquals(0, stale);
+        assertEquals(1, current);
+        RecipeVersion version = recipeRepository.findVersionById(id).orElseThrow();
+        assertEquals(1L, version.getVersion());
+        assertEquals(updatedAt, version.getUpdatedAt());
+    }
+
+    @Test
+    void syncIngredients_ShouldRemoveAndAddOnlyTheDifference() {
+        UUID id = recipeRepository.findFirstSummaryPage(PageRequest.of(0, 1)).get(0).getId();
+        Ingredient pepper = entityManager.persistAndFlush(Ingredient.named("Pepper"));
+        List<Integer> ingredientIds = Arrays.asList(dictionary.get("salt").getId(), pepper.getId());
+
+        int removed = recipeRepository.removeIngredientsNotIn(id, ingredientIds);
+        int added = recipeRepository.addMissingIngredients(id, ingredientIds);
+
+        assertEquals(1, removed);
+        assertEquals(1, added);
+        List<String> names = recipeRepository.findIngredientRowsByIdIn(List.of(id)).stream()
+                .map(RecipeRepository.IngredientRow::getIngredient)
+                .collect(Collectors.toList());
+        assertEquals(List.of("pepper", "salt"), names);
+    }
+
+    @Test
+    void deleteRecipeById_ShouldCascadeToIngredientRowsInOneStatement() {
+        UUID id = recipeRepository.findFirstSummaryPage(PageRequest.of(0, 1)).get(0).getId();
+        statistics.clear();
+
+        int deleted = recipeRepository.deleteRecipeById(id);
+
+        assertEquals(1, deleted);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        Number ingredientRows = (Number) entityManager.getEntityManager()
+                .createNativeQuery("SELECT COUNT(*) FROM recipe_ingredients WHERE recipe_id = :id")
+                .setParameter("id", id)
+                .getSingleResult();
+        assertEquals(0, ingredientRows.intValue());
+        assertEquals(0, recipeRepository.deleteRecipeById(id));
+    }
+
+    @Test
+    void findTopByPantryCoverage_ShouldRankInOneStatement() {
+        List<Integer> pantry = Arrays.asList(dictionary.get("salt").getId(), dictionary.get("ingredient 3").getId());
+
+        List<PantryCoverage> exact = recipeRepository.findTopByPantryCoverage(pantry, 0, null, null, PageRequest.of(0, 10));
+        List<PantryCoverage> ranked = recipeRepository.findTopByPantryCoverage(pantry, 1, false, null, PageRequest.of(0, 5));
+
+        assertEquals(1, exact.size());
+        assertEquals(2, exact.get(0).getMatchedCount());
+        assertEquals(2, exact.get(0).getIngredientCount());
+        assertEquals(5, ranked.size());
+        // Recipe 3 is the only odd, so non-vegetarian, recipe with full coverage
+        assertEquals(exact.get(0).getRecipeId(), ranked.get(0).getRecipeId());
+        ranked.subList(1, ranked.size()).forEach(coverage -> assertEquals(0.5, coverage.getCoverage()));
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void recipeChanges_ShouldQueuePendingChangesAndReadPublishedOnesInPositionOrder() {
+        LocalDateTime now = Recipe.timestamp();
+        RecipeChange published = changeRepository.save(change(2L, now));
+        RecipeChange olderPending = changeRepository.save(change(null, now));
+        RecipeChange newerPending = changeRepository.save(change(null, now));
+        changeRepository.save(change(1L, now));
+        entityManager.flush();
+
+        List<RecipeChange> pending = changeRepository.findByFeedPositionIsNullOrderByIdAsc(PageRequest.of(0, 10));
+        List<RecipeChange> after = changeRepository.findByFeedPositionGreaterThanOrderByFeedPositionAsc(0, PageRequest.of(0, 10));
+
+        assertEquals(List.of(olderPending.getId(), newerPending.getId()), pending.stream().map(RecipeChange::getId).toList());
+        assertEquals(2, changeRepository.findLastFeedPosition());
+        assertEquals(List.of(1L, 2L), after.stream().map(RecipeChange::getFeedPosition).toList());
+        assertEquals(published.getId(), after.get(1).getId());
+    }
+
+    @Test
+    void findOutboxState_ShouldReadLastPositionPendingCountAndLatestChange() {
+        assertEquals(0, changeRepository.findOutboxState().getPublished());
+        assertNull(changeRepository.findOutboxState().getModified());
+
+        LocalDateTime now = Recipe.timestamp();
+        changeRepository.save(change(1L, now.minusMinutes(5)));
+        changeRepository.save(change(2L, now.minusMinutes(3)));
+        changeRepository.save(change(null, now));
+        entityManager.flush();
+
+        RecipeChangeRepository.OutboxState state = changeRepository.findOutboxState();
+        assertEquals(2, state.getPublished());
+        assertEquals(1, state.getPending());
+        assertEquals(now, state.getModified());
+    }
+
+    @Test
+    void deletePublishedBefore_ShouldKeepPendingChangesAndTheLastPublishedOne() {
+        LocalDateTime old = Recipe.timestamp().minusDays(30);
+        changeRepository.save(change(1L, old));
+        changeRepository.save(change(2L, old));
+        changeRepository.save(change(null, old));
+        entityManager.flush();
+
+        assertEquals(1, changeRepository.deletePublishedBefore(Recipe.timestamp().minusDays(7)));
+
+        entityManager.clear();
+        assertEquals(2, changeRepository.findLastFeedPosition());
+        assertEquals(1, changeRepository.findByFeedPositionIsNullOrderByIdAsc(PageRequest.of(0, 10)).size());
+    }
+
+    private static RecipeChange change(Long feedPosition, LocalDateTime changedAt) {
+        return RecipeChange.builder()
+                .feedPosition(feedPosition)
+                .recipeId(UUID.randomUUID())
+                .type(RecipeChangedEvent.ChangeType.UPDATED)
+                .recipeVersion(1L)
+                .changedAt(changedAt)
+                .build();
+    }
+}
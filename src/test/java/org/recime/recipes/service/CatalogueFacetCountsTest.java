@@ -0,0 +1,126 @@
+package org.recime.recipes.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeFacetState;
+import org.recime.recipes.dto.RecipeFacets;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.repository.RecipeRepository;
+import org.recime.recipes.util.TestRecipeFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogueFacetCountsTest {
+
+    @Mock
+    private RecipeRepository recipeRepository;
+
+    @InjectMocks
+    private CatalogueFacetCounts catalogueFacetCounts;
+
+    @Test
+    void facets_ShouldCountTheCatalogueOnce() {
+        givenCatalogue();
+
+        RecipeFacets facets = catalogueFacetCounts.facets();
+        catalogueFacetCounts.facets();
+
+        assertEquals(3, facets.getTotal());
+        assertEquals(1, facets.getVegetarian());
+        assertEquals(1L, facets.getServings().get("1-2"));
+        assertEquals(2L, facets.getServings().get("3-4"));
+        assertEquals(List.of("salt", "basil"), List.copyOf(facets.getIngredients().keySet()));
+        assertEquals(3L, facets.getIngredients().get("salt"));
+        verify(recipeRepository, times(1)).countByFlags();
+    }
+
+    @Test
+    void onRecipeChanged_BeforeTheFirstCount_ShouldBeIgnored() {
+        catalogueFacetCounts.onRecipeChanged(RecipeChangedEvent.deleted(UUID.randomUUID()));
+
+        verifyNoInteractions(recipeRepository);
+    }
+
+    @Test
+    void onRecipeChanged_ShouldMoveTheRecipeFromItsPreviousState() {
+        givenCatalogue();
+        catalogueFacetCounts.facets();
+        UUID recipeId = UUID.randomUUID();
+        RecipeDto recipe = TestRecipeFactory.createBasicRecipeDto(recipeId);
+
+        catalogueFacetCounts.onRecipeChanged(RecipeChangedEvent.created(recipe));
+        catalogueFacetCounts.onRecipeChanged(RecipeChangedEvent.updated(RecipeFacetState.of(recipe), recipe));
+        catalogueFacetCounts.onRecipeChanged(RecipeChangedEvent.deleted(recipeId, RecipeFacetState.of(recipe)));
+        catalogueFacetCounts.onRecipeChanged(RecipeChangedEvent.deleted(UUID.randomUUID(),
+                new RecipeFacetState(true, 2, Set.of("basil", "salt"))));
+        RecipeFacets facets = catalogueFacetCounts.facets();
+
+        assertEquals(2, facets.getTotal());
+        assertEquals(0, facets.getVegetarian());
+        assertEquals(0L, facets.getServings().get("1-2"));
+        assertEquals(2L, facets.getServings().get("3-4"));
+        assertEquals(Map.of("salt", 2L), facets.getIngredients());
+        verify(recipeRepository, times(1)).countByFlags();
+    }
+
+    @Test
+    void onRecipeChanged_WithoutPreviousState_ShouldCountAgain() {
+        givenCatalogue();
+        catalogueFacetCounts.facets();
+
+        catalogueFacetCounts.onRecipeChanged(RecipeChangedEvent.deleted(UUID.randomUUID()));
+        catalogueFacetCounts.facets();
+
+        verify(recipeRepository, times(2)).countByFlags();
+        verify(recipeRepository, times(2)).countByIngredient();
+    }
+
+    private void givenCatalogue() {
+        when(recipeRepository.countByFlags()).thenReturn(List.of(flagCount(true, 2, 1), flagCount(false, 4, 2)));
+        when(recipeRepository.countByIngredient()).thenReturn(List.of(ingredientCount("salt", 3), ingredientCount("basil", 1)));
+    }
+
+    private static RecipeRepository.FlagCount flagCount(boolean vegetarian, int servings, long recipes) {
+        return new RecipeRepository.FlagCount() {
+            @Override
+            public boolean isVegetarian() {
+                return vegetarian;
+            }
+
+            @Override
+            public int getServings() {
+                return servings;
+            }
+
+            @Override
+            public long getRecipes() {
+                return recipes;
+            }
+        };
+    }
+
+    private static RecipeRepository.IngredientCount ingredientCount(String ingredient, long recipes) {
+        return new RecipeRepository.IngredientCount() {
+            @Override
+            public String getIngredient() {
+                return ingredient;
+            }
+
+            @Override
+            public long getRecipes() {
+                return recipes;
+            }
+        };
+    }
+}
@@ -0,0 +1,104 @@
+package org.recime.recipes.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeFacetState;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.model.Ingredient;
+import org.recime.recipes.model.Recipe;
+import org.recime.recipes.repository.IngredientRepository;
+import org.recime.recipes.repository.RecipeRepository;
+import org.recime.recipes.util.TestRecipeFactory;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IngredientCanonicalizerTest {
+
+    @Mock
+    private IngredientRepository ingredientRepository;
+
+    @Mock
+    private IngredientDictionary ingredientDictionary;
+
+    @Mock
+    private RecipeRepository recipeRepository;
+
+    @Mock
+    private RecipeConverter recipeConverter;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private IngredientCanonicalizer ingredientCanonicalizer;
+
+    @Test
+    void canonicalize_ShouldMergeStaleEntriesIntoCanonicalOnes() {
+        Ingredient tomato = new Ingredient(1, "tomato");
+        Ingredient tomatoes = new Ingredient(2, "tomatoes");
+        Ingredient cherryTomato = new Ingredient(3, "cherry tomato");
+        when(ingredientRepository.findAll()).thenReturn(List.of(tomato, tomatoes, cherryTomato));
+        when(ingredientDictionary.intern(List.of("tomatoes", "cherry tomato"))).thenReturn(Map.of("tomato", tomato));
+        UUID recipeId = UUID.randomUUID();
+        Recipe recipe = TestRecipeFactory.createBasicRecipe(recipeId);
+        RecipeDto recipeDto = TestRecipeFactory.createBasicRecipeDto(recipeId);
+        RecipeFacetState previous = new RecipeFacetState(false, 2, Set.of("tomatoes", "cherry tomato"));
+        when(ingredientRepository.findRecipeIdsByIngredientIdIn(List.of(2, 3))).thenReturn(List.of(recipeId));
+        when(recipeRepository.lockFacetStates(List.of(recipeId))).thenReturn(Map.of(recipeId, previous));
+        when(recipeRepository.findAllById(List.of(recipeId))).thenReturn(List.of(recipe));
+        when(recipeConverter.mapToDto(recipe)).thenReturn(recipeDto);
+
+        assertEquals(2, ingredientCanonicalizer.canonicalize());
+
+        verify(recipeRepository).touchRecipesByIdIn(eq(List.of(recipeId)), any(LocalDateTime.class));
+        verify(eventPublisher).publishEvent(RecipeChangedEvent.updated(previous, recipeDto));
+        for (int stale : new int[]{2, 3}) {
+            verify(ingredientRepository).copyRecipeIngredients(stale, 1);
+            verify(ingredientRepository).deleteRecipeIngredients(stale);
+            verify(ingredientRepository).deleteIngredient(stale);
+        }
+        verify(ingredientRepository, never()).deleteIngredient(1);
+        verify(ingredientDictionary).evict(List.of("tomatoes", "cherry tomato"));
+    }
+
+    @Test
+    void canonicalize_WhenDictionaryIsCanonical_ShouldWriteNothing() {
+        when(ingredientRepository.findAll()).thenReturn(List.of(new Ingredient(1, "tomato"), new Ingredient(2, "basil")));
+
+        assertEquals(0, ingredientCanonicalizer.canonicalize());
+
+        verify(ingredientDictionary, never()).intern(anyList());
+        verify(ingredientRepository, never()).deleteIngredient(anyInt());
+        verifyNoInteractions(recipeRepository, eventPublisher);
+    }
+
+    @Test
+    void canonicalize_WhenStaleEntriesAreUnused_ShouldPublishNothing() {
+        Ingredient tomato = new Ingredient(1, "tomato");
+        when(ingredientRepository.findAll()).thenReturn(List.of(tomato, new Ingredient(2, "tomatoes")));
+        when(ingredientDictionary.intern(List.of("tomatoes"))).thenReturn(Map.of("tomato", tomato));
+
+        assertEquals(1, ingredientCanonicalizer.canonicalize());
+
+        verify(ingredientRepository).deleteIngredient(2);
+        verify(recipeRepository, never()).touchRecipesByIdIn(anyList(), any(LocalDateTime.class));
+        verifyNoInteractions(eventPublisher);
+    }
+}
@@ -0,0 +1,118 @@
+package org.recime.recipes.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.recime.recipes.model.Ingredient;
+import org.recime.recipes.repository.IngredientRepository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IngredientDictionaryTest {
+
+    @Mock
+    private IngredientRepository ingredientRepository;
+
+    private IngredientDictionary ingredientDictionary;
+
+    @BeforeEach
+    void setUp() {
+        ingredientDictionary = new IngredientDictionary(ingredientRepository, 100);
+    }
+
+    @Test
+    void lookup_ShouldNormalizeNamesAndQueryOnlyUncachedOnes() {
+        Ingredient oliveOil = new Ingredient(1, "olive oil");
+        when(ingredientRepository.findByNameIn(Set.of("olive oil", "saffron"))).thenReturn(List.of(oliveOil));
+
+        Map<String, Ingredient> first = ingredientDictionary.lookup(Arrays.asList(" Olive  Oil", "Saffron"));
+        Map<String, Ingredient> second = ingredientDictionary.lookup(Arrays.asList("olive oil"));
+
+        assertEquals(Map.of("olive oil", oliveOil), first);
+        assertEquals(Map.of("olive oil", oliveOil), second);
+        verify(ingredientRepository, times(1)).findByNameIn(any());
+        verify(ingredientRepository, never()).insertIfAbsent(any());
+    }
+
+    @Test
+    void intern_ShouldAddMissingNamesAndReadThemBack() {
+        when(ingredientRepository.findByNameIn(Set.of("basil")))
+                .thenReturn(List.of())
+                .thenReturn(List.of(new Ingredient(7, "basil")));
+
+        Map<String, Ingredient> ingredients = ingredientDictionary.intern(Arrays.asList("Basil", "basil "));
+
+        assertEquals(7, ingredients.get("basil").getId());
+        // An insert that loses a race with a concurrent one adds nothing, and the read returns the winner
+        verify(ingredientRepository, times(1)).insertIfAbsent("basil");
+    }
+
+    @Test
+    void intern_InTransaction_ShouldCacheAddedNamesWhenItCommits() {
+        when(ingredientRepository.findByNameIn(Set.of("basil")))
+                .thenReturn(List.of())
+                .thenReturn(List.of(new Ingredient(7, "basil")));
+
+        internInTransaction(true);
+
+        assertEquals(7, ingredientDictionary.lookup(List.of("basil")).get("basil").getId());
+        verify(ingredientRepository, times(2)).findByNameIn(Set.of("basil"));
+    }
+
+    @Test
+    void intern_InTransaction_ShouldNotCacheAddedNamesWhenItRollsBack() {
+        when(ingredientRepository.findByNameIn(Set.of("basil")))
+                .thenReturn(List.of())
+                .thenReturn(List.of(new Ingredient(7, "basil")))
+                .thenReturn(List.of());
+
+        internInTransaction(false);
+
+        assertTrue(ingredientDictionary.lookup(List.of("basil")).isEmpty());
+        verify(ingredientRepository, times(3)).findByNameIn(Set.of("basil"));
+    }
+
+    @Test
+    void evict_InTransaction_ShouldDropTheEntryWhenItCommits() {
+        when(ingredientRepository.findByNameIn(Set.of("saffron")))
+                .thenReturn(List.of(new Ingredient(2, "saffron")))
+                .thenReturn(List.of());
+        ingredientDictionary.lookup(List.of("saffron"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ingredientDictionary.evict(List.of("saffron"));
+            assertEquals(2, ingredientDictionary.lookup(List.of("saffron")).get("saffron").getId());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(ingredientDictionary.lookup(List.of("saffron")).isEmpty());
+        verify(ingredientRepository, times(2)).findByNameIn(Set.of("saffron"));
+    }
+
+    private void internInTransaction(boolean commit) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ingredientDictionary.intern(List.of("Basil"));
+            if (commit) {
+                TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.recime.recipes.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.recime.recipes.dto.BulkItemResult;
+import org.recime.recipes.dto.RecipeRequest;
+import org.recime.recipes.util.TestRecipeFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares import throughput of the single-item and bulk write paths against an in-memory database.
+ * Excluded from the default build; run with
+ * {@code ./mvnw test -Dsurefire.excludedGroups= -Dgroups=benchmark -Dtest=RecipeBulkBenchmarkTest}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulk-benchmark;MODE=PostgreSQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.sql.init.mode=never"
+})
+public class RecipeBulkBenchmarkTest {
+
+    private static final int RECIPE_COUNT = 10_000;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeBulkService recipeBulkService;
+
+    @Test
+    void compareSingleAndBulkCreateThroughput() {
+        List<RecipeRequest> requests = generate(RECIPE_COUNT);
+
+        long singleStart = System.nanoTime();
+        requests.forEach(recipeService::createRecipe);
+        long singleNanos = System.nanoTime() - singleStart;
+
+        long bulkStart = System.nanoTime();
+        List<BulkItemResult> results = recipeBulkService.createRecipes(requests.iterator());
+        long bulkNanos = System.nanoTime() - bulkStart;
+
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == BulkItemResult.Status.CREATED));
+        System.out.printf("single-item create: %,.0f recipes/s%n", RECIPE_COUNT / (singleNanos / 1e9));
+        System.out.printf("bulk create:        %,.0f recipes/s%n", RECIPE_COUNT / (bulkNanos / 1e9));
+    }
+
+    private static List<RecipeRequest> generate(int count) {
+        List<RecipeRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(TestRecipeFactory.createCustomRecipeRequest(
+                    "Recipe " + i,
+                    "Generated recipe " + i,
+                    Arrays.asList("Ingredient " + (i % 100), "Ingredient " + (i % 37), "Salt"),
+                    "Cook for " + (i % 60) + " minutes",
+                    i % 3 == 0,
+                    1 + i % 8));
+        }
+        return requests;
+    }
+}
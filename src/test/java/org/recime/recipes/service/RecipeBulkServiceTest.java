@@ -0,0 +1,244 @@
+package org.recime.recipes.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.recime.recipes.dto.BulkItemResult;
+import org.recime.recipes.dto.RecipeFacetState;
+import org.recime.recipes.dto.RecipeRequest;
+import org.recime.recipes.dto.RecipeSearchRequest;
+import org.recime.recipes.dto.RecipeSummary;
+import org.recime.recipes.dto.RecipeUpdateItem;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.exception.MalformedBulkItemException;
+import org.recime.recipes.exception.MissingFilterException;
+import org.recime.recipes.model.Ingredient;
+import org.recime.recipes.model.Recipe;
+import org.recime.recipes.repository.RecipeRepository;
+import org.recime.recipes.util.TestRecipeFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RecipeBulkServiceTest {
+
+    @Mock
+    private RecipeRepository recipeRepository;
+
+    @Mock
+    private IngredientDictionary ingredientDictionary;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RecipeBulkService recipeBulkService;
+
+    @BeforeEach
+    void setUp() {
+        recipeBulkService = new RecipeBulkService(
+                recipeRepository,
+                new RecipeConverter(),
+                ingredientDictionary,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                entityManager,
+                eventPublisher,
+                transactionManager,
+                2);
+        lenient().when(ingredientDictionary.intern(anyCollection())).thenAnswer(invocation ->
+                TestRecipeFactory.createIngredientDictionary(invocation.getArgument(0)));
+    }
+
+    @Test
+    void createRecipes_ShouldReportInvalidItemsAndFlushPerChunk() {
+        RecipeRequest invalid = TestRecipeFactory.createBasicRecipeRequest();
+        invalid.setTitle("");
+        List<RecipeRequest> requests = Arrays.asList(
+                TestRecipeFactory.createBasicRecipeRequest(),
+                invalid,
+                TestRecipeFactory.createVegetarianRecipeRequest(),
+                TestRecipeFactory.createBasicRecipeRequest());
+
+        when(recipeRepository.save(any(Recipe.class))).thenAnswer(invocation -> {
+            Recipe recipe = invocation.getArgument(0);
+            recipe.setId(UUID.randomUUID());
+            return recipe;
+        });
+
+        List<BulkItemResult> results = recipeBulkService.createRecipes(requests.iterator());
+
+        assertEquals(4, results.size());
+        assertEquals(BulkItemResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(BulkItemResult.Status.INVALID, results.get(1).getStatus());
+        assertTrue(results.get(1).getErrors().containsKey("title"));
+        assertEquals(BulkItemResult.Status.CREATED, results.get(2).getStatus());
+        assertEquals(BulkItemResult.Status.CREATED, results.get(3).getStatus());
+        verify(recipeRepository, times(3)).save(any(Recipe.class));
+        // Three valid items with a chunk size of two
+        verify(transactionManager, times(2)).commit(any());
+        verify(entityManager, times(2)).flush();
+        // Ingredients are interned once per chunk, not once per recipe
+        verify(ingredientDictionary, times(2)).intern(anyCollection());
+    }
+
+    @Test
+    void createRecipes_WhenChunkFails_ShouldMarkOnlyThatChunkFailed() {
+        List<RecipeRequest> requests = Arrays.asList(
+                TestRecipeFactory.createBasicRecipeRequest(),
+                TestRecipeFactory.createBasicRecipeRequest(),
+                TestRecipeFactory.createBasicRecipeRequest());
+
+        when(recipeRepository.save(any(Recipe.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataIntegrityViolationException("duplicate"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<BulkItemResult> results = recipeBulkService.createRecipes(requests.iterator());
+
+        assertEquals(BulkItemResult.Status.FAILED, results.get(0).getStatus());
+        assertEquals(BulkItemResult.Status.FAILED, results.get(1).getStatus());
+        assertEquals(BulkItemResult.Status.CREATED, results.get(2).getStatus());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    void createRecipes_WithUnreadableItem_ShouldReportItFailedAndGoOn() {
+        Iterator<RecipeRequest> requests = mock();
+        when(requests.hasNext()).thenReturn(true, true, true, false);
+        when(requests.next())
+                .thenReturn(TestRecipeFactory.createBasicRecipeRequest())
+                .thenThrow(new MalformedBulkItemException("Unexpected character", null))
+                .thenReturn(TestRecipeFactory.createVegetarianRecipeRequest());
+        when(recipeRepository.save(any(Recipe.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<BulkItemResult> results = recipeBulkService.createRecipes(requests);
+
+        assertEquals(3, results.size());
+        assertEquals(BulkItemResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(BulkItemResult.Status.FAILED, results.get(1).getStatus());
+        assertEquals("Unexpected character", results.get(1).getErrors().get("item"));
+        assertEquals(BulkItemResult.Status.CREATED, results.get(2).getStatus());
+        verify(recipeRepository, times(2)).save(any(Recipe.class));
+    }
+
+    @Test
+    void updateRecipes_ShouldLoadChunkOnceAndReportMissingIds() {
+        Recipe existing = TestRecipeFactory.createBasicRecipe(null);
+        UUID missingId = UUID.randomUUID();
+        List<RecipeUpdateItem> items = Arrays.asList(
+                new RecipeUpdateItem(existing.getId(), TestRecipeFactory.createVegetarianRecipeRequest()),
+                new RecipeUpdateItem(missingId, TestRecipeFactory.createBasicRecipeRequest()));
+
+        when(recipeRepository.findAllById(Arrays.asList(existing.getId(), missingId))).thenReturn(List.of(existing));
+        long version = existing.getVersion();
+        // The flush is what increments the version
+        when(recipeRepository.saveAllAndFlush(List.of(existing))).thenAnswer(invocation -> {
+            existing.setVersion(version + 1);
+            return List.of(existing);
+        });
+
+        List<BulkItemResult> results = recipeBulkService.updateRecipes(items.iterator());
+
+        assertEquals(BulkItemResult.Status.UPDATED, results.get(0).getStatus());
+        assertEquals("Vegetarian Test Recipe", existing.getTitle());
+        assertEquals(3, existing.getIngredients().size());
+        assertTrue(existing.getIngredients().contains(Ingredient.named("Spice 1")));
+        assertEquals(BulkItemResult.Status.NOT_FOUND, results.get(1).getStatus());
+        verify(recipeRepository, times(1)).findAllById(any());
+        ArgumentCaptor<RecipeChangedEvent> event = ArgumentCaptor.forClass(RecipeChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(version + 1, event.getValue().getRecipe().getVersion());
+    }
+
+    @Test
+    void deleteRecipes_ShouldDeleteExistingAndReportMissing() {
+        Recipe existing = TestRecipeFactory.createBasicRecipe(null);
+        UUID missingId = UUID.randomUUID();
+
+        RecipeFacetState previous = new RecipeFacetState(false, 2, Set.of("salt"));
+        when(recipeRepository.lockFacetStates(Set.of(existing.getId(), missingId)))
+                .thenReturn(Map.of(existing.getId(), previous));
+
+        List<BulkItemResult> results = recipeBulkService.deleteRecipes(Arrays.asList(existing.getId(), missingId).iterator());
+
+        assertEquals(BulkItemResult.Status.DELETED, results.get(0).getStatus());
+        assertEquals(BulkItemResult.Status.NOT_FOUND, results.get(1).getStatus());
+        verify(recipeRepository, times(1)).deleteRecipesByIdIn(Set.of(existing.getId()));
+        verify(recipeRepository, never()).findAllById(any());
+        verify(eventPublisher).publishEvent(RecipeChangedEvent.deleted(existing.getId(), previous));
+    }
+
+    @Test
+    void deleteMatching_ShouldDeleteChunkByChunkUntilNothingMatches() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder().vegetarian(false).build();
+        List<RecipeSummary> firstChunk = List.of(summary(), summary());
+        List<RecipeSummary> lastChunk = List.of(summary());
+        when(recipeRepository.findSummaries(any(), any(Pageable.class)))
+                .thenReturn(firstChunk)
+                .thenReturn(lastChunk);
+        when(recipeRepository.lockFacetStates(anyCollection())).thenAnswer(invocation -> {
+            Map<UUID, RecipeFacetState> states = new HashMap<>();
+            for (Object id : invocation.getArgument(0, Collection.class)) {
+                states.put((UUID) id, new RecipeFacetState(false, 2, Set.of()));
+            }
+            return states;
+        });
+        when(recipeRepository.deleteRecipesByIdIn(anyCollection())).thenReturn(2, 1);
+
+        long deleted = recipeBulkService.deleteMatching(searchRequest);
+
+        assertEquals(3, deleted);
+        verify(recipeRepository, times(2)).findSummaries(any(), any(Pageable.class));
+        verify(eventPublisher, times(3)).publishEvent(any(RecipeChangedEvent.class));
+    }
+
+    @Test
+    void deleteMatching_WithoutCriteria_ShouldRefuseToDeleteEverything() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder().size(10).build();
+
+        assertThrows(MissingFilterException.class, () -> recipeBulkService.deleteMatching(searchRequest));
+        verifyNoInteractions(recipeRepository);
+    }
+
+    @Test
+    void deleteMatching_ExcludingOnlyUnknownIngredients_ShouldRefuseToDeleteEverything() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .excludeIngredients(List.of("unobtainium"))
+                .build();
+
+        assertThrows(MissingFilterException.class, () -> recipeBulkService.deleteMatching(searchRequest));
+        verifyNoInteractions(recipeRepository);
+    }
+
+    private static RecipeSummary summary() {
+        LocalDateTime now = LocalDateTime.now();
+        return new RecipeSummary(UUID.randomUUID(), "Recipe", false, 2, now, now);
+    }
+}
@@ -0,0 +1,291 @@
+package org.recime.recipes.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.recime.recipes.dto.PantryCoverage;
+import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeFacets;
+import org.recime.recipes.dto.RecipeSearchRequest;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.repository.RecipeRepository;
+import org.recime.recipes.util.TestRecipeFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RecipeSearchIndexTest {
+
+    @Mock
+    private RecipeRepository recipeRepository;
+
+    private RecipeSearchIndex searchIndex;
+
+    private RecipeDto pasta;
+    private RecipeDto salad;
+    private RecipeDto soup;
+
+    @BeforeEach
+    void setUp() {
+        when(recipeRepository.streamIndexRows()).thenReturn(Stream.empty());
+        when(recipeRepository.streamIngredientRows()).thenReturn(Stream.empty());
+        searchIndex = new RecipeSearchIndex(recipeRepository, true);
+        searchIndex.rebuild();
+
+        pasta = TestRecipeFactory.createCustomRecipeDto(null, "Pasta", null,
+                Arrays.asList("Pasta", "Tomato", "Basil"), "Boil", true, 2);
+        salad = TestRecipeFactory.createCustomRecipeDto(null, "Salad", null,
+                Arrays.asList("Lettuce", "Tomato"), "Toss", true, 4);
+        soup = TestRecipeFactory.createCustomRecipeDto(null, "Soup", null,
+                Arrays.asList("Chicken", "Tomato", "Basil"), "Simmer", false, 4);
+
+        searchIndex.onRecipeChanged(RecipeChangedEvent.created(pasta));
+        searchIndex.onRecipeChanged(RecipeChangedEvent.created(salad));
+        searchIndex.onRecipeChanged(RecipeChangedEvent.created(soup));
+    }
+
+    @Test
+    void search_WithIncludeAndExclude_ShouldIntersectBitmaps() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .includeIngredients(Arrays.asList("Tomato", "Basil"))
+                .excludeIngredients(Arrays.asList("Chicken"))
+                .build();
+
+        assertEquals(List.of(pasta.getId()), searchIndex.search(searchRequest));
+    }
+
+    @Test
+    void search_WithScalarFilters_ShouldReturnMatchesInCreationOrder() {
+        RecipeSearchRequest servingsFour = RecipeSearchRequest.builder().servings(4).build();
+        RecipeSearchRequest notVegetarian = RecipeSearchRequest.builder().vegetarian(false).build();
+
+        assertEquals(List.of(salad.getId(), soup.getId()), searchIndex.search(servingsFour));
+        assertEquals(List.of(soup.getId()), searchIndex.search(notVegetarian));
+    }
+
+    @Test
+    void search_WithPage_ShouldSkipEarlierMatches() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .includeIngredients(Arrays.asList("Tomato"))
+                .page(1)
+                .size(2)
+                .build();
+
+        assertEquals(List.of(soup.getId()), searchIndex.search(searchRequest));
+    }
+
+    @Test
+    void search_WithUnknownIngredient_ShouldReturnNothing() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .includeIngredients(Arrays.asList("Tomato", "Saffron"))
+                .build();
+
+        assertTrue(searchIndex.search(searchRequest).isEmpty());
+    }
+
+    @Test
+    void onRecipeChanged_ShouldReindexUpdatesInPlaceAndDropDeletes() {
+        salad.setIngredients(Arrays.asList("Lettuce", "Basil"));
+        searchIndex.onRecipeChanged(RecipeChangedEvent.updated(salad));
+        searchIndex.onRecipeChanged(RecipeChangedEvent.deleted(pasta.getId()));
+
+        RecipeSearchRequest basil = RecipeSearchRequest.builder()
+                .includeIngredients(Arrays.asList("Basil"))
+                .build();
+        RecipeSearchRequest tomato = RecipeSearchRequest.builder()
+                .includeIngredients(Arrays.asList("Tomato"))
+                .build();
+
+        assertEquals(List.of(salad.getId(), soup.getId()), searchIndex.search(basil));
+        assertEquals(List.of(soup.getId()), searchIndex.search(tomato));
+    }
+
+    @Test
+    void onRecipeChanged_WithManyDeletes_ShouldCompactOrdinalsAndKeepCreationOrder() {
+        List<RecipeDto> batch = new ArrayList<>();
+        for (int i = 0; i < 2 * RecipeSearchIndex.COMPACTION_MIN_FREED; i++) {
+            RecipeDto recipe = TestRecipeFactory.createCustomRecipeDto(null, "Batch " + i, null,
+                    Arrays.asList("Tomato"), "Mix", i % 2 == 0, 4);
+            batch.add(recipe);
+            searchIndex.onRecipeChanged(RecipeChangedEvent.created(recipe));
+        }
+        batch.forEach(recipe -> searchIndex.onRecipeChanged(RecipeChangedEvent.deleted(recipe.getId())));
+        searchIndex.onRecipeChanged(RecipeChangedEvent.deleted(salad.getId()));
+
+        RecipeSearchRequest tomato = RecipeSearchRequest.builder()
+                .includeIngredients(Arrays.asList("Tomato"))
+                .build();
+        RecipeSearchRequest vegetarian = RecipeSearchRequest.builder().vegetarian(true).build();
+
+        // Without compaction every ordinal ever handed out would still be held
+        assertTrue(searchIndex.ordinalCount() < batch.size());
+        assertEquals(List.of(pasta.getId(), soup.getId()), searchIndex.search(tomato));
+        assertEquals(List.of(pasta.getId()), searchIndex.search(vegetarian));
+
+        RecipeDto stew = TestRecipeFactory.createCustomRecipeDto(null, "Stew", null,
+                Arrays.asList("Tomato"), "Simmer", false, 4);
+        searchIndex.onRecipeChanged(RecipeChangedEvent.created(stew));
+        assertEquals(List.of(pasta.getId(), soup.getId(), stew.getId()), searchIndex.search(tomato));
+    }
+
+    @Test
+    void facets_ShouldCountMatchesPerFlagServingsBucketAndIngredient() {
+        RecipeSearchRequest tomato = RecipeSearchRequest.builder()
+                .includeIngredients(Arrays.asList("Tomato"))
+                .excludeIngredients(Arrays.asList("Lettuce"))
+                .size(1)
+                .build();
+
+        RecipeFacets facets = searchIndex.facets(tomato);
+
+        assertEquals(2, facets.getTotal());
+        assertEquals(1, facets.getVegetarian());
+        assertEquals(1, facets.getNonVegetarian());
+        assertEquals(1L, facets.getServings().get("1-2"));
+        assertEquals(1L, facets.getServings().get("3-4"));
+        assertEquals(0L, facets.getServings().get("9+"));
+        assertEquals(List.of("basil", "tomato", "chicken", "pasta"), List.copyOf(facets.getIngredients().keySet()));
+        assertEquals(2L, facets.getIngredients().get("tomato"));
+    }
+
+    @Test
+    void facets_WithoutCriteria_ShouldMoveCatalogueCountsWithEachChange() {
+        // Excluding an unknown ingredient matches every recipe, but counts them from the bitmaps
+        RecipeSearchRequest everything = RecipeSearchRequest.builder()
+                .excludeIngredients(Arrays.asList("Unobtainium"))
+                .build();
+        RecipeFacets before = searchIndex.facets(new RecipeSearchRequest());
+
+        assertEquals(searchIndex.facets(everything), before);
+        assertEquals(3, before.getTotal());
+        assertEquals(Map.entry("tomato", 3L), before.getIngredients().entrySet().iterator().next());
+
+        RecipeDto vegetarianSoup = TestRecipeFactory.createCustomRecipeDto(soup.getId(), "Soup", null,
+                Arrays.asList("Lentil", "Tomato"), "Simmer", true, 10);
+        searchIndex.onRecipeChanged(RecipeChangedEvent.updated(vegetarianSoup));
+        RecipeFacets updated = searchIndex.facets(new RecipeSearchRequest());
+
+        assertEquals(searchIndex.facets(everything), updated);
+        assertEquals(0, updated.getNonVegetarian());
+        assertEquals(1L, updated.getServings().get("9+"));
+        assertFalse(updated.getIngredients().containsKey("chicken"));
+
+        searchIndex.onRecipeChanged(RecipeChangedEvent.deleted(soup.getId()));
+        RecipeFacets after = searchIndex.facets(new RecipeSearchRequest());
+
+        assertEquals(searchIndex.facets(everything), after);
+        assertEquals(2, after.getTotal());
+        assertFalse(after.getIngredients().containsKey("lentil"));
+    }
+
+    @Test
+    void facets_WithoutCriteria_ShouldCountRecipesLoadedByRebuild() {
+        RecipeRepository.IndexRow row = mock(RecipeRepository.IndexRow.class);
+        when(row.getId()).thenReturn(pasta.getId());
+        when(row.isVegetarian()).thenReturn(true);
+        when(row.getServings()).thenReturn(2);
+        RecipeRepository.IngredientRow basil = mock(RecipeRepository.IngredientRow.class);
+        when(basil.getRecipeId()).thenReturn(pasta.getId());
+        when(basil.getIngredient()).thenReturn("basil");
+        when(recipeRepository.streamIndexRows()).thenReturn(Stream.of(row));
+        when(recipeRepository.streamIngredientRows()).thenReturn(Stream.of(basil));
+
+        searchIndex.rebuild();
+        RecipeFacets facets = searchIndex.facets(new RecipeSearchRequest());
+
+        assertEquals(1, facets.getTotal());
+        assertEquals(1, facets.getVegetarian());
+        assertEquals(1L, facets.getServings().get("1-2"));
+        assertEquals(Map.of("basil", 1L), facets.getIngredients());
+    }
+
+    @Test
+    void rebuild_ShouldGiveEachRecipeItsIngredientsForCoverageAndReindexing() {
+        RecipeRepository.IndexRow pastaRow = indexRow(pasta);
+        RecipeRepository.IndexRow soupRow = indexRow(soup);
+        // Each row carries its own String instance, as rows read over JDBC do
+        List<RecipeRepository.IngredientRow> ingredientRows = List.of(
+                ingredientRow(pasta, "pasta"), ingredientRow(pasta, new String("basil")),
+                ingredientRow(soup, "chicken"), ingredientRow(soup, new String("basil")));
+        when(recipeRepository.streamIndexRows()).thenReturn(Stream.of(pastaRow, soupRow));
+        when(recipeRepository.streamIngredientRows()).thenReturn(ingredientRows.stream());
+        searchIndex.rebuild();
+
+        List<PantryCoverage> ranked = searchIndex.topByCoverage(List.of("basil", "pasta"), 1, null, null, 10);
+
+        assertEquals(List.of(pasta.getId(), soup.getId()),
+                ranked.stream().map(PantryCoverage::getRecipeId).collect(Collectors.toList()));
+        assertEquals(1, ranked.get(1).getMissingCount());
+
+        RecipeDto plainSoup = TestRecipeFactory.createCustomRecipeDto(soup.getId(), "Soup", null,
+                Arrays.asList("Chicken"), "Simmer", false, 4);
+        searchIndex.onRecipeChanged(RecipeChangedEvent.updated(plainSoup));
+
+        assertEquals(List.of(pasta.getId()), searchIndex.search(RecipeSearchRequest.builder()
+                .includeIngredients(Arrays.asList("Basil"))
+                .build()));
+    }
+
+    @Test
+    void canAnswer_WithInstructionText_ShouldDeferToDatabase() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .instructionText("boil")
+                .build();
+
+        assertFalse(searchIndex.canAnswer(searchRequest));
+        assertTrue(searchIndex.canAnswer(new RecipeSearchRequest()));
+    }
+
+    @Test
+    void topByCoverage_ShouldRankByCoveredFractionWithinMissingLimit() {
+        List<String> pantry = Arrays.asList("tomato", " Basil", "PASTA");
+
+        List<PantryCoverage> ranked = searchIndex.topByCoverage(pantry, 1, null, null, 10);
+
+        assertEquals(List.of(pasta.getId(), soup.getId(), salad.getId()),
+                ranked.stream().map(PantryCoverage::getRecipeId).collect(Collectors.toList()));
+        assertEquals(1.0, ranked.get(0).getCoverage());
+        assertEquals(1, ranked.get(1).getMissingCount());
+        assertEquals(List.of(pasta.getId()), searchIndex.topByCoverage(pantry, 0, null, null, 10).stream()
+                .map(PantryCoverage::getRecipeId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void topByCoverage_ShouldKeepOnlyTheBestWithinLimitAndFilters() {
+        List<String> pantry = Arrays.asList("Tomato", "Basil", "Pasta");
+
+        List<PantryCoverage> topTwo = searchIndex.topByCoverage(pantry, 1, null, null, 2);
+        List<PantryCoverage> vegetarianOnly = searchIndex.topByCoverage(pantry, 1, true, null, 10);
+
+        assertEquals(List.of(pasta.getId(), soup.getId()),
+                topTwo.stream().map(PantryCoverage::getRecipeId).collect(Collectors.toList()));
+        assertEquals(List.of(pasta.getId(), salad.getId()),
+                vegetarianOnly.stream().map(PantryCoverage::getRecipeId).collect(Collectors.toList()));
+    }
+
+    private static RecipeRepository.IndexRow indexRow(RecipeDto recipe) {
+        RecipeRepository.IndexRow row = mock(RecipeRepository.IndexRow.class);
+        when(row.getId()).thenReturn(recipe.getId());
+        when(row.isVegetarian()).thenReturn(recipe.isVegetarian());
+        when(row.getServings()).thenReturn(recipe.getServings());
+        return row;
+    }
+
+    private static RecipeRepository.IngredientRow ingredientRow(RecipeDto recipe, String ingredient) {
+        RecipeRepository.IngredientRow row = mock(RecipeRepository.IngredientRow.class);
+        when(row.getRecipeId()).thenReturn(recipe.getId());
+        when(row.getIngredient()).thenReturn(ingredient);
+        return row;
+    }
+}
@@ -1,18 +1,40 @@
 package org.recime.recipes.service;
 
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.recime.recipes.cache.RecipeSearchCache;
+import org.recime.recipes.cache.RecipeSearchKey;
+import org.recime.recipes.dto.PantryCoverage;
+import org.recime.recipes.dto.PantryMatch;
+import org.recime.recipes.dto.PantrySearchRequest;
 import org.recime.recipes.dto.RecipeDto;
+import org.recime.recipes.dto.RecipeFacetState;
+import org.recime.recipes.dto.RecipeFacets;
+import org.recime.recipes.dto.RecipeField;
+import org.recime.recipes.dto.RecipePage;
+import org.recime.recipes.dto.RecipePatch;
 import org.recime.recipes.dto.RecipeRequest;
 import org.recime.recipes.dto.RecipeSearchRequest;
+import org.recime.recipes.dto.TextSearchMode;
+import org.recime.recipes.dto.RecipeSearchResult;
+import org.recime.recipes.dto.RecipeSummary;
+import org.recime.recipes.event.RecipeChangedEvent;
+import org.recime.recipes.exception.InvalidCursorException;
 import org.recime.recipes.exception.RecipeNotFoundException;
+import org.recime.recipes.exception.RecipeVersionMismatchException;
 import org.recime.recipes.model.Recipe;
 import org.recime.recipes.repository.RecipeRepository;
 import org.recime.recipes.util.TestRecipeFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -30,10 +52,29 @@ public class RecipeServiceTest {
     @Mock(lenient = true)
     private RecipeConverter recipeConverter;
 
+    @Mock
+    private IngredientDictionary ingredientDictionary;
+
+    @Mock
+    private RecipeSearchIndex searchIndex;
+
+    @Mock
+    private RecipeSearchCache searchCache;
+
+    @Mock
+    private CatalogueFacetCounts catalogueFacetCounts;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private Validator validator;
+
     @InjectMocks
     private RecipeService recipeService;
 
     private Recipe testRecipe;
+    private RecipeSummary testSummary;
     private RecipeRequest testRecipeRequest;
     private RecipeDto testRecipeDto;
     private LocalDateTime now;
@@ -59,6 +100,8 @@ public class RecipeServiceTest {
         testRecipe.setCreatedAt(now);
         testRecipe.setUpdatedAt(now);
 
+        testSummary = new RecipeSummary(testUuid, "Test Recipe", true, 4, now, now);
+
         testRecipeRequest = TestRecipeFactory.createCustomRecipeRequest(
                 "Test Recipe",
                 "Test Description",
@@ -84,20 +127,93 @@ public class RecipeServiceTest {
 
         // Set up RecipeConverter mock behavior
         when(recipeConverter.mapToDto(any(Recipe.class))).thenReturn(testRecipeDto);
-        when(recipeConverter.mapRequestToRecipe(any(RecipeRequest.class))).thenReturn(testRecipe);
-        doNothing().when(recipeConverter).updateRecipeFromRequest(any(Recipe.class), any(RecipeRequest.class));
+        when(recipeConverter.mapToDto(any(RecipeSummary.class))).thenReturn(testRecipeDto);
+        when(recipeConverter.mapRequestToRecipe(any(RecipeRequest.class), anyMap())).thenReturn(testRecipe);
+        doNothing().when(recipeConverter).updateRecipeFromRequest(any(Recipe.class), any(RecipeRequest.class), anyMap());
+
+        // A mocked List return would be an empty list, which the service takes for a cached empty result
+        lenient().when(searchCache.getIfPresent(any())).thenReturn(null);
     }
 
     @Test
-    void getAllRecipes_ShouldReturnAllRecipes() {
-        when(recipeRepository.findAll()).thenReturn(Arrays.asList(testRecipe));
+    void getRecipes_WithoutCursor_ShouldReturnFirstPage() {
+        when(recipeRepository.findFirstSummaryPage(PageRequest.of(0, 11))).thenReturn(Arrays.asList(testSummary));
+
+        RecipePage result = recipeService.getRecipes(null, 10, Set.of());
+
+        assertEquals(1, result.getItems().size());
+        assertEquals(testRecipe.getId(), result.getItems().get(0).getId());
+        assertEquals(testRecipe.getTitle(), result.getItems().get(0).getTitle());
+        assertNull(result.getNextCursor());
+        verify(recipeRepository, times(1)).findFirstSummaryPage(PageRequest.of(0, 11));
+        // No heavy fields requested, so no further queries
+        verifyNoMoreInteractions(recipeRepository);
+    }
 
-        List<RecipeDto> result = recipeService.getAllRecipes();
+    @Test
+    void getRecipes_WithMoreRows_ShouldReturnCursorOfLastItem() {
+        RecipeSummary next = new RecipeSummary(UUID.randomUUID(), "Next", false, 2, now, now);
+        when(recipeRepository.findFirstSummaryPage(PageRequest.of(0, 2))).thenReturn(Arrays.asList(testSummary, next));
 
-        assertEquals(1, result.size());
-        assertEquals(testRecipe.getId(), result.get(0).getId());
-        assertEquals(testRecipe.getTitle(), result.get(0).getTitle());
-        verify(recipeRepository, times(1)).findAll();
+        RecipePage result = recipeService.getRecipes(null, 1, Set.of());
+
+        assertEquals(1, result.getItems().size());
+        RecipeCursor cursor = RecipeCursor.decode(result.getNextCursor());
+        assertEquals(testRecipe.getCreatedAt(), cursor.getCreatedAt());
+        assertEquals(testRecipe.getId(), cursor.getId());
+    }
+
+    @Test
+    void getRecipes_WithCursor_ShouldSeekPastCursor() {
+        String cursor = RecipeCursor.of(testSummary).encode();
+        when(recipeRepository.findSummaryPageAfter(now, testUuid, PageRequest.of(0, 11))).thenReturn(Collections.emptyList());
+
+        RecipePage result = recipeService.getRecipes(cursor, 10, Set.of());
+
+        assertTrue(result.getItems().isEmpty());
+        assertNull(result.getNextCursor());
+        verify(recipeRepository, times(1)).findSummaryPageAfter(now, testUuid, PageRequest.of(0, 11));
+    }
+
+    @Test
+    void getRecipes_WithMalformedCursor_ShouldThrowException() {
+        assertThrows(InvalidCursorException.class, () -> recipeService.getRecipes("not-a-cursor", 10, Set.of()));
+        verify(recipeRepository, never()).findSummaryPageAfter(any(), any(), any());
+    }
+
+    @Test
+    void getRecipes_WithIngredientsField_ShouldLoadOnlyIngredients() {
+        RecipeDto summaryDto = RecipeDto.builder().id(testUuid).title("Test Recipe").build();
+        RecipeRepository.IngredientRow salt = mock(RecipeRepository.IngredientRow.class);
+        when(salt.getRecipeId()).thenReturn(testUuid);
+        when(salt.getIngredient()).thenReturn("salt");
+
+        when(recipeConverter.mapToDto(testSummary)).thenReturn(summaryDto);
+        when(recipeRepository.findFirstSummaryPage(PageRequest.of(0, 11))).thenReturn(Arrays.asList(testSummary));
+        when(recipeRepository.findIngredientRowsByIdIn(List.of(testUuid))).thenReturn(List.of(salt));
+
+        RecipePage result = recipeService.getRecipes(null, 10, EnumSet.of(RecipeField.INGREDIENTS));
+
+        assertEquals(List.of("salt"), result.getItems().get(0).getIngredients());
+        assertNull(result.getItems().get(0).getInstructions());
+        verify(recipeRepository, never()).findTextRowsByIdIn(any());
+    }
+
+    @Test
+    void streamAllRecipes_ShouldWalkKeysetPages() {
+        List<RecipeSummary> firstPage = new ArrayList<>();
+        for (int i = 0; i < 501; i++) {
+            firstPage.add(new RecipeSummary(UUID.randomUUID(), "Recipe " + i, false, 2, now.plusSeconds(i), now));
+        }
+        RecipeSummary lastStreamed = firstPage.get(499);
+        when(recipeRepository.findFirstSummaryPage(PageRequest.of(0, 501))).thenReturn(firstPage);
+        when(recipeRepository.findSummaryPageAfter(lastStreamed.getCreatedAt(), lastStreamed.getId(), PageRequest.of(0, 501)))
+                .thenReturn(List.of(firstPage.get(500)));
+
+        List<RecipeDto> streamed = new ArrayList<>();
+        recipeService.streamAllRecipes(Set.of(), streamed::add);
+
+        assertEquals(501, streamed.size());
     }
 
     @Test
@@ -141,12 +257,14 @@ public class RecipeServiceTest {
         assertEquals(testRecipe.getId(), result.getId());
         assertEquals(testRecipe.getTitle(), result.getTitle());
         verify(recipeRepository, times(1)).save(any(Recipe.class));
+        verify(ingredientDictionary, times(1)).intern(testRecipeRequest.getIngredients());
+        verify(eventPublisher, times(1)).publishEvent(RecipeChangedEvent.created(testRecipeDto));
     }
 
     @Test
     void updateRecipe_WithValidId_ShouldUpdateAndReturnRecipe() {
         when(recipeRepository.findById(testUuid)).thenReturn(Optional.of(testRecipe));
-        when(recipeRepository.save(any(Recipe.class))).thenReturn(testRecipe);
+        when(recipeRepository.saveAndFlush(any(Recipe.class))).thenReturn(testRecipe);
 
         RecipeDto result = recipeService.updateRecipe(testUuid, testRecipeRequest);
 
@@ -154,7 +272,74 @@ public class RecipeServiceTest {
         assertEquals(testRecipe.getId(), result.getId());
         assertEquals(testRecipe.getTitle(), result.getTitle());
         verify(recipeRepository, times(1)).findById(testUuid);
-        verify(recipeRepository, times(1)).save(any(Recipe.class));
+        verify(recipeRepository, times(1)).saveAndFlush(any(Recipe.class));
+    }
+
+    @Test
+    void updateRecipe_WithMatchingVersion_ShouldUpdateWithoutLoadingFirst() {
+        when(recipeRepository.updateIfVersionMatches(eq(testUuid), eq(3L), anyString(), any(), anyString(),
+                anyBoolean(), anyInt(), any(LocalDateTime.class))).thenReturn(1);
+        when(recipeRepository.findById(testUuid)).thenReturn(Optional.of(testRecipe));
+
+        RecipeDto result = recipeService.updateRecipe(testUuid, testRecipeRequest, 3L);
+
+        // The response is mapped from the persisted row, so it carries createdAt
+        assertSame(testRecipeDto, result);
+        InOrder order = inOrder(recipeRepository);
+        order.verify(recipeRepository).updateIfVersionMatches(eq(testUuid), eq(3L), anyString(), any(), anyString(),
+                anyBoolean(), anyInt(), any(LocalDateTime.class));
+        order.verify(recipeRepository).addMissingIngredients(eq(testUuid), anyCollection());
+        order.verify(recipeRepository).findById(testUuid);
+        verify(recipeConverter).mapToDto(testRecipe);
+        verify(recipeRepository).removeIngredientsNotIn(eq(testUuid), anyCollection());
+        verify(recipeRepository).addMissingIngredients(eq(testUuid), anyCollection());
+        verify(eventPublisher).publishEvent(any(RecipeChangedEvent.class));
+    }
+
+    @Test
+    void updateRecipe_WithStaleVersion_ShouldFailPrecondition() {
+        when(recipeRepository.updateIfVersionMatches(eq(testUuid), eq(2L), anyString(), any(), anyString(),
+                anyBoolean(), anyInt(), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThrows(RecipeVersionMismatchException.class, () -> recipeService.updateRecipe(testUuid, testRecipeRequest, 2L));
+        verify(recipeRepository, never()).addMissingIngredients(any(), anyCollection());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void updateRecipe_WithVersionOfMissingRecipe_ShouldFailPrecondition() {
+        UUID missingId = UUID.randomUUID();
+        when(recipeRepository.updateIfVersionMatches(eq(missingId), eq(2L), anyString(), any(), anyString(),
+                anyBoolean(), anyInt(), any(LocalDateTime.class))).thenReturn(0);
+
+        // RFC 9110: If-Match fails when there is no current representation, so this is 412 rather than 404
+        assertThrows(RecipeVersionMismatchException.class, () -> recipeService.updateRecipe(missingId, testRecipeRequest, 2L));
+        verify(recipeRepository, never()).existsById(any(UUID.class));
+    }
+
+    @Test
+    void patchRecipe_WithoutIngredients_ShouldNotInternOrReplaceThem() {
+        RecipePatch patch = new RecipePatch(Set.of(RecipePatch.TITLE), RecipeRequest.builder().title("Renamed").build());
+        when(recipeRepository.findById(testUuid)).thenReturn(Optional.of(testRecipe));
+        when(recipeRepository.saveAndFlush(testRecipe)).thenReturn(testRecipe);
+
+        RecipeDto result = recipeService.patchRecipe(testUuid, patch, null);
+
+        assertNotNull(result);
+        verify(recipeConverter).patchRecipe(testRecipe, patch, Map.of());
+        verify(ingredientDictionary, never()).intern(any());
+        verify(eventPublisher).publishEvent(any(RecipeChangedEvent.class));
+    }
+
+    @Test
+    void patchRecipe_WithStaleVersion_ShouldFailPrecondition() {
+        RecipePatch patch = new RecipePatch(Set.of(RecipePatch.SERVINGS), RecipeRequest.builder().servings(2).build());
+        testRecipe.setVersion(5L);
+        when(recipeRepository.findById(testUuid)).thenReturn(Optional.of(testRecipe));
+
+        assertThrows(RecipeVersionMismatchException.class, () -> recipeService.patchRecipe(testUuid, patch, 4L));
+        verify(recipeRepository, never()).saveAndFlush(any(Recipe.class));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
@@ -164,41 +349,58 @@ public class RecipeServiceTest {
 
         assertThrows(RecipeNotFoundException.class, () -> recipeService.updateRecipe(invalidId, testRecipeRequest));
         verify(recipeRepository, times(1)).findById(invalidId);
-        verify(recipeRepository, never()).save(any(Recipe.class));
+        verify(recipeRepository, never()).saveAndFlush(any(Recipe.class));
     }
 
     @Test
     void deleteRecipe_WithValidId_ShouldDeleteRecipe() {
         UUID deleteId = UUID.randomUUID();
-        when(recipeRepository.existsById(deleteId)).thenReturn(true);
-        doNothing().when(recipeRepository).deleteById(deleteId);
+        RecipeFacetState previous = new RecipeFacetState(true, 4, Set.of("salt"));
+        when(recipeRepository.lockFacetStates(List.of(deleteId))).thenReturn(Map.of(deleteId, previous));
+        when(recipeRepository.deleteRecipeById(deleteId)).thenReturn(1);
 
         recipeService.deleteRecipe(deleteId);
 
-        verify(recipeRepository, times(1)).existsById(deleteId);
-        verify(recipeRepository, times(1)).deleteById(deleteId);
+        verify(recipeRepository, never()).existsById(any(UUID.class));
+        verify(recipeRepository, never()).findById(any(UUID.class));
+        verify(eventPublisher, times(1)).publishEvent(RecipeChangedEvent.deleted(deleteId, previous));
     }
 
     @Test
     void deleteRecipe_WithInvalidId_ShouldThrowException() {
         UUID invalidId = UUID.randomUUID();
-        when(recipeRepository.existsById(invalidId)).thenReturn(false);
+        when(recipeRepository.lockFacetStates(List.of(invalidId))).thenReturn(Map.of());
 
         assertThrows(RecipeNotFoundException.class, () -> recipeService.deleteRecipe(invalidId));
-        verify(recipeRepository, times(1)).existsById(invalidId);
-        verify(recipeRepository, never()).deleteById(any(UUID.class));
+        verify(recipeRepository, never()).deleteRecipeById(any());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
     void searchRecipes_WithNoFilters_ShouldReturnAllMatchingRecipes() {
         RecipeSearchRequest searchRequest = new RecipeSearchRequest();
-        when(recipeRepository.searchRecipes(null, null, null)).thenReturn(Arrays.asList(testRecipe));
+        when(recipeRepository.findSummaries(any(), any(Pageable.class))).thenReturn(Arrays.asList(testSummary));
 
-        List<RecipeDto> result = recipeService.searchRecipes(searchRequest);
+        List<RecipeDto> result = recipeService.searchRecipes(searchRequest, Set.of());
 
         assertEquals(1, result.size());
         assertEquals(testRecipe.getId(), result.get(0).getId());
-        verify(recipeRepository, times(1)).searchRecipes(null, null, null);
+        verify(recipeRepository, times(1)).findSummaries(any(), any(Pageable.class));
+    }
+
+    @Test
+    void searchRecipes_WithFullTextQuery_ShouldOrderByRank() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .instructionText("grilled salmon")
+                .textMode(TextSearchMode.FULL_TEXT)
+                .build();
+        when(recipeRepository.findSummariesByRank(any(), eq("grilled salmon"), any(Pageable.class)))
+                .thenReturn(Arrays.asList(testSummary));
+
+        List<RecipeDto> result = recipeService.searchRecipes(searchRequest, Set.of());
+
+        assertEquals(1, result.size());
+        verify(recipeRepository, never()).findSummaries(any(), any(Pageable.class));
     }
 
     @Test
@@ -209,46 +411,191 @@ public class RecipeServiceTest {
                 .excludeIngredients(new ArrayList<>())
                 .build();
 
-        when(recipeRepository.searchRecipes(true, null, null)).thenReturn(Arrays.asList(testRecipe));
+        when(recipeRepository.findSummaries(any(), any(Pageable.class))).thenReturn(Arrays.asList(testSummary));
 
-        List<RecipeDto> result = recipeService.searchRecipes(searchRequest);
+        List<RecipeDto> result = recipeService.searchRecipes(searchRequest, Set.of());
 
         assertEquals(1, result.size());
         assertEquals(testRecipe.getId(), result.get(0).getId());
         assertTrue(result.get(0).isVegetarian());
-        verify(recipeRepository, times(1)).searchRecipes(true, null, null);
+        verify(recipeRepository, times(1)).findSummaries(any(), any(Pageable.class));
     }
 
     @Test
-    void searchRecipes_WithIncludeIngredients_ShouldFilterResults() {
+    void searchRecipes_WithIngredientFilters_ShouldRunSingleQuery() {
         RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
                 .includeIngredients(Arrays.asList("Ingredient 1"))
-                .excludeIngredients(new ArrayList<>())
+                .excludeIngredients(Arrays.asList("Ingredient 3"))
                 .build();
 
-        when(recipeRepository.searchRecipes(null, null, null)).thenReturn(Arrays.asList(testRecipe));
+        when(recipeRepository.findSummaries(any(), any(Pageable.class))).thenReturn(Arrays.asList(testSummary));
 
-        List<RecipeDto> result = recipeService.searchRecipes(searchRequest);
+        List<RecipeDto> result = recipeService.searchRecipes(searchRequest, Set.of());
 
         assertEquals(1, result.size());
         assertEquals(testRecipe.getId(), result.get(0).getId());
-        verify(recipeRepository, times(1)).searchRecipes(null, null, null);
+        verify(recipeRepository, times(1)).findSummaries(any(), any(Pageable.class));
+        verifyNoMoreInteractions(recipeRepository);
+        // Names are resolved once, and a search never adds to the dictionary
+        verify(ingredientDictionary, times(1)).lookup(Arrays.asList("Ingredient 1", "Ingredient 3"));
+        verify(ingredientDictionary, never()).intern(any());
     }
 
     @Test
-    void searchRecipes_WithExcludeIngredients_ShouldFilterResults() {
+    void searchRecipes_WithSize_ShouldRequestOnlyThatPage() {
         RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
-                .excludeIngredients(Arrays.asList("Ingredient 3"))
-                .includeIngredients(new ArrayList<>())
+                .vegetarian(true)
+                .page(2)
+                .size(10)
                 .build();
 
-        when(recipeRepository.searchRecipes(null, null, null)).thenReturn(Arrays.asList(testRecipe));
+        when(recipeRepository.findSummaries(any(), any(Pageable.class)))
+                .thenReturn(Arrays.asList(testSummary));
 
-        List<RecipeDto> result = recipeService.searchRecipes(searchRequest);
+        List<RecipeDto> result = recipeService.searchRecipes(searchRequest, Set.of());
 
         assertEquals(1, result.size());
-        assertEquals(testRecipe.getId(), result.get(0).getId());
-        verify(recipeRepository, times(1)).searchRecipes(null, null, null);
+        verify(recipeRepository, times(1)).findSummaries(any(),
+                eq(PageRequest.of(2, 10, Sort.by("createdAt", "id"))));
+    }
+
+    @Test
+    void searchByPantry_WithoutIndex_ShouldRankInDatabaseAndHydrateInOrder() {
+        PantrySearchRequest pantryRequest = PantrySearchRequest.builder()
+                .pantry(Arrays.asList("Ingredient 1", "Saffron"))
+                .build();
+        when(ingredientDictionary.lookup(pantryRequest.getPantry()))
+                .thenReturn(TestRecipeFactory.createIngredientDictionary(List.of("Ingredient 1")));
+        when(recipeRepository.findTopByPantryCoverage(eq(Set.of(1)), eq((long) PantrySearchRequest.DEFAULT_MAX_MISSING),
+                isNull(), isNull(), eq(PageRequest.of(0, PantrySearchRequest.DEFAULT_LIMIT))))
+                .thenReturn(List.of(new PantryCoverage(testUuid, 2, 1)));
+        when(recipeRepository.findSummariesByIdIn(List.of(testUuid))).thenReturn(List.of(testSummary));
+
+        List<PantryMatch> result = recipeService.searchByPantry(pantryRequest, Set.of());
+
+        assertEquals(1, result.size());
+        assertEquals(testUuid, result.get(0).getRecipe().getId());
+        assertEquals(0.5, result.get(0).getCoverage());
+        assertEquals(1, result.get(0).getMissingCount());
+    }
+
+    @Test
+    void searchByPantry_WithUnknownIngredientsOnly_ShouldNotQueryRecipes() {
+        PantrySearchRequest pantryRequest = PantrySearchRequest.builder()
+                .pantry(Arrays.asList("Saffron"))
+                .build();
+        when(ingredientDictionary.lookup(pantryRequest.getPantry())).thenReturn(Map.of());
+
+        assertTrue(recipeService.searchByPantry(pantryRequest, Set.of()).isEmpty());
+        verify(recipeRepository, never()).findTopByPantryCoverage(any(), anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void searchRecipes_WhenIndexCanAnswer_ShouldOnlyHydrateMatchingIds() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .includeIngredients(Arrays.asList("Ingredient 1"))
+                .build();
+        RecipeSummary other = new RecipeSummary(UUID.randomUUID(), "Other", false, 2, now, now);
+
+        when(searchIndex.canAnswer(searchRequest)).thenReturn(true);
+        when(searchIndex.search(searchRequest)).thenReturn(Arrays.asList(other.getId(), testUuid));
+        when(recipeRepository.findSummariesByIdIn(Arrays.asList(other.getId(), testUuid)))
+                .thenReturn(Arrays.asList(testSummary, other));
+
+        List<RecipeDto> result = recipeService.searchRecipes(searchRequest, Set.of());
+
+        assertEquals(2, result.size());
+        verify(recipeConverter).mapToDto(other);
+        verify(recipeConverter).mapToDto(testSummary);
+        verify(recipeRepository, never()).findSummaries(any(), any(Pageable.class));
+    }
+
+    @Test
+    void searchRecipes_WithCachedIds_ShouldSkipSearchQuery() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .vegetarian(true)
+                .servings(4)
+                .build();
+        RecipeSearchKey key = RecipeSearchKey.of(searchRequest, 0);
+
+        when(searchCache.keyFor(searchRequest)).thenReturn(key);
+        when(searchCache.getIfPresent(key)).thenReturn(List.of(testUuid));
+        when(recipeRepository.findSummariesByIdIn(List.of(testUuid))).thenReturn(Arrays.asList(testSummary));
+
+        List<RecipeDto> result = recipeService.searchRecipes(searchRequest, Set.of());
+
+        assertEquals(1, result.size());
+        assertEquals(testUuid, result.get(0).getId());
+        verify(recipeRepository, never()).findSummaries(any(), any(Pageable.class));
+        verify(searchCache, never()).put(any(), any());
+    }
+
+    @Test
+    void searchRecipes_OnCacheMiss_ShouldCacheMatchingIds() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .vegetarian(true)
+                .build();
+        RecipeSearchKey key = RecipeSearchKey.of(searchRequest, 0);
+
+        when(searchCache.keyFor(searchRequest)).thenReturn(key);
+        when(recipeRepository.findSummaries(any(), any(Pageable.class))).thenReturn(Arrays.asList(testSummary));
+
+        recipeService.searchRecipes(searchRequest, Set.of());
+
+        verify(searchCache, times(1)).put(key, List.of(testUuid));
+    }
+
+    @Test
+    void searchRecipesWithFacets_OnCacheMiss_ShouldAggregateInDatabaseAndCacheForAllPages() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder()
+                .vegetarian(true)
+                .page(2)
+                .size(10)
+                .build();
+        RecipeSearchKey facetKey = RecipeSearchKey.ofFilters(searchRequest, 0);
+        RecipeFacets facets = RecipeFacets.of(1, 1, Map.of(4, 1L), Map.of("salt", 1L));
+
+        when(searchCache.facetKeyFor(searchRequest)).thenReturn(facetKey);
+        when(recipeRepository.findSummaries(any(), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(recipeRepository.findFacets(any(), eq(RecipeFacets.TOP_INGREDIENTS))).thenReturn(facets);
+
+        RecipeSearchResult result = recipeService.searchRecipesWithFacets(searchRequest, Set.of());
+
+        assertTrue(result.getItems().isEmpty());
+        assertSame(facets, result.getFacets());
+        assertEquals(0, facetKey.getPage());
+        verify(searchCache, times(1)).putFacets(facetKey, facets);
+    }
+
+    @Test
+    void searchRecipesWithFacets_WithoutCriteria_ShouldReadTheCatalogueCounters() {
+        RecipeSearchRequest searchRequest = new RecipeSearchRequest();
+        RecipeFacets facets = RecipeFacets.of(0, 0, Map.of(), Map.of());
+        when(searchCache.keyFor(searchRequest)).thenReturn(RecipeSearchKey.of(searchRequest, 0));
+        when(recipeRepository.findSummaries(any(), any(Pageable.class))).thenReturn(Collections.emptyList());
+        when(catalogueFacetCounts.facets()).thenReturn(facets);
+
+        RecipeSearchResult result = recipeService.searchRecipesWithFacets(searchRequest, Set.of());
+
+        assertSame(facets, result.getFacets());
+        verify(recipeRepository, never()).findFacets(any(), anyInt());
+        verify(searchIndex, never()).facets(any());
+    }
+
+    @Test
+    void searchRecipesWithFacets_WhenIndexCanAnswer_ShouldNotAggregateInDatabase() {
+        RecipeSearchRequest searchRequest = RecipeSearchRequest.builder().vegetarian(true).build();
+        RecipeFacets facets = RecipeFacets.of(0, 0, Map.of(), Map.of());
+
+        when(searchIndex.canAnswer(searchRequest)).thenReturn(true);
+        when(searchIndex.search(searchRequest)).thenReturn(Collections.emptyList());
+        when(searchIndex.facets(searchRequest)).thenReturn(facets);
+
+        RecipeSearchResult result = recipeService.searchRecipesWithFacets(searchRequest, Set.of());
+
+        assertSame(facets, result.getFacets());
+        verify(recipeRepository, never()).findFacets(any(), anyInt());
+        verify(searchCache, never()).putFacets(any(), any());
     }
 
     @Test
@@ -259,11 +606,11 @@ public class RecipeServiceTest {
                 .excludeIngredients(new ArrayList<>())
                 .build();
 
-        when(recipeRepository.searchRecipes(false, null, null)).thenReturn(Collections.emptyList());
+        when(recipeRepository.findSummaries(any(), any(Pageable.class))).thenReturn(Collections.emptyList());
 
-        List<RecipeDto> result = recipeService.searchRecipes(searchRequest);
+        List<RecipeDto> result = recipeService.searchRecipes(searchRequest, Set.of());
 
         assertTrue(result.isEmpty());
-        verify(recipeRepository, times(1)).searchRecipes(false, null, null);
+        verify(recipeRepository, times(1)).findSummaries(any(), any(Pageable.class));
     }
 }
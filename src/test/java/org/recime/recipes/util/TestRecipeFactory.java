@@ -2,11 +2,17 @@ package org.recime.recipes.util;
 
 import org.recime.recipes.dto.RecipeDto;
 import org.recime.recipes.dto.RecipeRequest;
+import org.recime.recipes.model.Ingredient;
 import org.recime.recipes.model.Recipe;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -32,6 +38,7 @@ public class TestRecipeFactory {
                 .servings(4)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
+                .version(0L)
                 .build();
     }
 
@@ -52,6 +59,7 @@ public class TestRecipeFactory {
                 .servings(2)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
+                .version(0L)
                 .build();
     }
 
@@ -86,6 +94,7 @@ public class TestRecipeFactory {
                 .servings(servings)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
+                .version(0L)
                 .build();
     }
 
@@ -161,7 +170,7 @@ public class TestRecipeFactory {
                 .id(id != null ? id : UUID.randomUUID())
                 .title("Basic Test Recipe")
                 .description("A simple test recipe description")
-                .ingredients(Arrays.asList("Ingredient 1", "Ingredient 2", "Ingredient 3"))
+                .ingredients(ingredients(Arrays.asList("Ingredient 1", "Ingredient 2", "Ingredient 3")))
                 .instructions("Mix all ingredients and cook")
                 .vegetarian(false)
                 .servings(4)
@@ -181,7 +190,7 @@ public class TestRecipeFactory {
                 .id(id != null ? id : UUID.randomUUID())
                 .title("Vegetarian Test Recipe")
                 .description("A vegetarian test recipe description")
-                .ingredients(Arrays.asList("Vegetable 1", "Vegetable 2", "Spice 1"))
+                .ingredients(ingredients(Arrays.asList("Vegetable 1", "Vegetable 2", "Spice 1")))
                 .instructions("Prepare vegetables and cook with spices")
                 .vegetarian(true)
                 .servings(2)
@@ -215,7 +224,7 @@ public class TestRecipeFactory {
                 .id(id != null ? id : UUID.randomUUID())
                 .title(title)
                 .description(description)
-                .ingredients(ingredients)
+                .ingredients(ingredients(ingredients))
                 .instructions(instructions)
                 .vegetarian(vegetarian)
                 .servings(servings)
@@ -223,4 +232,25 @@ public class TestRecipeFactory {
                 .updatedAt(LocalDateTime.now())
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Builds an ingredient dictionary as {@code IngredientDictionary#intern} returns it, with sequential ids.
+     *
+     * @param names Ingredient names, in any spelling
+     * @return Ingredients keyed by normalized name
+     */
+    public static Map<String, Ingredient> createIngredientDictionary(Collection<String> names) {
+        Map<String, Ingredient> dictionary = new HashMap<>();
+        for (String name : names) {
+            String normalized = Ingredient.normalizeName(name);
+            dictionary.computeIfAbsent(normalized, key -> new Ingredient(dictionary.size() + 1, key));
+        }
+        return dictionary;
+    }
+
+    private static Set<Ingredient> ingredients(List<String> names) {
+        Set<Ingredient> ingredients = new LinkedHashSet<>();
+        names.forEach(name -> ingredients.add(Ingredient.named(name)));
+        return ingredients;
+    }
+}